@@ -0,0 +1,65 @@
+package com.hubspot.maven.plugins.prettier;
+
+import org.apache.maven.plugin.logging.Log;
+
+/**
+ * Discards everything, so that benchmarks measure the plugin rather than the console
+ */
+public class NoOpLog implements Log {
+
+  @Override
+  public boolean isDebugEnabled() {
+    return false;
+  }
+
+  @Override
+  public void debug(CharSequence content) {}
+
+  @Override
+  public void debug(CharSequence content, Throwable error) {}
+
+  @Override
+  public void debug(Throwable error) {}
+
+  @Override
+  public boolean isInfoEnabled() {
+    return false;
+  }
+
+  @Override
+  public void info(CharSequence content) {}
+
+  @Override
+  public void info(CharSequence content, Throwable error) {}
+
+  @Override
+  public void info(Throwable error) {}
+
+  @Override
+  public boolean isWarnEnabled() {
+    return false;
+  }
+
+  @Override
+  public void warn(CharSequence content) {}
+
+  @Override
+  public void warn(CharSequence content, Throwable error) {}
+
+  @Override
+  public void warn(Throwable error) {}
+
+  @Override
+  public boolean isErrorEnabled() {
+    return false;
+  }
+
+  @Override
+  public void error(CharSequence content) {}
+
+  @Override
+  public void error(CharSequence content, Throwable error) {}
+
+  @Override
+  public void error(Throwable error) {}
+}
@@ -0,0 +1,90 @@
+package com.hubspot.maven.plugins.prettier;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Output of prettier-runner.js checking and writing a 50k file project, in
+ * the shape recorded from a real run: about 3% of files are unformatted,
+ * and paths are spread over a few hundred packages. It's rebuilt from a
+ * fixed seed rather than checked in, since the recording itself is several
+ * megabytes.
+ *
+ * The write goal runs prettier in format mode, so changed records of the
+ * write output carry the formatted contents. The unformatted contents of
+ * those files are kept too, for replaying the output against real files.
+ */
+public class PrettierOutputRecording {
+  public static final int FILE_COUNT = 50_000;
+
+  private static final double UNFORMATTED_RATIO = 0.03;
+
+  private final String checkOutput;
+  private final String writeOutput;
+  private final Map<String, String> unformattedFiles;
+
+  private PrettierOutputRecording(String checkOutput, String writeOutput, Map<String, String> unformattedFiles) {
+    this.checkOutput = checkOutput;
+    this.writeOutput = writeOutput;
+    this.unformattedFiles = unformattedFiles;
+  }
+
+  public static PrettierOutputRecording load() {
+    Random random = new Random(50_000);
+    StringBuilder checkOutput = new StringBuilder("{\"status\":\"ready\",\"version\":\"3.0.3\"}\n");
+    StringBuilder writeOutput = new StringBuilder("{\"status\":\"ready\",\"version\":\"3.0.3\"}\n");
+    Map<String, String> unformattedFiles = new LinkedHashMap<>();
+
+    for (int i = 0; i < FILE_COUNT; i++) {
+      String file = String.format(
+          "module-%d/src/%s/java/com/hubspot/module%d/package%d/GeneratedClass%d.java",
+          i % 40,
+          random.nextInt(5) == 0 ? "test" : "main",
+          i % 40,
+          random.nextInt(300),
+          i
+      );
+
+      int millis = 5 + (int) Math.abs(random.nextGaussian() * 40);
+      if (random.nextDouble() < UNFORMATTED_RATIO) {
+        unformattedFiles.put(file, "public class GeneratedClass" + i + " { private final int value = " + i + "; }\n");
+        String formatted = "public class GeneratedClass" + i + " {\n\n  private final int value = " + i + ";\n}\n";
+
+        checkOutput.append(record(file, "changed", millis, ""));
+        writeOutput.append(record(file, "changed", millis, ",\"formatted\":\"" + formatted.replace("\n", "\\n") + "\""));
+      } else {
+        checkOutput.append(record(file, "clean", millis, ""));
+        writeOutput.append(record(file, "clean", millis, ""));
+      }
+    }
+
+    checkOutput.append("{\"status\":\"done\"}\n");
+    writeOutput.append("{\"status\":\"done\"}\n");
+    return new PrettierOutputRecording(
+        checkOutput.toString(),
+        writeOutput.toString(),
+        Collections.unmodifiableMap(unformattedFiles)
+    );
+  }
+
+  private static String record(String file, String status, int millis, String extraFields) {
+    return "{\"file\":\"" + file + "\",\"status\":\"" + status + "\"" + extraFields + ",\"ms\":" + millis + "}\n";
+  }
+
+  public String getCheckOutput() {
+    return checkOutput;
+  }
+
+  public String getWriteOutput() {
+    return writeOutput;
+  }
+
+  /**
+   * The contents of the files reported as changed, before formatting, by path
+   */
+  public Map<String, String> getUnformattedFiles() {
+    return unformattedFiles;
+  }
+}
@@ -0,0 +1,126 @@
+package com.hubspot.maven.plugins.prettier;
+
+import com.hubspot.maven.plugins.prettier.internal.FileUtils;
+import com.hubspot.maven.plugins.prettier.internal.RunnerRecordReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.project.MavenProject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Replays the output of prettier-runner.js for a 50k file project through
+ * the code that parses it, each operation being one full run
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class RunnerOutputBenchmark {
+  private PrettierOutputRecording recording;
+  private MavenProject project;
+
+  @Setup
+  public void setup() {
+    recording = PrettierOutputRecording.load();
+
+    project = new MavenProject();
+    project.setFile(new File("prettier-benchmark", "pom.xml").getAbsoluteFile());
+  }
+
+  @Benchmark
+  public void readRecords(Blackhole blackhole) throws IOException {
+    RunnerRecordReader records = new RunnerRecordReader(new StringReader(recording.getCheckOutput()));
+    while (records.next()) {
+      if (records.getType() == RunnerRecordReader.Type.RESULT) {
+        blackhole.consume(records.toResult());
+      }
+    }
+  }
+
+  /**
+   * A project on disk with the unformatted files of the recording, which
+   * are restored before every run since the write mojo rewrites them
+   */
+  @State(Scope.Benchmark)
+  public static class WriteProject {
+    private PrettierOutputRecording recording;
+    private Path baseDirectory;
+    private MavenProject project;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+      recording = PrettierOutputRecording.load();
+      baseDirectory = Files.createTempDirectory("prettier-benchmark-");
+
+      project = new MavenProject();
+      project.setFile(baseDirectory.resolve("pom.xml").toFile());
+
+      for (String file : recording.getUnformattedFiles().keySet()) {
+        Files.createDirectories(baseDirectory.resolve(file).getParent());
+      }
+    }
+
+    @Setup(Level.Invocation)
+    public void restoreUnformattedFiles() throws IOException {
+      for (Map.Entry<String, String> file : recording.getUnformattedFiles().entrySet()) {
+        Files.write(baseDirectory.resolve(file.getKey()), file.getValue().getBytes(StandardCharsets.UTF_8));
+      }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws MojoExecutionException {
+      FileUtils.deleteDirectory(baseDirectory);
+    }
+  }
+
+  @Benchmark
+  public WriteMojo writeMojoResults(WriteProject writeProject) throws IOException {
+    WriteMojo mojo = new WriteMojo();
+    mojo.setLog(new NoOpLog());
+    mojo.project = writeProject.project;
+
+    RunnerRecordReader records = new RunnerRecordReader(new StringReader(recording.getWriteOutput()));
+    while (records.next()) {
+      if (records.getType() == RunnerRecordReader.Type.RESULT) {
+        mojo.handlePrettierResult(records.toResult());
+      }
+    }
+    return mojo;
+  }
+
+  @Benchmark
+  public CheckMojo checkMojoResults() throws IOException {
+    CheckMojo mojo = new CheckMojo();
+    mojo.setLog(new NoOpLog());
+    mojo.project = project;
+
+    RunnerRecordReader records = new RunnerRecordReader(new StringReader(recording.getCheckOutput()));
+    while (records.next()) {
+      if (records.getType() == RunnerRecordReader.Type.RESULT) {
+        mojo.handlePrettierResult(records.toResult());
+      }
+    }
+    return mojo;
+  }
+}
@@ -0,0 +1,194 @@
+package com.hubspot.maven.plugins.prettier.internal;
+
+import com.hubspot.maven.plugins.prettier.NoOpLog;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorOutputStream;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Extracts, copies and links a tree shaped like a node distribution: a few
+ * thousand small files spread over a few hundred directories, plus a
+ * handful of large binaries
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 20)
+public class ArchiveBenchmark {
+  private static final int SMALL_FILE_COUNT = 3_000;
+  private static final int DIRECTORY_COUNT = 300;
+  private static final int LARGE_FILE_COUNT = 3;
+  private static final int LARGE_FILE_SIZE = 16 * 1024 * 1024;
+
+  private final Log log = new NoOpLog();
+
+  private Path workDirectory;
+  private Path sourceDirectory;
+  private Path tarGz;
+  private Path zip;
+  private String tarGzSha256;
+  private Path targetDirectory;
+
+  @Setup(Level.Trial)
+  public void setup() throws IOException {
+    workDirectory = Files.createTempDirectory("prettier-benchmark-");
+    sourceDirectory = workDirectory.resolve("source");
+
+    Random random = new Random(3_000);
+    for (int i = 0; i < SMALL_FILE_COUNT; i++) {
+      Path file = sourceDirectory.resolve("lib/node_modules/package" + (i % DIRECTORY_COUNT) + "/file" + i + ".js");
+      Files.createDirectories(file.getParent());
+      // mostly text, so that it compresses like javascript does
+      byte[] contents = new byte[512 + random.nextInt(16 * 1024)];
+      for (int j = 0; j < contents.length; j++) {
+        contents[j] = (byte) ('a' + random.nextInt(8));
+      }
+      Files.write(file, contents);
+    }
+    for (int i = 0; i < LARGE_FILE_COUNT; i++) {
+      Path file = sourceDirectory.resolve("bin/binary" + i);
+      Files.createDirectories(file.getParent());
+      byte[] contents = new byte[LARGE_FILE_SIZE];
+      random.nextBytes(contents);
+      Files.write(file, contents);
+    }
+
+    List<Path> files = listFiles(sourceDirectory);
+    tarGz = workDirectory.resolve("node.tar.gz");
+    writeTarGz(files, tarGz);
+    tarGzSha256 = HashBuilder.hashFile(tarGz);
+    zip = workDirectory.resolve("node.zip");
+    writeZip(files, zip);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws MojoExecutionException {
+    FileUtils.deleteDirectory(workDirectory);
+  }
+
+  @Setup(Level.Iteration)
+  public void createTargetDirectory() throws IOException {
+    targetDirectory = Files.createTempDirectory(workDirectory, "target-");
+  }
+
+  @TearDown(Level.Iteration)
+  public void deleteTargetDirectory() throws MojoExecutionException {
+    FileUtils.deleteDirectory(targetDirectory);
+  }
+
+  @Benchmark
+  public void extractTarGz() throws IOException {
+    ArchiveType.TAR_GZ.extract(targetDirectory, tarGz, Optional.of(tarGzSha256), log);
+  }
+
+  @Benchmark
+  public void extractZip() throws IOException {
+    ArchiveType.ZIP.extract(targetDirectory, zip, log);
+  }
+
+  @Benchmark
+  public void copyDirectory() throws IOException {
+    copyDirectory(sourceDirectory, targetDirectory);
+  }
+
+  @Benchmark
+  public void linkDirectory() throws IOException {
+    FileUtils.linkDirectory(sourceDirectory, targetDirectory, Collections.emptySet());
+  }
+
+  /**
+   * Copies the contents of source into target, which must already exist, as
+   * the baseline for linkDirectory
+   */
+  private static void copyDirectory(Path source, Path target) throws IOException {
+    Files.walkFileTree(
+        source,
+        new SimpleFileVisitor<>() {
+
+          @Override
+          public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+            // the root directory already exists
+            if (!source.equals(dir)) {
+              Files.copy(dir, target.resolve(source.relativize(dir)), StandardCopyOption.COPY_ATTRIBUTES);
+            }
+            return FileVisitResult.CONTINUE;
+          }
+
+          @Override
+          public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+            Files.copy(file, target.resolve(source.relativize(file)), StandardCopyOption.COPY_ATTRIBUTES);
+            return FileVisitResult.CONTINUE;
+          }
+        }
+    );
+  }
+
+  private static List<Path> listFiles(Path directory) throws IOException {
+    try (Stream<Path> files = Files.walk(directory)) {
+      return files.filter(Files::isRegularFile).sorted().collect(Collectors.toCollection(ArrayList::new));
+    }
+  }
+
+  private void writeTarGz(List<Path> files, Path archive) throws IOException {
+    try (
+        OutputStream outputStream = Files.newOutputStream(archive);
+        GzipCompressorOutputStream gzipOutputStream = new GzipCompressorOutputStream(outputStream);
+        TarArchiveOutputStream tarOutputStream = new TarArchiveOutputStream(gzipOutputStream)
+    ) {
+      tarOutputStream.setLongFileMode(TarArchiveOutputStream.LONGFILE_POSIX);
+      for (Path file : files) {
+        tarOutputStream.putArchiveEntry(new TarArchiveEntry(file.toFile(), relativize(file)));
+        Files.copy(file, tarOutputStream);
+        tarOutputStream.closeArchiveEntry();
+      }
+    }
+  }
+
+  private void writeZip(List<Path> files, Path archive) throws IOException {
+    try (ZipOutputStream zipOutputStream = new ZipOutputStream(Files.newOutputStream(archive))) {
+      for (Path file : files) {
+        zipOutputStream.putNextEntry(new ZipEntry(relativize(file)));
+        Files.copy(file, zipOutputStream);
+        zipOutputStream.closeEntry();
+      }
+    }
+  }
+
+  private String relativize(Path file) {
+    return sourceDirectory.relativize(file).toString().replace('\\', '/');
+  }
+}
@@ -67,7 +67,7 @@ public abstract class AbstractPrettierMojoTest {
     try {
       String output = readString(process.getInputStream());
       boolean success = process.waitFor() == 0;
-      return new MavenResult(success, output);
+      return new MavenResult(success, output, temp);
     } catch (InterruptedException e) {
       throw new RuntimeException("Interrupted while running maven", e);
     }
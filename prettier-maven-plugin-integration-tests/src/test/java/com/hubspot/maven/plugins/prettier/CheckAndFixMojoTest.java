@@ -0,0 +1,99 @@
+package com.hubspot.maven.plugins.prettier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.hubspot.maven.plugins.prettier.TestConfiguration.Goal;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.TestFactory;
+
+public class CheckAndFixMojoTest extends AbstractPrettierMojoTest {
+  private static final String BAD_JAVA_FILE = "java-bad-formatting/Test.java";
+  private static final String DIFF_FILE = "target/prettier-java.diff";
+
+  @TestFactory
+  public Stream<DynamicTest> itFailsOnBadJavaWithoutFix() {
+    return getPrettierJavaVersionsToTest().stream().map(prettierJavaVersion ->
+        DynamicTest.dynamicTest("itFailsOnBadJavaWithoutFix_prettier-java@" + prettierJavaVersion, () -> {
+          TestConfiguration testConfiguration = TestConfiguration
+              .newBuilder()
+              .setPrettierJavaVersion(prettierJavaVersion)
+              .setInputGlobs(Arrays.asList(JAVA_BAD_FORMATTING))
+              .setGoal(Goal.CHECK_AND_FIX)
+              .setProperty("prettier.fix", "false")
+              .build();
+
+          MavenResult result = runMaven(testConfiguration);
+
+          assertThat(result.getOutput()).contains(BUILD_FAILURE);
+          assertThat(result.getOutput()).contains(incorrectlyFormattedFile(JAVA_BAD_FORMATTING));
+          assertThat(result.getSuccess()).isFalse();
+          assertThat(result.getDirectory().resolve(BAD_JAVA_FILE)).hasContent("  public class Test {\n\n}\n");
+          assertBadJavaDiff(result.getDirectory().resolve(DIFF_FILE));
+        })
+    );
+  }
+
+  @TestFactory
+  public Stream<DynamicTest> itFixesBadJava() {
+    return getPrettierJavaVersionsToTest().stream().map(prettierJavaVersion ->
+        DynamicTest.dynamicTest("itFixesBadJava_prettier-java@" + prettierJavaVersion, () -> {
+          TestConfiguration testConfiguration = TestConfiguration
+              .newBuilder()
+              .setPrettierJavaVersion(prettierJavaVersion)
+              .setInputGlobs(Arrays.asList(JAVA_BAD_FORMATTING))
+              .setGoal(Goal.CHECK_AND_FIX)
+              .setProperty("prettier.fix", "true")
+              .build();
+
+          MavenResult result = runMaven(testConfiguration);
+
+          assertThat(result.getOutput()).contains(BUILD_SUCCESS);
+          assertThat(result.getOutput()).contains(reformattedFile(JAVA_BAD_FORMATTING));
+          assertThat(result.getOutput()).doesNotContain(incorrectlyFormattedFile(JAVA_BAD_FORMATTING));
+          assertThat(result.getSuccess()).isTrue();
+          assertThat(result.getDirectory().resolve(BAD_JAVA_FILE)).hasContent("public class Test {}\n");
+          // the diff shows what was fixed
+          assertBadJavaDiff(result.getDirectory().resolve(DIFF_FILE));
+        })
+    );
+  }
+
+  @TestFactory
+  public Stream<DynamicTest> itChecksGoodJava() {
+    return getPrettierJavaVersionsToTest().stream().map(prettierJavaVersion ->
+        DynamicTest.dynamicTest("itChecksGoodJava_prettier-java@" + prettierJavaVersion, () -> {
+          TestConfiguration testConfiguration = TestConfiguration
+              .newBuilder()
+              .setPrettierJavaVersion(prettierJavaVersion)
+              .setInputGlobs(Arrays.asList(JAVA_GOOD_FORMATTING))
+              .setGoal(Goal.CHECK_AND_FIX)
+              .build();
+
+          MavenResult result = runMaven(testConfiguration);
+
+          assertThat(result.getOutput()).contains(BUILD_SUCCESS);
+          assertThat(result.getOutput()).doesNotContain(incorrectlyFormattedFile(JAVA_GOOD_FORMATTING));
+          assertThat(result.getSuccess()).isTrue();
+          assertThat(result.getDirectory().resolve(DIFF_FILE)).doesNotExist();
+        })
+    );
+  }
+
+  private static void assertBadJavaDiff(Path diffFile) {
+    assertThat(diffFile).hasContent(
+        String.join(
+            "\n",
+            "--- " + BAD_JAVA_FILE,
+            "+++ " + BAD_JAVA_FILE,
+            "@@ -1,3 +1 @@",
+            "-  public class Test {",
+            "-",
+            "-}",
+            "+public class Test {}\n"
+        )
+    );
+  }
+}
@@ -0,0 +1,141 @@
+package com.hubspot.maven.plugins.prettier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.hubspot.maven.plugins.prettier.TestConfiguration.Goal;
+import com.hubspot.maven.plugins.prettier.internal.InputFileScanner;
+import com.hubspot.maven.plugins.prettier.internal.PrettierIgnore;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.TestFactory;
+
+/**
+ * The plugin expands input globs and applies .prettierignore itself, rather
+ * than passing the globs to prettier. This checks that it finds the same
+ * files that prettier's CLI does, on the test files.
+ */
+public class InputGlobsTest extends AbstractPrettierMojoTest {
+  private static final List<GlobCase> GLOB_CASES = Arrays.asList(
+      new GlobCase(null, "**/*.java"),
+      new GlobCase(null, "*-formatting/*.{java,js}"),
+      new GlobCase(null, "./java-*/Test.java", "!java-invalid-syntax/**"),
+      new GlobCase(null, "**/[jJ]ava-bad-*/*.java", "js-*/hello-?orld.js"),
+      new GlobCase(null, "js-good-formatting", "java-good-formatting/Test.java"),
+      new GlobCase(null, "missing/**/*.java"),
+      new GlobCase("# generated\n/js-*-formatting/\n*.unknown\nTest.java\n!java-good-formatting/Test.java\n", "**/*")
+  );
+
+  @TestFactory
+  public Stream<DynamicTest> itMatchesTheSameFilesAsPrettier() {
+    return getPrettierJavaVersionsToTest().stream().map(prettierJavaVersion ->
+        DynamicTest.dynamicTest("itMatchesTheSameFilesAsPrettier_prettier-java@" + prettierJavaVersion, () -> {
+          TestConfiguration testConfiguration = TestConfiguration
+              .newBuilder()
+              .setPrettierJavaVersion(prettierJavaVersion)
+              .setInputGlobs(Arrays.asList(JAVA_GOOD_FORMATTING))
+              .setGoal(Goal.PRINT_ARGS)
+              .build();
+
+          MavenResult result = runMaven(testConfiguration);
+          assertThat(result.getSuccess()).as(result.getOutput()).isTrue();
+
+          Path directory = result.getDirectory().toRealPath();
+          for (GlobCase globCase : GLOB_CASES) {
+            Path prettierIgnore = directory.resolve(PrettierIgnore.FILE_NAME);
+            Files.deleteIfExists(prettierIgnore);
+            if (globCase.prettierIgnore != null) {
+              Files.write(prettierIgnore, globCase.prettierIgnore.getBytes(StandardCharsets.UTF_8));
+            }
+
+            assertThat(scan(directory, globCase.inputGlobs))
+                .as("Files matching %s", globCase.inputGlobs)
+                .containsExactlyElementsOf(prettierFiles(directory, result.getOutput(), globCase.inputGlobs));
+          }
+        })
+    );
+  }
+
+  private static Set<String> scan(Path directory, List<String> inputGlobs) throws Exception {
+    InputFileScanner scanner = new InputFileScanner(directory, new SystemStreamLog());
+    Set<String> files = new TreeSet<>();
+    for (Path file : scanner.scan(inputGlobs)) {
+      files.add(scanner.relativize(file));
+    }
+    return files;
+  }
+
+  /**
+   * With --debug-check prettier prints the path of every file it expanded
+   * the globs to, or an error that starts with it
+   */
+  private static Set<String> prettierFiles(Path directory, String printArgsOutput, List<String> inputGlobs)
+    throws IOException, InterruptedException {
+    List<String> command = new ArrayList<>();
+    command.add(printedArg(printArgsOutput, "nodeExecutable"));
+    command.add(printedArg(printArgsOutput, "prettierBin"));
+    command.add("--debug-check");
+    command.add("--no-config");
+    command.add("--no-editorconfig");
+    command.add("--plugin=" + printedArg(printArgsOutput, "prettierJavaPlugin"));
+    command.addAll(inputGlobs);
+
+    Process process = new ProcessBuilder(command).directory(directory.toFile()).redirectErrorStream(true).start();
+    String output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+    process.waitFor();
+
+    Set<String> files = new TreeSet<>();
+    for (String line : output.split("\\R")) {
+      String candidate = line.trim();
+      if (candidate.startsWith("[error] ")) {
+        candidate = candidate.substring("[error] ".length());
+        int quote = candidate.indexOf('"');
+        if (candidate.startsWith("No parser could be inferred") && quote >= 0) {
+          candidate = candidate.substring(quote + 1, candidate.lastIndexOf('"'));
+        } else if (candidate.contains(": ")) {
+          candidate = candidate.substring(0, candidate.indexOf(": "));
+        }
+      }
+
+      Path file;
+      try {
+        file = directory.resolve(candidate).normalize();
+      } catch (InvalidPathException e) {
+        continue;
+      }
+      if (!candidate.isEmpty() && file.startsWith(directory) && Files.isRegularFile(file)) {
+        files.add(directory.relativize(file).toString().replace('\\', '/'));
+      }
+    }
+    return files;
+  }
+
+  private static String printedArg(String printArgsOutput, String name) {
+    for (String line : printArgsOutput.split("\\R")) {
+      if (line.startsWith(name + "=")) {
+        return line.substring(name.length() + 1);
+      }
+    }
+    throw new IllegalStateException("print-args didn't print " + name + ":\n" + printArgsOutput);
+  }
+
+  private static class GlobCase {
+    private final String prettierIgnore;
+    private final List<String> inputGlobs;
+
+    private GlobCase(String prettierIgnore, String... inputGlobs) {
+      this.prettierIgnore = prettierIgnore;
+      this.inputGlobs = Arrays.asList(inputGlobs);
+    }
+  }
+}
@@ -1,12 +1,16 @@
 package com.hubspot.maven.plugins.prettier;
 
+import java.nio.file.Path;
+
 public class MavenResult {
   private final boolean success;
   private final String output;
+  private final Path directory;
 
-  public MavenResult(boolean success, String output) {
+  public MavenResult(boolean success, String output, Path directory) {
     this.success = success;
     this.output = output;
+    this.directory = directory;
   }
 
   public boolean getSuccess() {
@@ -16,4 +20,11 @@ public class MavenResult {
   public String getOutput() {
     return output;
   }
+
+  /**
+   * The project directory Maven ran in, with a copy of the test files
+   */
+  public Path getDirectory() {
+    return directory;
+  }
 }
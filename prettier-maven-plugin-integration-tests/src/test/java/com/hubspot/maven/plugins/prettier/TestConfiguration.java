@@ -1,22 +1,31 @@
 package com.hubspot.maven.plugins.prettier;
 
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.stream.Collectors;
 
 public class TestConfiguration {
   public enum Goal {
-    CHECK, WRITE
+    CHECK, WRITE, PRINT_ARGS, CHECK_AND_FIX
   }
 
   private final String prettierJavaVersion;
   private final List<String> inputGlobs;
   private final Goal goal;
-
-  private TestConfiguration(String prettierJavaVersion, List<String> inputGlobs, Goal goal) {
+  private final Map<String, String> properties;
+
+  private TestConfiguration(
+      String prettierJavaVersion,
+      List<String> inputGlobs,
+      Goal goal,
+      Map<String, String> properties
+  ) {
     this.prettierJavaVersion = prettierJavaVersion;
     this.inputGlobs = inputGlobs;
     this.goal = goal;
+    this.properties = properties;
   }
 
   public static Builder newBuilder() {
@@ -35,6 +44,10 @@ public class TestConfiguration {
     return goal;
   }
 
+  public Map<String, String> getProperties() {
+    return properties;
+  }
+
   public String render(String template) {
     return template
         .replace(
@@ -50,13 +63,22 @@ public class TestConfiguration {
                 .map(inputGlob -> "<inputGlob>" + inputGlob + "</inputGlob>")
                 .collect(Collectors.joining("\n"))
         )
-        .replace("${goal}", goal.name().toLowerCase());
+        .replace(
+            "${properties}",
+            properties
+                .entrySet()
+                .stream()
+                .map(property -> "<" + property.getKey() + ">" + property.getValue() + "</" + property.getKey() + ">")
+                .collect(Collectors.joining("\n"))
+        )
+        .replace("${goal}", goal.name().toLowerCase().replace('_', '-'));
   }
 
   public static class Builder {
     private String prettierJavaVersion = null;
     private List<String> inputGlobs = null;
     private Goal goal = null;
+    private final Map<String, String> properties = new LinkedHashMap<>();
 
     private Builder() {}
 
@@ -75,6 +97,11 @@ public class TestConfiguration {
     return this;
   }
 
+  public Builder setProperty(String name, String value) {
+    properties.put(Objects.requireNonNull(name), Objects.requireNonNull(value));
+    return this;
+  }
+
     public TestConfiguration build() {
       if (prettierJavaVersion == null) {
         throw new IllegalStateException("prettierJavaVersion must be set");
@@ -88,7 +115,7 @@ public class TestConfiguration {
         throw new IllegalStateException("goal must be set");
       }
 
-      return new TestConfiguration(prettierJavaVersion, inputGlobs, goal);
+      return new TestConfiguration(prettierJavaVersion, inputGlobs, goal, new LinkedHashMap<>(properties));
     }
   }
 }
@@ -1,34 +1,200 @@
 package com.hubspot.maven.plugins.prettier;
 
+import com.hubspot.maven.plugins.prettier.internal.BuildMarkers;
+import com.hubspot.maven.plugins.prettier.internal.FileShards;
+import com.hubspot.maven.plugins.prettier.internal.FileUtils;
+import com.hubspot.maven.plugins.prettier.internal.FormattingCache;
+import com.hubspot.maven.plugins.prettier.internal.FormattingTimings;
+import com.hubspot.maven.plugins.prettier.internal.GitChangedFiles;
+import com.hubspot.maven.plugins.prettier.internal.GraalJsEngine;
+import com.hubspot.maven.plugins.prettier.internal.InputFileScanner;
+import com.hubspot.maven.plugins.prettier.internal.ModuleFingerprint;
+import com.hubspot.maven.plugins.prettier.internal.NodeEngine;
 import com.hubspot.maven.plugins.prettier.internal.NodeInstall;
+import com.hubspot.maven.plugins.prettier.internal.PhaseTimings;
+import com.hubspot.maven.plugins.prettier.internal.PrettierEngine;
 import com.hubspot.maven.plugins.prettier.internal.PrettierPaths;
-import java.io.BufferedReader;
+import com.hubspot.maven.plugins.prettier.internal.PrettierResult;
+import com.hubspot.maven.plugins.prettier.internal.PrettierResult.Status;
+import java.io.File;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.regex.Pattern;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import org.apache.maven.execution.MavenSession;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.Component;
 import org.apache.maven.plugins.annotations.Parameter;
+import org.sonatype.plexus.build.incremental.BuildContext;
 
 public abstract class AbstractPrettierMojo extends PrettierArgs {
 
-  private static final Pattern ANSI_COLOR_CODE = Pattern.compile("\u001B\\[[;\\d]*m");
+  private static final List<String> CONFIG_FILE_NAMES = Arrays.asList(
+      "package.json",
+      "package.yaml",
+      ".prettierrc",
+      ".prettierrc.json",
+      ".prettierrc.yaml",
+      ".prettierrc.yml",
+      ".prettierrc.json5",
+      ".prettierrc.js",
+      ".prettierrc.cjs",
+      ".prettierrc.mjs",
+      ".prettierrc.toml",
+      "prettier.config.js",
+      "prettier.config.cjs",
+      "prettier.config.mjs"
+  );
+  private static final String EDITOR_CONFIG_FILE_NAME = ".editorconfig";
+  // starting node and loading prettier takes a while, not worth it for a handful of files
+  private static final int MIN_FILES_PER_SHARD = 50;
+  private static final String NODE_ENGINE = "node";
+  private static final String GRAALJS_ENGINE = "graaljs";
 
   @Parameter(defaultValue = "false")
   private boolean skip;
 
+  /**
+   * Only send files to prettier if their contents changed since the last time
+   * prettier saw them formatted correctly. The cache lives in the build
+   * directory and is invalidated when the prettier-java version, engine,
+   * formatting options, or prettier/editorconfig files in the project
+   * directory (or its parents) change.
+   *
+   * On top of that, after a run that found every file formatted correctly the
+   * path, size and modification time of every input file is remembered. If
+   * none of them changed on the next run, prettier (and node) are skipped
+   * entirely without reading any file.
+   */
+  @Parameter(defaultValue = "false", property = "prettier.incremental")
+  private boolean incremental;
+
+  /**
+   * Run prettier in a long-lived node process that is shared by every module
+   * of the build (with the same configuration), rather than starting a new
+   * node process for each module. The daemon is shut down when Maven exits.
+   */
+  @Parameter(defaultValue = "false", property = "prettier.daemon")
+  private boolean daemon;
+
+  /**
+   * What runs prettier: "node" (the default) or the experimental "graaljs",
+   * which runs prettier inside the Maven JVM without starting node. The
+   * graaljs engine needs org.graalvm.polyglot:polyglot and
+   * org.graalvm.polyglot:js as plugin dependencies, doesn't read prettier
+   * config files, and only avoids downloading node if prettierJavaBundle is set.
+   */
+  @Parameter(defaultValue = NODE_ENGINE, property = "prettier.engine")
+  private String engine;
+
+  /**
+   * Number of prettier processes to run in parallel for each module. Defaults
+   * to the number of CPU cores, divided by the number of modules Maven builds
+   * in parallel. Small modules always use a single process.
+   */
+  @Parameter(property = "prettier.parallelism")
+  private Integer parallelism;
+
+  /**
+   * Only send files to prettier that changed according to the local git
+   * repository, relative to the merge base of changedFilesBaseRef and HEAD.
+   * Uncommitted and untracked files count as changed.
+   */
+  @Parameter(defaultValue = "false", property = "prettier.changedFilesOnly")
+  private boolean changedFilesOnly;
+
+  @Parameter(defaultValue = "HEAD", property = "prettier.changedFilesBaseRef")
+  private String changedFilesBaseRef;
+
+  /**
+   * Record how long prettier took to format each file. The timings are
+   * written to target/prettier-timings.json, and the slowest files are
+   * logged at the end of the run.
+   */
+  @Parameter(defaultValue = "false", property = "prettier.timings")
+  private boolean timings;
+
+  @Parameter(defaultValue = "10", property = "prettier.timingsSlowestFiles")
+  private int timingsSlowestFiles;
+
+  /**
+   * Also write the time spent in each phase (which is written to
+   * target/prettier-phases.json whenever prettier ran) to this file, in the
+   * OpenMetrics text format. Modules can share the file, each execution only
+   * replaces the samples of its own module and goal. Samples are labeled with
+   * the start time of the build, and samples of previous builds are dropped.
+   */
+  @Parameter(property = "prettier.openMetricsFile")
+  private File openMetricsFile;
+
+  @Parameter(defaultValue = "${session}", readonly = true, required = false)
+  private MavenSession session;
+
+  /**
+   * In IDE builds (m2e) this tells which files changed since the last build,
+   * and problems are reported as markers on the files
+   */
+  @Component
+  private BuildContext buildContext;
+
+  // timings and markers of prettier results from parallel shards are recorded one at a time
+  private final Object outputLock = new Object();
+  private final List<Path> rewrittenFiles = Collections.synchronizedList(new ArrayList<>());
+  private FormattingTimings formattingTimings;
+  private BuildMarkers buildMarkers;
+
   protected abstract String getPrettierCommand();
 
-  protected abstract void handlePrettierLogLine(String line);
+  /**
+   * The mode prettier-runner.js runs in, which is the prettier command
+   * unless the mojo handles the formatted contents itself
+   */
+  protected String getRunnerMode() {
+    return getPrettierCommand();
+  }
+
+  /**
+   * Called for every file that prettier processed without an error. When
+   * running prettier in parallel this is called concurrently from each shard,
+   * so anything it collects must be thread-safe. An UncheckedIOException
+   * fails the file like a prettier error would.
+   */
+  protected abstract void handlePrettierResult(PrettierResult result);
+
+  /**
+   * Called once prettier processed every file, before the exit status is handled
+   */
+  protected void handlePrettierFinished() throws MojoExecutionException {}
 
   protected abstract void handlePrettierNonZeroExit(int status)
     throws MojoExecutionException, MojoFailureException;
 
+  /**
+   * Files that prettier reported as not formatted correctly after it finished
+   */
+  protected Collection<Path> getUnformattedFiles() {
+    return Collections.emptyList();
+  }
+
   @Override
   public final void execute() throws MojoExecutionException, MojoFailureException {
     if (skip) {
@@ -36,6 +202,11 @@ public abstract class AbstractPrettierMojo extends PrettierArgs {
       return;
     }
 
+    buildMarkers = new BuildMarkers(buildContext);
+    boolean ideIncremental = buildContext != null && buildContext.isIncremental();
+    PhaseTimings.Phase total = phaseTimings.start(PhaseTimings.TOTAL);
+    // modules without anything to format shouldn't get a build directory just for the timings
+    boolean processedFiles = false;
     try {
       List<String> globs = computeInputGlobs();
       if (globs.isEmpty()) {
@@ -43,65 +214,435 @@ public abstract class AbstractPrettierMojo extends PrettierArgs {
         return;
       }
 
-      List<String> command = new ArrayList<>(basePrettierCommand());
-      command.add("--" + getPrettierCommand());
-      command.addAll(globs);
+      InputFileScanner scanner = new InputFileScanner(project.getBasedir().toPath(), getLog());
+      List<Path> inputFiles;
+      List<Path> files;
+      FormattingCache cache = null;
+      ModuleFingerprint moduleFingerprint = null;
+      String cacheKey = null;
+      PhaseTimings.Phase scan = phaseTimings.start(PhaseTimings.SCAN);
+      try {
+        inputFiles = scanner.scan(globs);
+        files = inputFiles;
 
-      if (getLog().isDebugEnabled()) {
-        getLog().debug("Running prettier with args: " + String.join(" ", command));
-      }
+        // a run on the changed files only says nothing about the other files
+        if (incremental && !changedFilesOnly && !ideIncremental) {
+          cacheKey = computeCacheKey();
+          moduleFingerprint = new ModuleFingerprint(
+              fingerprintFile(),
+              project.getBasedir().toPath(),
+              inputFiles,
+              cacheKey,
+              getLog()
+          );
+          if (moduleFingerprint.isUpToDate()) {
+            getLog().info("All " + files.size() + " files are unchanged since the last clean run");
+            return;
+          }
+        }
 
-      Process process = new ProcessBuilder(command.toArray(new String[0]))
-        .directory(project.getBasedir())
-        .start();
-      try (
-        InputStreamReader stdoutReader = new InputStreamReader(
-          process.getInputStream(),
-          StandardCharsets.UTF_8
-        );
-        BufferedReader stdout = new BufferedReader(stdoutReader);
-        InputStreamReader stderrReader = new InputStreamReader(
-          process.getErrorStream(),
-          StandardCharsets.UTF_8
-        );
-        BufferedReader stderr = new BufferedReader(stderrReader)
-      ) {
-        String line;
-        while ((line = stdout.readLine()) != null) {
-          handlePrettierLogLine(line);
+        if (changedFilesOnly) {
+          files = filterChanged(files);
         }
 
-        boolean hasError = false;
-        while ((line = stderr.readLine()) != null) {
-          if (line.contains("No matching files.") || line.contains("No files matching")) {
-            getLog().info(trimLogLevel(line));
-          } else if (ANSI_COLOR_CODE.matcher(line).replaceAll("").startsWith("[error]")) {
-            getLog().error(trimLogLevel(line));
-            hasError = true;
-          } else {
-            handlePrettierLogLine(line);
+        if (ideIncremental) {
+          files = filterDelta(files);
+        }
+
+        if (incremental) {
+          if (cacheKey == null) {
+            cacheKey = computeCacheKey();
           }
+          cache = FormattingCache.load(cacheFile(), project.getBasedir().toPath(), cacheKey, getLog());
+          files = filterUpToDate(cache, files);
         }
+      } finally {
+        scan.close();
+      }
 
-        int status = process.waitFor();
-        getLog().debug("Prettier exit code: " + status);
-        if (hasError) {
-          prettierExecutionFailed(status);
-        } else if (status != 0) {
-          handlePrettierNonZeroExit(status);
+      if (files.isEmpty()) {
+        if (moduleFingerprint != null) {
+          moduleFingerprint.save();
         }
+        return;
+      }
+
+      if (timings) {
+        formattingTimings = new FormattingTimings(project.getBasedir().toPath());
+      }
+
+      processedFiles = true;
+      files.forEach(buildMarkers::clear);
+
+      int status;
+      PhaseTimings.Phase format = phaseTimings.start(PhaseTimings.FORMAT);
+      try {
+        status = runPrettier(files, scanner);
+      } finally {
+        format.close();
+      }
+      handlePrettierFinished();
+      getUnformattedFiles().forEach(file -> buildMarkers.warning(file, "Incorrectly formatted file"));
+
+      if (formattingTimings != null) {
+        writeTimings();
+      }
+
+      if (cache != null) {
+        cache.markFormatted(files, getUnformattedFiles());
+        cache.save();
+      }
+
+      if (moduleFingerprint != null) {
+        moduleFingerprint.saveAfterRun(
+            status == 0 && getUnformattedFiles().isEmpty(),
+            !"check".equals(getPrettierCommand())
+        );
+      }
+
+      if (status != 0) {
+        handlePrettierNonZeroExit(status);
       }
     } catch (IOException | InterruptedException e) {
       throw new MojoExecutionException("Error trying to run prettier-java", e);
+    } finally {
+      total.close();
+      phaseTimings.logSummary(getLog());
+      if (processedFiles) {
+        writePhaseTimings();
+      }
+    }
+  }
+
+  private int runPrettier(List<Path> files, InputFileScanner scanner)
+    throws MojoExecutionException, MojoFailureException, IOException, InterruptedException {
+    int parallelism = resolveParallelism();
+    PrettierEngine prettierEngine = createEngine(parallelism);
+
+    int shardCount = Math.min(parallelism, (files.size() + MIN_FILES_PER_SHARD - 1) / MIN_FILES_PER_SHARD);
+    List<List<String>> shards = new ArrayList<>();
+    for (List<Path> shard : FileShards.split(files, shardCount)) {
+      List<String> inputs = new ArrayList<>();
+      for (Path file : shard) {
+        inputs.add(scanner.relativize(file));
+      }
+      shards.add(inputs);
+    }
+
+    AtomicBoolean hasError = new AtomicBoolean(false);
+    int status = 0;
+    if (shards.size() == 1) {
+      status = runShard(prettierEngine, shards.get(0), hasError);
+    } else {
+      getLog().info("Running prettier on " + files.size() + " files using " + shards.size() + " processes");
+      status = runShards(prettierEngine, shards, hasError);
+    }
+
+    if (hasError.get()) {
+      prettierExecutionFailed(status);
+    }
+    return status;
+  }
+
+  private int runShards(PrettierEngine prettierEngine, List<List<String>> shards, AtomicBoolean hasError)
+    throws MojoExecutionException, MojoFailureException, IOException, InterruptedException {
+    AtomicInteger threadCount = new AtomicInteger(0);
+    ExecutorService executor = Executors.newFixedThreadPool(
+        shards.size(),
+        runnable -> {
+          Thread thread = new Thread(runnable, "prettier-shard-" + threadCount.incrementAndGet());
+          thread.setDaemon(true);
+          return thread;
+        }
+    );
+
+    try {
+      List<Future<Integer>> futures = new ArrayList<>();
+      for (List<String> shard : shards) {
+        futures.add(executor.submit(() -> runShard(prettierEngine, shard, hasError)));
+      }
+
+      int status = 0;
+      for (Future<Integer> future : futures) {
+        try {
+          status = Math.max(status, future.get());
+        } catch (ExecutionException e) {
+          Throwable cause = e.getCause();
+          if (cause instanceof MojoExecutionException) {
+            throw (MojoExecutionException) cause;
+          } else if (cause instanceof MojoFailureException) {
+            throw (MojoFailureException) cause;
+          } else if (cause instanceof IOException) {
+            throw (IOException) cause;
+          } else {
+            throw new MojoExecutionException("Error trying to run prettier-java", cause);
+          }
+        }
+      }
+      return status;
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private int runShard(PrettierEngine prettierEngine, List<String> inputs, AtomicBoolean hasError)
+    throws IOException, InterruptedException {
+    AtomicBoolean hasChanges = new AtomicBoolean(false);
+    AtomicBoolean hasShardError = new AtomicBoolean(false);
+    prettierEngine.run(
+        getRunnerMode(),
+        project.getBasedir().toPath(),
+        inputs,
+        result -> handleResult(result, hasChanges, hasShardError)
+    );
+
+    return resultStatus(hasChanges, hasShardError, hasError);
+  }
+
+  private PrettierEngine createEngine(int parallelism) throws MojoExecutionException, MojoFailureException {
+    if (NODE_ENGINE.equals(engine)) {
+      return new NodeEngine(prettierRunnerCommand(), daemon, parallelism, phaseTimings, getLog());
+    } else if (GRAALJS_ENGINE.equals(engine)) {
+      List<Path> configFiles = findConfigFiles();
+      if (!configFiles.isEmpty()) {
+        getLog().warn("The graaljs engine doesn't read prettier config files, ignoring: " + configFiles);
+      }
+
+      // node is only needed to npm install prettier-java, not with a bundle
+      Path prettierJavaDirectory = downloadPrettierJava(null);
+      return new GraalJsEngine(
+          prettierJavaDirectory.resolve(PrettierPaths.prettierModulePath()),
+          prettierJavaDirectory.resolve(PrettierPaths.prettierJavaPluginPath(prettierJavaVersion)),
+          embeddedOptions(),
+          phaseTimings,
+          getLog()
+      );
+    } else {
+      throw new MojoExecutionException("Unknown engine " + engine + ", expected " + NODE_ENGINE + " or " + GRAALJS_ENGINE);
+    }
+  }
+
+  private void handleResult(PrettierResult result, AtomicBoolean hasChanges, AtomicBoolean hasShardError) {
+    synchronized (outputLock) {
+      if (formattingTimings != null && result.getStatus() != Status.IGNORED) {
+        formattingTimings.record(result.getFile(), result.getDurationMillis());
+      }
+
+      if (result.getStatus() == Status.ERROR) {
+        reportError(result.getFile(), result.getMessage());
+        hasShardError.set(true);
+        return;
+      }
+    }
+
+    if (result.getStatus() == Status.CHANGED) {
+      hasChanges.set(true);
+    }
+    // reading, diffing and writing files happens on the shard's own thread
+    try {
+      handlePrettierResult(result);
+    } catch (UncheckedIOException e) {
+      synchronized (outputLock) {
+        reportError(result.getFile(), e.getMessage());
+      }
+      hasShardError.set(true);
+    }
+  }
+
+  private void reportError(String file, String message) {
+    getLog().error(file + ": " + message);
+    buildMarkers.error(resolveFile(file), message);
+  }
+
+  // same exit codes as the prettier CLI, changes only count if they weren't written
+  private int resultStatus(AtomicBoolean hasChanges, AtomicBoolean hasShardError, AtomicBoolean hasError) {
+    if (hasShardError.get()) {
+      hasError.set(true);
+      return 2;
+    }
+    return hasChanges.get() && !getUnformattedFiles().isEmpty() ? 1 : 0;
+  }
+
+  private void writePhaseTimings() {
+    Map<String, String> labels = new LinkedHashMap<>();
+    labels.put("module", project.getGroupId() + ":" + project.getArtifactId());
+    labels.put("goal", getPrettierCommand());
+
+    try {
+      phaseTimings.writeJson(Paths.get(project.getBuild().getDirectory()).resolve("prettier-phases.json"), labels);
+      if (openMetricsFile != null) {
+        phaseTimings.writeOpenMetrics(openMetricsFile.toPath(), buildId(), labels);
+      }
+    } catch (IOException e) {
+      getLog().warn("Unable to write phase timings: " + e.getMessage());
+    }
+  }
+
+  /**
+   * Identifies the Maven invocation, every module of a build shares it
+   */
+  private String buildId() {
+    return session == null ? "" : String.valueOf(session.getRequest().getStartTime().getTime());
+  }
+
+  private void writeTimings() throws IOException {
+    Path timingsFile = Paths.get(project.getBuild().getDirectory()).resolve("prettier-timings.json");
+    formattingTimings.write(timingsFile);
+    formattingTimings.logSlowest(getLog(), timingsSlowestFiles);
+    getLog().debug("Wrote formatting timings to " + timingsFile);
+  }
+
+  private int resolveParallelism() {
+    if (parallelism != null) {
+      return Math.max(1, parallelism);
+    }
+
+    // leave room for the other modules when Maven builds modules in parallel
+    int degreeOfConcurrency = session == null ? 1 : Math.max(1, session.getRequest().getDegreeOfConcurrency());
+    return Math.max(1, Runtime.getRuntime().availableProcessors() / degreeOfConcurrency);
+  }
+
+  private List<Path> filterChanged(List<Path> files) throws IOException {
+    Path baseDirectory = project.getBasedir().toPath().toAbsolutePath().normalize();
+    Set<Path> changedFiles;
+    try {
+      changedFiles = GitChangedFiles.find(baseDirectory, changedFilesBaseRef, buildId(), getLog());
+    } catch (IOException e) {
+      getLog().warn("Unable to determine changed files, running prettier on all files: " + e.getMessage());
+      return files;
+    }
+
+    // git reports real paths, which differ from the project paths if they go through a symlink
+    Path realBaseDirectory = baseDirectory.toRealPath();
+    Set<Path> changedModuleFiles = new HashSet<>();
+    for (Path changedFile : changedFiles) {
+      if (changedFile.startsWith(realBaseDirectory)) {
+        changedModuleFiles.add(baseDirectory.resolve(realBaseDirectory.relativize(changedFile)));
+      }
+    }
+
+    List<Path> result = new ArrayList<>();
+    for (Path file : files) {
+      if (changedModuleFiles.contains(file)) {
+        result.add(file);
+      }
+    }
+
+    getLog().info(
+        "Found " + result.size() + " of " + files.size() + " files changed since " + changedFilesBaseRef
+    );
+    return result;
+  }
+
+  private List<Path> filterDelta(List<Path> files) {
+    // every file might format differently after a configuration change
+    for (Path configFile : findConfigFiles()) {
+      if (buildContext.hasDelta(configFile.toFile())) {
+        getLog().info("Prettier configuration changed, running prettier on all files");
+        return files;
+      }
+    }
+
+    List<Path> result = new ArrayList<>();
+    for (Path file : files) {
+      if (buildContext.hasDelta(file.toFile())) {
+        result.add(file);
+      }
+    }
+
+    getLog().debug("Found " + result.size() + " of " + files.size() + " files changed since the last IDE build");
+    return result;
+  }
+
+  private List<Path> filterUpToDate(FormattingCache cache, List<Path> files) throws IOException {
+    List<Path> staleFiles = new ArrayList<>();
+    for (Path file : files) {
+      if (!cache.isUpToDate(file)) {
+        staleFiles.add(file);
+      }
+    }
+
+    if (staleFiles.isEmpty()) {
+      getLog().info("All " + files.size() + " files are up to date");
+    } else {
+      getLog().info(
+          "Skipping " + (files.size() - staleFiles.size()) + " files that are up to date, " +
+          "running prettier on " + staleFiles.size() + " files"
+      );
+    }
+
+    return staleFiles;
+  }
+
+  /**
+   * Whether prettier runs in node, which resolves config files like the prettier CLI does
+   */
+  protected boolean isNodeEngine() {
+    return NODE_ENGINE.equals(engine);
+  }
+
+  /**
+   * Writes the formatted contents of a file prettier changed, unless the file
+   * already has them, so that unchanged files are never touched and changed
+   * files are replaced atomically. Returns whether the file was rewritten.
+   */
+  protected boolean writeFormatted(PrettierResult result) {
+    Path file = resolveFile(result.getFile());
+    try {
+      if (!FileUtils.writeIfChanged(file, result.getFormatted().getBytes(StandardCharsets.UTF_8))) {
+        return false;
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException("Error writing formatted file: " + e.getMessage(), e);
+    }
+
+    rewrittenFiles.add(file);
+    refresh(file);
+    getLog().info("Reformatted file: " + result.getFile() + " " + result.getDurationMillis() + "ms");
+    return true;
+  }
+
+  /**
+   * The absolute paths of the files that were rewritten, files that were
+   * already formatted correctly are left untouched
+   */
+  public List<Path> getRewrittenFiles() {
+    synchronized (rewrittenFiles) {
+      return Collections.unmodifiableList(new ArrayList<>(rewrittenFiles));
     }
   }
 
+  /**
+   * Publishes the rewritten files under WriteMojo.REWRITTEN_FILES_CONTEXT_KEY,
+   * once prettier processed every file
+   */
+  protected void publishRewrittenFiles() {
+    project.setContextValue(WriteMojo.REWRITTEN_FILES_CONTEXT_KEY, getRewrittenFiles());
+  }
+
+  /**
+   * Tells the IDE that a file was rewritten, so that it picks up the new contents
+   */
+  protected void refresh(Path file) {
+    if (buildContext != null) {
+      buildContext.refresh(file.toFile());
+    }
+  }
+
+  protected Path resolveFile(String relativePath) {
+    return project.getBasedir().toPath().toAbsolutePath().resolve(relativePath);
+  }
+
   protected static MojoExecutionException prettierExecutionFailed(int status) throws MojoExecutionException {
     throw new MojoExecutionException(
         "Error trying to run prettier-java: " + status
     );
   }
 
+  /**
+   * Command for running the prettier CLI, the plugin itself always uses
+   * prettier-runner.js but custom diff generators might rely on this
+   */
   protected List<String> basePrettierCommand() throws MojoExecutionException, MojoFailureException {
     NodeInstall nodeInstall = resolveNodeInstall();
 
@@ -115,6 +656,36 @@ public abstract class AbstractPrettierMojo extends PrettierArgs {
     command.add(toString(prettierBin));
     command.add("--plugin=" + toString(prettierJavaPlugin));
     command.add("--color");
+    command.addAll(prettierOptions());
+
+    return command;
+  }
+
+  /**
+   * Command for running prettier-runner.js, without the mode
+   */
+  protected List<String> prettierRunnerCommand() throws MojoExecutionException, MojoFailureException {
+    NodeInstall nodeInstall = resolveNodeInstall();
+
+    Path prettierJavaDirectory = downloadPrettierJava(nodeInstall);
+
+    Path prettier = prettierJavaDirectory.resolve(PrettierPaths.prettierModulePath());
+    Path prettierJavaPlugin = prettierJavaDirectory.resolve(PrettierPaths.prettierJavaPluginPath(prettierJavaVersion));
+
+    List<String> command = new ArrayList<>();
+    command.add(nodeInstall.getNodePath());
+    command.add(toString(installPrettierRunner()));
+    command.add("--prettier");
+    command.add(toString(prettier));
+    command.add("--plugin=" + toString(prettierJavaPlugin));
+    command.addAll(compileCacheArguments(prettierJavaDirectory));
+    command.addAll(prettierOptions());
+
+    return command;
+  }
+
+  private List<String> prettierOptions() {
+    List<String> command = new ArrayList<>();
     if (printWidth != null) {
       command.add("--print-width");
       command.add(printWidth);
@@ -141,19 +712,77 @@ public abstract class AbstractPrettierMojo extends PrettierArgs {
     return command;
   }
 
-  protected static String trimLogLevel(String line) {
-    int closeBracketIndex = line.indexOf(']');
-    if (closeBracketIndex < 0) {
-      return line;
+  /**
+   * The same options as prettierOptions, as prettier's options object
+   */
+  private Map<String, Object> embeddedOptions() throws MojoExecutionException {
+    Map<String, Object> options = new LinkedHashMap<>();
+    try {
+      if (printWidth != null) {
+        options.put("printWidth", Integer.parseInt(printWidth));
+      }
+      if (tabWidth != null) {
+        options.put("tabWidth", Integer.parseInt(tabWidth));
+      }
+    } catch (NumberFormatException e) {
+      throw new MojoExecutionException("Invalid printWidth or tabWidth", e);
+    }
+    if (useTabs != null) {
+      options.put("useTabs", useTabs);
+    }
+    if (endOfLine != null) {
+      options.put("endOfLine", endOfLine);
     }
 
-    int startFileIndex = closeBracketIndex + "] ".length();
-    if (startFileIndex >= line.length()) {
-      return line;
+    return options;
+  }
+
+  private Path cacheFile() {
+    return Paths.get(project.getBuild().getDirectory()).resolve("prettier-java.cache");
+  }
+
+  private Path fingerprintFile() {
+    return Paths.get(project.getBuild().getDirectory()).resolve("prettier-java.fingerprint");
+  }
+
+  private String computeCacheKey() throws MojoExecutionException {
+    try {
+      return FormattingCache.computeKey(
+          getPluginVersion(),
+          prettierJavaVersion,
+          disableGenericsLinebreaks,
+          engine,
+          prettierOptions(),
+          findConfigFiles()
+      );
+    } catch (IOException e) {
+      throw new MojoExecutionException("Error reading prettier configuration", e);
+    }
+  }
+
+  private List<Path> findConfigFiles() {
+    List<Path> configFiles = new ArrayList<>();
+    Path directory = project.getBasedir().toPath().toAbsolutePath();
+    while (directory != null) {
+      if (!ignoreConfigFile) {
+        for (String configFileName : CONFIG_FILE_NAMES) {
+          Path configFile = directory.resolve(configFileName);
+          if (Files.isRegularFile(configFile)) {
+            configFiles.add(configFile);
+          }
+        }
+      }
+      if (!ignoreEditorConfig) {
+        Path editorConfig = directory.resolve(EDITOR_CONFIG_FILE_NAME);
+        if (Files.isRegularFile(editorConfig)) {
+          configFiles.add(editorConfig);
+        }
+      }
+
+      directory = directory.getParent();
     }
 
-    // converts something like '[warn] src/main/java/Test.java' -> 'src/main/java/Test.java'
-    return line.substring(startFileIndex);
+    return configFiles;
   }
 
   // Convert Windows Path to Unix style
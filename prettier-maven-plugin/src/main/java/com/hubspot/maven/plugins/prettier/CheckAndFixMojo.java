@@ -0,0 +1,155 @@
+package com.hubspot.maven.plugins.prettier;
+
+import com.hubspot.maven.plugins.prettier.diff.UnifiedDiff;
+import com.hubspot.maven.plugins.prettier.internal.PrettierResult;
+import com.hubspot.maven.plugins.prettier.internal.PrettierResult.Status;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+
+/**
+ * Formats every file once, in memory, and from that single pass reports the
+ * incorrectly formatted files, writes their diff to target/prettier-java.diff
+ * and either rewrites them or fails the build. This replaces running check
+ * with generateDiff (which formats incorrectly formatted files twice) and
+ * then write.
+ */
+@Mojo(name = "check-and-fix", threadSafe = true)
+public class CheckAndFixMojo extends AbstractPrettierMojo {
+  private static final String MESSAGE =
+    "Code formatting issues found, please run prettier-java";
+
+  /**
+   * Rewrite incorrectly formatted files rather than failing the build
+   */
+  @Parameter(defaultValue = "false", property = "prettier.fix")
+  private boolean fix;
+
+  /**
+   * Fail the build if there are incorrectly formatted files and fix is disabled
+   */
+  @Parameter(defaultValue = "true")
+  private boolean fail;
+
+  @Parameter(defaultValue = "true")
+  private boolean generateDiff;
+
+  private final List<Path> incorrectlyFormattedFiles = Collections.synchronizedList(new ArrayList<>());
+  // results arrive in a different order every run when running in parallel
+  private final Map<String, String> diffs = Collections.synchronizedMap(new TreeMap<>());
+
+  @Override
+  protected String getPrettierCommand() {
+    return "check-and-fix";
+  }
+
+  @Override
+  protected String getRunnerMode() {
+    return "format";
+  }
+
+  @Override
+  protected void handlePrettierResult(PrettierResult result) {
+    if (result.getStatus() != Status.CHANGED || result.getFormatted() == null) {
+      return;
+    }
+
+    if (generateDiff) {
+      putDiff(result);
+    }
+
+    if (fix) {
+      writeFormatted(result);
+      return;
+    }
+
+    incorrectlyFormattedFiles.add(resolveFile(result.getFile()));
+    String message = "Incorrectly formatted file: " + result.getFile();
+    if (fail) {
+      getLog().error(message);
+    } else {
+      getLog().warn(message);
+    }
+  }
+
+  @Override
+  protected Collection<Path> getUnformattedFiles() {
+    return incorrectlyFormattedFiles;
+  }
+
+  @Override
+  protected void handlePrettierFinished() throws MojoExecutionException {
+    if (fix) {
+      publishRewrittenFiles();
+    }
+    if (generateDiff) {
+      writeDiffFile();
+    }
+  }
+
+  @Override
+  protected void handlePrettierNonZeroExit(int status) throws MojoFailureException {
+    if (incorrectlyFormattedFiles.isEmpty()) {
+      return;
+    }
+
+    if (fail) {
+      getLog().error(MESSAGE);
+      throw new MojoFailureException(MESSAGE);
+    } else {
+      getLog().warn(MESSAGE);
+    }
+  }
+
+  private void putDiff(PrettierResult result) {
+    try {
+      String original = new String(Files.readAllBytes(resolveFile(result.getFile())), StandardCharsets.UTF_8);
+      StringWriter diff = new StringWriter();
+      if (UnifiedDiff.write(diff, result.getFile(), original, result.getFormatted())) {
+        diffs.put(result.getFile(), diff.toString());
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException("Error reading file to diff: " + e.getMessage(), e);
+    }
+  }
+
+  private void writeDiffFile() throws MojoExecutionException {
+    Path diffFile = Paths
+        .get(project.getBuild().getDirectory())
+        .resolve("prettier-java.diff")
+        .toAbsolutePath();
+
+    try {
+      Files.deleteIfExists(diffFile);
+      if (diffs.isEmpty()) {
+        return;
+      }
+
+      Files.createDirectories(diffFile.getParent());
+      try (BufferedWriter writer = Files.newBufferedWriter(diffFile, StandardCharsets.UTF_8)) {
+        for (String diff : diffs.values()) {
+          writer.write(diff);
+        }
+      }
+    } catch (IOException e) {
+      throw new MojoExecutionException("Error writing diff file " + diffFile, e);
+    }
+
+    getLog().info("Diff file generated at " + project.getBasedir().toPath().toAbsolutePath().relativize(diffFile));
+  }
+}
@@ -2,9 +2,13 @@ package com.hubspot.maven.plugins.prettier;
 
 import com.hubspot.maven.plugins.prettier.diff.DiffGenerator;
 import com.hubspot.maven.plugins.prettier.diff.GenerateDiffArgs;
-import java.nio.file.Files;
+import com.hubspot.maven.plugins.prettier.internal.PhaseTimings;
+import com.hubspot.maven.plugins.prettier.internal.PrettierResult;
+import com.hubspot.maven.plugins.prettier.internal.PrettierResult.Status;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
@@ -34,28 +38,30 @@ public class CheckMojo extends AbstractPrettierMojo {
     return "check";
   }
 
-  private final List<Path> incorrectlyFormattedFiles = new ArrayList<>();
+  private final List<Path> incorrectlyFormattedFiles = Collections.synchronizedList(new ArrayList<>());
 
   @Override
-  protected void handlePrettierLogLine(String line) {
-    line = trimLogLevel(line);
-
-    Path maybeFile = resolveFile(line);
-    if (Files.isRegularFile(maybeFile)) {
-      incorrectlyFormattedFiles.add(maybeFile);
-      String message = "Incorrectly formatted file: " + line;
-      if (fail) {
-        getLog().error(message);
-      } else {
-        getLog().warn(message);
-      }
+  protected void handlePrettierResult(PrettierResult result) {
+    if (result.getStatus() == Status.CHANGED) {
+      handleIncorrectlyFormattedFile(result.getFile(), resolveFile(result.getFile()));
+    }
+  }
+
+  private void handleIncorrectlyFormattedFile(String relativePath, Path file) {
+    incorrectlyFormattedFiles.add(file);
+    String message = "Incorrectly formatted file: " + relativePath;
+    if (fail) {
+      getLog().error(message);
     } else {
-       if (getLog().isDebugEnabled()) {
-        getLog().debug("Prettier output >" + line);
-      }
+      getLog().warn(message);
     }
   }
 
+  @Override
+  protected Collection<Path> getUnformattedFiles() {
+    return incorrectlyFormattedFiles;
+  }
+
   @Override
   protected void handlePrettierNonZeroExit(int status)
     throws MojoFailureException, MojoExecutionException {
@@ -76,15 +82,28 @@ public class CheckMojo extends AbstractPrettierMojo {
   }
 
   private void generateDiff() throws MojoExecutionException, MojoFailureException {
+    if (!isNodeEngine()) {
+      // the diff generator formats with node, which would resolve config files the check ignored
+      throw new MojoExecutionException(
+          "generateDiff needs the node engine, use the check-and-fix goal to get a diff from the graaljs engine"
+      );
+    }
+
     DiffGenerator diffGenerator = instantiateDiffGenerator();
     GenerateDiffArgs args = new GenerateDiffArgs(
         incorrectlyFormattedFiles,
         basePrettierCommand(),
+        prettierRunnerCommand(),
         project,
         getLog()
     );
 
-    diffGenerator.generateDiffs(args);
+    PhaseTimings.Phase diff = phaseTimings.start(PhaseTimings.DIFF);
+    try {
+      diffGenerator.generateDiffs(args);
+    } finally {
+      diff.close();
+    }
   }
 
   private DiffGenerator instantiateDiffGenerator() throws MojoExecutionException {
@@ -98,13 +117,4 @@ public class CheckMojo extends AbstractPrettierMojo {
       throw new MojoExecutionException("Must implement DiffGenerator interface", e);
     }
   }
-
-  private Path resolveFile(String relativePath) {
-    Path baseDir = project
-        .getBasedir()
-        .toPath()
-        .toAbsolutePath();
-
-    return baseDir.resolve(relativePath);
-  }
 }
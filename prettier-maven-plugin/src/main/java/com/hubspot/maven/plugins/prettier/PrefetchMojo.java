@@ -0,0 +1,290 @@
+package com.hubspot.maven.plugins.prettier;
+
+import com.hubspot.maven.plugins.prettier.internal.NodeInstall;
+import com.hubspot.maven.plugins.prettier.internal.PrettierPaths;
+import com.hubspot.maven.plugins.prettier.internal.PrettierResult;
+import com.hubspot.maven.plugins.prettier.internal.PrettierResult.Status;
+import com.hubspot.maven.plugins.prettier.internal.PrettierRunnerProcess;
+import com.hubspot.maven.plugins.prettier.internal.StoreArchive;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+
+/**
+ * Installs several versions of node and prettier-java into the install store
+ * at once, for example when baking CI images, so that later builds don't
+ * need the network. Everything is downloaded and installed in parallel, and
+ * every prettier-java version is verified by formatting a file with it.
+ */
+@Mojo(name = "prefetch", requiresProject = false, threadSafe = true)
+public class PrefetchMojo extends PrettierArgs {
+  private static final int MAX_THREADS = 8;
+
+  /**
+   * Node versions to install, defaults to nodeVersion
+   */
+  @Parameter(property = "prettier.prefetch.nodeVersions")
+  private List<String> nodeVersions;
+
+  /**
+   * prettier-java versions to install, defaults to prettierJavaVersion. With
+   * disableGenericsLinebreaks, the patched versions are installed as well.
+   */
+  @Parameter(property = "prettier.prefetch.prettierJavaVersions")
+  private List<String> prettierJavaVersions;
+
+  /**
+   * If set, everything that was installed is also packaged into this tar.gz
+   * archive, which can be unpacked into the local Maven repository of an image
+   */
+  @Parameter(property = "prettier.prefetch.archive")
+  private File archive;
+
+  @Override
+  public void execute() throws MojoExecutionException, MojoFailureException {
+    Set<String> nodeVersions = versions(this.nodeVersions, getNodeVersion());
+    Set<String> prettierJavaVersions = versions(this.prettierJavaVersions, prettierJavaVersion);
+    if (nodeVersions.size() > 1 && hasCustomNodeDownloadUrl()) {
+      throw new MojoExecutionException("nodeDownloadUrl can't be used to prefetch more than one node version");
+    }
+
+    getLog().info(
+        "Prefetching node " + String.join(", ", nodeVersions) +
+        " and prettier-java " + String.join(", ", prettierJavaVersions)
+    );
+
+    AtomicInteger threadCount = new AtomicInteger(0);
+    ExecutorService executor = Executors.newFixedThreadPool(
+        Math.min(MAX_THREADS, nodeVersions.size() + prettierJavaVersions.size() + 1),
+        runnable -> {
+          Thread thread = new Thread(runnable, "prettier-prefetch-" + threadCount.incrementAndGet());
+          thread.setDaemon(true);
+          return thread;
+        }
+    );
+
+    Set<Path> installs = new LinkedHashSet<>();
+    try {
+      Map<String, CompletableFuture<NodeInstall>> nodeInstalls = new LinkedHashMap<>();
+      for (String nodeVersion : nodeVersions) {
+        nodeInstalls.put(nodeVersion, async(executor, () -> verifyNode(installNode(nodeVersion), nodeVersion)));
+      }
+
+      // npm and the verification run with the node that builds use
+      CompletableFuture<NodeInstall> buildNode = nodeInstalls.containsKey(getNodeVersion()) && !hasCustomNode()
+          ? nodeInstalls.get(getNodeVersion())
+          : async(executor, this::resolveNodeInstall);
+
+      Map<String, CompletableFuture<List<Path>>> prettierJavaInstalls = new LinkedHashMap<>();
+      for (String version : prettierJavaVersions) {
+        prettierJavaInstalls.put(
+            version,
+            buildNode.thenApplyAsync(
+                nodeInstall -> {
+                  try {
+                    return installPrettierJava(nodeInstall, version);
+                  } catch (MojoExecutionException | MojoFailureException e) {
+                    throw new CompletionException(e);
+                  }
+                },
+                executor
+            )
+        );
+      }
+
+      for (CompletableFuture<NodeInstall> nodeInstall : nodeInstalls.values()) {
+        installs.add(storeEntry(Paths.get(await(nodeInstall).getNodePath())));
+      }
+      if (!hasCustomNode()) {
+        installs.add(storeEntry(Paths.get(await(buildNode).getNodePath())));
+      }
+      for (CompletableFuture<List<Path>> prettierJavaInstall : prettierJavaInstalls.values()) {
+        for (Path directory : await(prettierJavaInstall)) {
+          installs.add(storeEntry(directory));
+        }
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    getLog().info("Prefetched " + installs.size() + " installs into " + installStoreDirectory());
+
+    if (archive != null) {
+      try {
+        long entryCount = StoreArchive.write(archive.toPath(), localRepositoryRoot(), installs);
+        getLog().info(
+            "Wrote " + entryCount + " entries to " + archive + ", unpack it into the local Maven repository" +
+            " (tar xzf " + archive.getName() + " -C ~/.m2/repository)"
+        );
+      } catch (IOException e) {
+        throw new MojoExecutionException("Error writing prefetch archive " + archive, e);
+      }
+    }
+  }
+
+  private List<Path> installPrettierJava(NodeInstall nodeInstall, String version)
+    throws MojoExecutionException, MojoFailureException {
+    List<Path> directories = new ArrayList<>();
+    directories.add(verifyPrettierJava(nodeInstall, installPrettierJava(nodeInstall, version, false), version));
+    if (disableGenericsLinebreaks) {
+      directories.add(verifyPrettierJava(nodeInstall, installPrettierJava(nodeInstall, version, true), version));
+    }
+    return directories;
+  }
+
+  private NodeInstall verifyNode(NodeInstall nodeInstall, String version) throws MojoExecutionException {
+    try {
+      Process process = new ProcessBuilder(nodeInstall.getNodePath(), "--version").redirectErrorStream(true).start();
+      String output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8).trim();
+      if (process.waitFor() != 0 || !output.equals("v" + version)) {
+        throw new MojoExecutionException("Node " + version + " at " + nodeInstall.getNodePath() + " is broken: " + output);
+      }
+    } catch (IOException e) {
+      throw new MojoExecutionException("Error running node " + version, e);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new MojoExecutionException("Interrupted while running node " + version, e);
+    }
+
+    getLog().info("Installed node " + version);
+    return nodeInstall;
+  }
+
+  /**
+   * Formats a small file, which loads both prettier and the plugin
+   */
+  private Path verifyPrettierJava(NodeInstall nodeInstall, Path prettierJavaDirectory, String version)
+    throws MojoExecutionException {
+    List<String> command = new ArrayList<>();
+    command.add(nodeInstall.getNodePath());
+    command.add(installPrettierRunner().toString());
+    command.add("--prettier");
+    command.add(prettierJavaDirectory.resolve(PrettierPaths.prettierModulePath()).toString());
+    command.add("--plugin=" + prettierJavaDirectory.resolve(PrettierPaths.prettierJavaPluginPath(version)));
+    command.add("--no-config");
+    // formatting a file once fills the compile cache for later builds
+    command.addAll(compileCacheArguments(prettierJavaDirectory));
+
+    Path tmpDir = null;
+    try {
+      tmpDir = Files.createTempDirectory("prettier-prefetch-");
+      Files.write(tmpDir.resolve("Prefetch.java"), "class Prefetch {}\n".getBytes(StandardCharsets.UTF_8));
+
+      List<PrettierResult> results = new ArrayList<>();
+      PrettierRunnerProcess.run(
+          command,
+          "check",
+          tmpDir,
+          Collections.singletonList("Prefetch.java"),
+          results::add,
+          phaseTimings,
+          getLog()
+      );
+
+      if (results.size() != 1 || results.get(0).getStatus() == Status.ERROR) {
+        String message = results.isEmpty() ? "no result" : results.get(0).getMessage();
+        throw new MojoExecutionException("prettier-java " + version + " at " + prettierJavaDirectory + " is broken: " + message);
+      }
+    } catch (IOException e) {
+      throw new MojoExecutionException("Error verifying prettier-java " + version, e);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new MojoExecutionException("Interrupted while verifying prettier-java " + version, e);
+    } finally {
+      if (tmpDir != null) {
+        try {
+          Files.deleteIfExists(tmpDir.resolve("Prefetch.java"));
+          Files.deleteIfExists(tmpDir);
+        } catch (IOException e) {
+          getLog().debug("Unable to delete " + tmpDir, e);
+        }
+      }
+    }
+
+    getLog().info("Installed prettier-java " + version + " at " + prettierJavaDirectory.getFileName());
+    return prettierJavaDirectory;
+  }
+
+  /**
+   * The top level directory of the install store entry containing this path
+   */
+  private Path storeEntry(Path path) throws MojoExecutionException {
+    Path storeDirectory = installStoreDirectory().toAbsolutePath().normalize();
+    Path entry = path.toAbsolutePath().normalize();
+    while (entry.getParent() != null && !storeDirectory.equals(entry.getParent())) {
+      entry = entry.getParent();
+    }
+
+    if (entry.getParent() == null) {
+      throw new MojoExecutionException(path + " is not in the install store " + storeDirectory);
+    }
+    return entry;
+  }
+
+  private static Set<String> versions(List<String> versions, String defaultVersion) {
+    Set<String> result = new LinkedHashSet<>();
+    if (versions != null) {
+      for (String version : versions) {
+        if (!version.trim().isEmpty()) {
+          result.add(version.trim());
+        }
+      }
+    }
+
+    if (result.isEmpty()) {
+      result.add(defaultVersion);
+    }
+    return result;
+  }
+
+  private interface Install<T> {
+    T get() throws MojoExecutionException, MojoFailureException;
+  }
+
+  private static <T> CompletableFuture<T> async(ExecutorService executor, Install<T> install) {
+    return CompletableFuture.supplyAsync(
+        () -> {
+          try {
+            return install.get();
+          } catch (MojoExecutionException | MojoFailureException e) {
+            throw new CompletionException(e);
+          }
+        },
+        executor
+    );
+  }
+
+  private static <T> T await(CompletableFuture<T> future) throws MojoExecutionException, MojoFailureException {
+    try {
+      return future.join();
+    } catch (CompletionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof MojoExecutionException) {
+        throw (MojoExecutionException) cause;
+      } else if (cause instanceof MojoFailureException) {
+        throw (MojoFailureException) cause;
+      } else {
+        throw new MojoExecutionException("Error prefetching prettier-java", cause);
+      }
+    }
+  }
+}
@@ -1,18 +1,29 @@
 package com.hubspot.maven.plugins.prettier;
 
+import com.hubspot.maven.plugins.prettier.internal.DownloadSettings;
+import com.hubspot.maven.plugins.prettier.internal.HashBuilder;
+import com.hubspot.maven.plugins.prettier.internal.HttpDownloader;
+import com.hubspot.maven.plugins.prettier.internal.InstallStore;
 import com.hubspot.maven.plugins.prettier.internal.NodeDownloader;
 import com.hubspot.maven.plugins.prettier.internal.NodeInstall;
 import com.hubspot.maven.plugins.prettier.internal.OperatingSystemFamily;
+import com.hubspot.maven.plugins.prettier.internal.PhaseTimings;
 import com.hubspot.maven.plugins.prettier.internal.PrettierDownloader;
+import com.hubspot.maven.plugins.prettier.internal.PrettierJavaBundle;
 import com.hubspot.maven.plugins.prettier.internal.PrettierPatcher;
+import com.hubspot.maven.plugins.prettier.internal.PrettierRunnerScript;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import javax.annotation.Nullable;
@@ -23,14 +34,11 @@ import org.apache.maven.plugin.descriptor.PluginDescriptor;
 import org.apache.maven.plugins.annotations.Component;
 import org.apache.maven.plugins.annotations.Parameter;
 import org.apache.maven.project.MavenProject;
+import org.eclipse.aether.RepositorySystem;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.repository.RemoteRepository;
 
 public abstract class PrettierArgs extends AbstractMojo {
-  /**
-   * Prevent multi-threaded builds from reading/writing partial files
-   */
-  private static final Object NODE_DOWNLOAD_LOCK = new Object();
-  private static final Object PRETTIER_JAVA_DOWNLOAD_LOCK = new Object();
-
   @Parameter(defaultValue = "${project}", readonly = true, required = false)
   protected MavenProject project;
 
@@ -43,6 +51,29 @@ public abstract class PrettierArgs extends AbstractMojo {
   @Parameter(defaultValue = "", property = "prettier.nodeDownloadUrl")
   private String nodeDownloadUrl;
 
+  /**
+   * Base URLs laid out like https://nodejs.org/dist/ to download node from.
+   * Ranges of the archive are fetched from the fastest mirror, and failed
+   * ranges are retried against the others.
+   */
+  @Parameter(property = "prettier.nodeDownloadMirrors")
+  private List<String> nodeDownloadMirrors;
+
+  @Parameter(defaultValue = "4", property = "prettier.downloadThreads")
+  private int downloadThreads;
+
+  @Parameter(defaultValue = "10", property = "prettier.downloadConnectTimeoutSeconds")
+  private int downloadConnectTimeoutSeconds;
+
+  @Parameter(defaultValue = "30", property = "prettier.downloadReadTimeoutSeconds")
+  private int downloadReadTimeoutSeconds;
+
+  @Parameter(defaultValue = "8", property = "prettier.downloadMaxIdleConnections")
+  private int downloadMaxIdleConnections;
+
+  @Parameter(defaultValue = "3", property = "prettier.downloadRetries")
+  private int downloadRetries;
+
   @Parameter(defaultValue = "", property = "prettier.nodePath")
   private String nodePath;
 
@@ -56,6 +87,16 @@ public abstract class PrettierArgs extends AbstractMojo {
   @Parameter(defaultValue = "false")
   private boolean extractPrettierToTargetDirectory;
 
+  /**
+   * Maven coordinates (groupId:artifactId:extension:classifier[:version]) of
+   * a zip or tar.gz archive containing node_modules with prettier and
+   * prettier-plugin-java. If set, prettier-java is installed from this
+   * artifact instead of running npm install. Defaults to the
+   * prettierJavaVersion if the version is left out.
+   */
+  @Parameter(property = "prettier.prettierJavaBundle")
+  private String prettierJavaBundle;
+
   @Nullable
   @Parameter(property = "prettier.printWidth")
   protected String printWidth;
@@ -81,13 +122,47 @@ public abstract class PrettierArgs extends AbstractMojo {
   @Parameter(property = "prettier.endOfLine")
   protected String endOfLine;
 
+  /**
+   * Node and prettier-java installs are shared by all versions of the plugin,
+   * least recently used installs are deleted once they take up more space
+   */
+  @Parameter(defaultValue = "2048", property = "prettier.installStoreMaxSizeMb")
+  private long installStoreMaxSizeMb;
+
+  /**
+   * Cache the code V8 compiles for prettier and prettier-java next to the
+   * prettier-java install, so that node starts faster after the first run
+   */
+  @Parameter(defaultValue = "true", property = "prettier.compileCache")
+  private boolean compileCache;
+
   @Parameter(property = "prettier.inputGlobs")
   protected List<String> inputGlobs;
 
   @Component
   private PluginDescriptor pluginDescriptor;
 
+  @Component
+  private RepositorySystem repositorySystem;
+
+  @Parameter(defaultValue = "${repositorySystemSession}", readonly = true, required = false)
+  private RepositorySystemSession repositorySystemSession;
+
+  @Parameter(defaultValue = "${project.remotePluginRepositories}", readonly = true, required = false)
+  private List<RemoteRepository> remotePluginRepositories;
+
+  protected final PhaseTimings phaseTimings = new PhaseTimings();
+
   protected NodeInstall resolveNodeInstall() throws MojoExecutionException {
+    PhaseTimings.Phase resolveNode = phaseTimings.start(PhaseTimings.RESOLVE_NODE);
+    try {
+      return doResolveNodeInstall();
+    } finally {
+      resolveNode.close();
+    }
+  }
+
+  private NodeInstall doResolveNodeInstall() throws MojoExecutionException {
     Optional<String> maybeNode = Optional.empty();
     Optional<String> maybeNpm = Optional.empty();
 
@@ -120,52 +195,200 @@ public abstract class PrettierArgs extends AbstractMojo {
     }
   }
 
-  protected Path downloadPrettierJava(NodeInstall nodeInstall) throws MojoExecutionException, MojoFailureException {
-    synchronized (PRETTIER_JAVA_DOWNLOAD_LOCK) {
-      Path installDirectory = localRepositoryDirectory();
+  /**
+   * Node is resolved on demand if nodeInstall is null, it's only needed when
+   * prettier-java isn't installed from a bundle
+   */
+  protected Path downloadPrettierJava(@Nullable NodeInstall nodeInstall) throws MojoExecutionException, MojoFailureException {
+    PhaseTimings.Phase installPrettierJava = phaseTimings.start(PhaseTimings.INSTALL_PRETTIER_JAVA);
+    try {
+      return doDownloadPrettierJava(nodeInstall);
+    } finally {
+      installPrettierJava.close();
+    }
+  }
+
+  private Path doDownloadPrettierJava(@Nullable NodeInstall nodeInstall) throws MojoExecutionException, MojoFailureException {
+    return installPrettierJava(nodeInstall, prettierJavaVersion, disableGenericsLinebreaks);
+  }
+
+  /**
+   * Installs the given version of prettier-java into the install store. The
+   * install store locks each entry while installing it, across threads and
+   * processes, so this is safe to call concurrently. Node is resolved on
+   * demand if nodeInstall is null.
+   */
+  protected Path installPrettierJava(@Nullable NodeInstall nodeInstall, String prettierJavaVersion, boolean disableGenericsLinebreaks)
+    throws MojoExecutionException, MojoFailureException {
+    InstallStore installStore = installStore();
+
+    final Path prettierJava;
+    if (prettierJavaBundle != null && !prettierJavaBundle.isEmpty()) {
+      PrettierJavaBundle bundle = PrettierJavaBundle.resolve(
+          prettierJavaBundle,
+          prettierJavaVersion,
+          repositorySystem,
+          repositorySystemSession,
+          remotePluginRepositories,
+          getLog()
+      );
 
+      prettierJava = installStore.install(
+          "prettier-java-" + prettierJavaVersion,
+          String.join("\n", "prettier-java-bundle", bundle.getKey()),
+          directory -> PrettierDownloader.isInstalled(directory, prettierJavaVersion),
+          directory -> bundle.extract(directory, getLog())
+      );
+    } else {
       PrettierDownloader prettierDownloader = new PrettierDownloader(
-          installDirectory,
-          nodeInstall,
+          nodeInstall == null ? resolveNodeInstall() : nodeInstall,
           getLog()
       );
 
-      Path prettierJava = prettierDownloader.downloadPrettierJava(prettierJavaVersion);
-
-      if (disableGenericsLinebreaks) {
-        if (prettierJavaVersion.startsWith("2")) {
-          URL patch = "2.3".compareTo(prettierJavaVersion) < 0
-            ? getClass().getResource("/no-linebreak-generics-2.3.patch")
-            : getClass().getResource("/no-linebreak-generics.patch") ;
-          return new PrettierPatcher(prettierJava, getLog()).patch(patch, prettierJavaVersion);
-        } else if ("1.5.0".compareTo(prettierJavaVersion) > 0) {
-          // versions before 1.5.0 don't linebreak generics
-          return prettierJava;
-        } else {
-          getLog().error("Disabling generic linebreaks is only supported for prettier-java v2");
-          throw new MojoFailureException("Disabling generic linebreaks is only supported for prettier-java v2");
-        }
-      } else {
+      prettierJava = installStore.install(
+          "prettier-java-" + prettierJavaVersion,
+          String.join("\n", "prettier-java", prettierJavaVersion, PrettierDownloader.installSpec(prettierJavaVersion)),
+          directory -> PrettierDownloader.isInstalled(directory, prettierJavaVersion),
+          directory -> prettierDownloader.downloadPrettierJava(prettierJavaVersion, directory)
+      );
+    }
+
+    if (disableGenericsLinebreaks) {
+      if (prettierJavaVersion.startsWith("2")) {
+        URL patch = "2.3".compareTo(prettierJavaVersion) < 0
+          ? getClass().getResource("/no-linebreak-generics-2.3.patch")
+          : getClass().getResource("/no-linebreak-generics.patch") ;
+        return installStore.install(
+            "prettier-java-" + prettierJavaVersion + "-patched",
+            String.join("\n", "prettier-java-patched", prettierJava.getFileName().toString(), hashResource(patch)),
+            directory -> PrettierDownloader.isInstalled(directory, prettierJavaVersion),
+            directory -> new PrettierPatcher(prettierJava, getLog()).patch(patch, directory)
+        );
+      } else if ("1.5.0".compareTo(prettierJavaVersion) > 0) {
+        // versions before 1.5.0 don't linebreak generics
         return prettierJava;
+      } else {
+        getLog().error("Disabling generic linebreaks is only supported for prettier-java v2");
+        throw new MojoFailureException("Disabling generic linebreaks is only supported for prettier-java v2");
       }
+    } else {
+      return prettierJava;
     }
   }
 
   private NodeInstall downloadNode() throws MojoExecutionException {
-    synchronized (NODE_DOWNLOAD_LOCK) {
-      Path installDirectory = localRepositoryDirectory();
+    return installNode(nodeVersion);
+  }
 
-      Optional<String> maybeNodeDownloadUrl = Optional.empty();
-      if (nodeDownloadUrl != null && !nodeDownloadUrl.isEmpty()) {
-        maybeNodeDownloadUrl = Optional.of(nodeDownloadUrl);
-      }
+  /**
+   * Installs the given version of node into the install store, safe to call concurrently
+   */
+  protected NodeInstall installNode(String nodeVersion) throws MojoExecutionException {
+    Optional<String> maybeNodeDownloadUrl = Optional.empty();
+    if (nodeDownloadUrl != null && !nodeDownloadUrl.isEmpty()) {
+      maybeNodeDownloadUrl = Optional.of(nodeDownloadUrl);
+    }
 
-      try {
-        NodeDownloader nodeDownloader = new NodeDownloader(maybeNodeDownloadUrl, installDirectory, getLog());
-        return nodeDownloader.download(nodeVersion);
-      } catch (IOException e) {
-        throw new MojoExecutionException("Error downloading node", e);
-      }
+    OperatingSystemFamily os = OperatingSystemFamily.current();
+    String downloadUrl = maybeNodeDownloadUrl.orElseGet(() -> os.getNodeDownloadUrl(nodeVersion));
+    Optional<String> customDownloadUrl = maybeNodeDownloadUrl;
+
+    Path nodeDirectory = installStore().install(
+        os.getNodeDirectoryName(nodeVersion),
+        String.join("\n", "node", nodeVersion, os.name(), downloadUrl),
+        directory -> NodeDownloader.findInstalled(directory, nodeVersion, os).isPresent(),
+        directory -> nodeDownloader(customDownloadUrl, directory).download(nodeVersion)
+    );
+
+    return NodeDownloader
+        .findInstalled(nodeDirectory, nodeVersion, os)
+        .orElseThrow(() -> new MojoExecutionException("Unable to find node in " + nodeDirectory));
+  }
+
+  private NodeDownloader nodeDownloader(Optional<String> customDownloadUrl, Path directory) {
+    List<String> mirrors = nodeDownloadMirrors == null || nodeDownloadMirrors.isEmpty()
+      ? Collections.singletonList(OperatingSystemFamily.DEFAULT_NODE_MIRROR)
+      : nodeDownloadMirrors;
+
+    DownloadSettings settings = new DownloadSettings(
+        downloadThreads,
+        Duration.ofSeconds(downloadConnectTimeoutSeconds),
+        Duration.ofSeconds(downloadReadTimeoutSeconds),
+        downloadMaxIdleConnections,
+        downloadRetries,
+        DownloadSettings.defaults().getChunkSizeBytes()
+    );
+    // partial downloads outlive the install attempt, so that a retry can resume them
+    HttpDownloader httpDownloader = new HttpDownloader(settings, installStoreDirectory().resolve(".downloads"), getLog());
+
+    return new NodeDownloader(customDownloadUrl, mirrors, httpDownloader, directory, phaseTimings, getLog());
+  }
+
+  protected Path installPrettierRunner() throws MojoExecutionException {
+    try {
+      return PrettierRunnerScript.install(localRepositoryDirectory());
+    } catch (IOException e) {
+      throw new MojoExecutionException("Error installing prettier runner script", e);
+    }
+  }
+
+  /**
+   * Runner arguments that enable the compile cache for this prettier-java install, if enabled.
+   * The cache is kept next to the install store entry, so that patched entries don't share it.
+   */
+  protected List<String> compileCacheArguments(Path prettierJavaDirectory) {
+    if (!compileCache) {
+      return Collections.emptyList();
+    }
+    return Arrays.asList("--compile-cache", installStore().cacheDirectory(prettierJavaDirectory).toString());
+  }
+
+  protected String getNodeVersion() {
+    return nodeVersion;
+  }
+
+  /**
+   * Whether node or npm were supplied rather than downloaded
+   */
+  protected boolean hasCustomNode() {
+    return (nodePath != null && !nodePath.isEmpty()) || (npmPath != null && !npmPath.isEmpty());
+  }
+
+  protected boolean hasCustomNodeDownloadUrl() {
+    return nodeDownloadUrl != null && !nodeDownloadUrl.isEmpty();
+  }
+
+  /**
+   * The root of the local Maven repository
+   */
+  protected Path localRepositoryRoot() {
+    return Paths.get(localRepository);
+  }
+
+  protected String getPluginVersion() {
+    return pluginDescriptor.getVersion();
+  }
+
+  /**
+   * Lives next to the per-version directories, so that all versions of the plugin share it
+   */
+  private InstallStore installStore() {
+    return new InstallStore(installStoreDirectory(), installStoreMaxSizeMb * 1024 * 1024, getLog());
+  }
+
+  protected Path installStoreDirectory() {
+    return Paths
+        .get(localRepository)
+        .resolve(pluginDescriptor.getGroupId().replace('.', File.separatorChar))
+        .resolve(pluginDescriptor.getArtifactId())
+        .resolve("install-store");
+  }
+
+  private static String hashResource(URL resource) throws MojoExecutionException {
+    try (InputStream inputStream = resource.openStream()) {
+      return new HashBuilder().putString(new String(inputStream.readAllBytes(), StandardCharsets.UTF_8)).hash();
+    } catch (IOException e) {
+      throw new MojoExecutionException("Error reading " + resource, e);
     }
   }
 
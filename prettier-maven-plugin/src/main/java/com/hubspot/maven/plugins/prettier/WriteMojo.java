@@ -1,28 +1,41 @@
 package com.hubspot.maven.plugins.prettier;
 
-import java.util.function.Predicate;
-import java.util.regex.Pattern;
+import com.hubspot.maven.plugins.prettier.internal.PrettierResult;
+import com.hubspot.maven.plugins.prettier.internal.PrettierResult.Status;
 import org.apache.maven.plugins.annotations.Mojo;
 
 @Mojo(name = "write", threadSafe = true)
 public class WriteMojo extends AbstractPrettierMojo {
-  private static final Predicate<String> COLORIZED_LINE = Pattern
-    .compile("(\\x9B|\\x1B\\[)[0-?]*[ -/]*[@-~]")
-    .asPredicate();
+  /**
+   * Project context key under which the rewritten files are published, so
+   * that later plugins in the build can limit their work to those
+   */
+  public static final String REWRITTEN_FILES_CONTEXT_KEY = "prettier.rewrittenFiles";
 
   @Override
   protected String getPrettierCommand() {
     return "write";
   }
 
+  // prettier only reports the formatted contents, files are written here so that
+  // unchanged files are never touched and changed files are replaced atomically
   @Override
-  protected void handlePrettierLogLine(String line) {
-    // lines end in elapsed time, colorized lines have no changes
-    if (line.endsWith("ms") && !COLORIZED_LINE.test(line)) {
-      getLog().info("Reformatted file: " + line);
+  protected String getRunnerMode() {
+    return "format";
+  }
+
+  @Override
+  protected void handlePrettierResult(PrettierResult result) {
+    if (result.getStatus() == Status.CHANGED && result.getFormatted() != null) {
+      writeFormatted(result);
     }
   }
 
+  @Override
+  protected void handlePrettierFinished() {
+    publishRewrittenFiles();
+  }
+
   @Override
   protected void handlePrettierNonZeroExit(int status) {}
 }
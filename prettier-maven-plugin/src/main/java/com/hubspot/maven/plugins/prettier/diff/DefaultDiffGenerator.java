@@ -1,6 +1,13 @@
 package com.hubspot.maven.plugins.prettier.diff;
 
+import com.hubspot.maven.plugins.prettier.internal.PhaseTimings;
+import com.hubspot.maven.plugins.prettier.internal.PrettierResult;
+import com.hubspot.maven.plugins.prettier.internal.PrettierResult.Status;
+import com.hubspot.maven.plugins.prettier.internal.PrettierRunnerProcess;
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -8,10 +15,18 @@ import java.util.ArrayList;
 import java.util.List;
 import org.apache.maven.plugin.MojoExecutionException;
 
+/**
+ * Formats all incorrectly formatted files with a single prettier invocation
+ * and writes the diffs to target/prettier-java.diff
+ */
 public class DefaultDiffGenerator implements DiffGenerator {
 
   @Override
   public void generateDiffs(GenerateDiffArgs args) throws MojoExecutionException {
+    if (args.getPrettierRunnerCommand().isEmpty()) {
+      throw new MojoExecutionException("DefaultDiffGenerator needs the prettier runner command in GenerateDiffArgs");
+    }
+
     Path baseDir = args
         .getProject()
         .getBasedir()
@@ -33,30 +48,44 @@ public class DefaultDiffGenerator implements DiffGenerator {
       throw new MojoExecutionException("Error deleting file " + diffFile, e);
     }
 
+    List<String> files = new ArrayList<>();
     for (Path fileToFormat : args.getIncorrectlyFormattedFiles()) {
-      fileToFormat = fileToFormat.toAbsolutePath();
-
-      List<String> prettierArgs = new ArrayList<>(args.getBasePrettierCommand());
-      prettierArgs.add(quote(fileToFormat));
+      files.add(baseDir.relativize(fileToFormat.toAbsolutePath()).toString().replace('\\', '/'));
+    }
 
-      String prettierCommand = String.join(" ", prettierArgs);
-      String diffCommand = String.format(
-          "%s | diff -u %s - >> %s",
-          prettierCommand,
-          quote(baseDir.relativize(fileToFormat)),
-          quote(diffFile)
+    try (BufferedWriter writer = Files.newBufferedWriter(diffFile, StandardCharsets.UTF_8)) {
+      PrettierRunnerProcess.run(
+          args.getPrettierRunnerCommand(),
+          "format",
+          baseDir,
+          files,
+          result -> writeDiff(writer, baseDir, result, args),
+          // the check mojo times the whole diff generation
+          new PhaseTimings(),
+          args.getLog()
       );
-
-      ProcessBuilder processBuilder = new ProcessBuilder("sh", "-c", diffCommand)
-          .directory(baseDir.toFile());
-
-      runDiffCommand(processBuilder, args.getLog());
+    } catch (UncheckedIOException e) {
+      throw new MojoExecutionException("Error trying to create diff with prettier-java", e.getCause());
+    } catch (IOException | InterruptedException e) {
+      throw new MojoExecutionException("Error trying to create diff with prettier-java", e);
     }
 
     args.getLog().info("Diff file generated at " + baseDir.relativize(diffFile));
   }
 
-  private static String quote(Path path) {
-    return "'" + path + "'";
+  private static void writeDiff(BufferedWriter writer, Path baseDir, PrettierResult result, GenerateDiffArgs args) {
+    if (result.getStatus() == Status.ERROR) {
+      args.getLog().warn(result.getFile() + ": " + result.getMessage());
+      return;
+    } else if (result.getStatus() != Status.CHANGED || result.getFormatted() == null) {
+      return;
+    }
+
+    try {
+      String original = new String(Files.readAllBytes(baseDir.resolve(result.getFile())), StandardCharsets.UTF_8);
+      UnifiedDiff.write(writer, result.getFile(), original, result.getFormatted());
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
   }
 }
@@ -1,6 +1,7 @@
 package com.hubspot.maven.plugins.prettier.diff;
 
 import java.nio.file.Path;
+import java.util.Collections;
 import java.util.List;
 import org.apache.maven.plugin.logging.Log;
 import org.apache.maven.project.MavenProject;
@@ -8,6 +9,7 @@ import org.apache.maven.project.MavenProject;
 public class GenerateDiffArgs {
   private final List<Path> incorrectlyFormattedFiles;
   private final List<String> basePrettierCommand;
+  private final List<String> prettierRunnerCommand;
   private final MavenProject project;
   private final Log log;
 
@@ -16,9 +18,20 @@ public class GenerateDiffArgs {
       List<String> basePrettierCommand,
       MavenProject project,
       Log log
+  ) {
+    this(incorrectlyFormattedFiles, basePrettierCommand, Collections.emptyList(), project, log);
+  }
+
+  public GenerateDiffArgs(
+      List<Path> incorrectlyFormattedFiles,
+      List<String> basePrettierCommand,
+      List<String> prettierRunnerCommand,
+      MavenProject project,
+      Log log
   ) {
     this.incorrectlyFormattedFiles = incorrectlyFormattedFiles;
     this.basePrettierCommand = basePrettierCommand;
+    this.prettierRunnerCommand = prettierRunnerCommand;
     this.project = project;
     this.log = log;
   }
@@ -31,6 +44,15 @@ public class GenerateDiffArgs {
     return basePrettierCommand;
   }
 
+  /**
+   * Command for running the plugin's prettier-runner.js, which can format
+   * many files in one go, without the mode (--check, --write, --format).
+   * Empty when constructed without one.
+   */
+  public List<String> getPrettierRunnerCommand() {
+    return prettierRunnerCommand;
+  }
+
   public MavenProject getProject() {
     return project;
   }
@@ -0,0 +1,194 @@
+package com.hubspot.maven.plugins.prettier.diff;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Line diff based on Myers' O(ND) algorithm, using the linear space variant
+ * that bisects on the middle snake so that large rewrites don't need
+ * quadratic memory. The result is a flag per line saying whether it was
+ * deleted from the original or inserted into the revised version.
+ */
+public class MyersDiff {
+  // lines are replaced by ids, so that comparing them is cheap
+  private final int[] original;
+  private final int[] revised;
+  private final boolean[] deleted;
+  private final boolean[] inserted;
+
+  private MyersDiff(List<String> original, List<String> revised) {
+    Map<String, Integer> ids = new HashMap<>();
+    this.original = toIds(original, ids);
+    this.revised = toIds(revised, ids);
+    this.deleted = new boolean[original.size()];
+    this.inserted = new boolean[revised.size()];
+  }
+
+  private static int[] toIds(List<String> lines, Map<String, Integer> ids) {
+    int[] result = new int[lines.size()];
+    for (int i = 0; i < result.length; i++) {
+      result[i] = ids.computeIfAbsent(lines.get(i), ignored -> ids.size());
+    }
+    return result;
+  }
+
+  public static MyersDiff compute(List<String> original, List<String> revised) {
+    MyersDiff diff = new MyersDiff(original, revised);
+    diff.diff(0, original.size(), 0, revised.size());
+    return diff;
+  }
+
+  public boolean isDeleted(int originalLine) {
+    return deleted[originalLine];
+  }
+
+  public boolean isInserted(int revisedLine) {
+    return inserted[revisedLine];
+  }
+
+  public boolean hasChanges() {
+    for (boolean d : deleted) {
+      if (d) {
+        return true;
+      }
+    }
+    for (boolean i : inserted) {
+      if (i) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private void diff(int originalStart, int originalEnd, int revisedStart, int revisedEnd) {
+    while (
+      originalStart < originalEnd &&
+      revisedStart < revisedEnd &&
+      original[originalStart] == revised[revisedStart]
+    ) {
+      originalStart++;
+      revisedStart++;
+    }
+    while (
+      originalStart < originalEnd &&
+      revisedStart < revisedEnd &&
+      original[originalEnd - 1] == revised[revisedEnd - 1]
+    ) {
+      originalEnd--;
+      revisedEnd--;
+    }
+
+    if (originalStart == originalEnd || revisedStart == revisedEnd) {
+      Arrays.fill(deleted, originalStart, originalEnd, true);
+      Arrays.fill(inserted, revisedStart, revisedEnd, true);
+      return;
+    }
+
+    int[] split = bisect(originalStart, originalEnd, revisedStart, revisedEnd);
+    if (
+      split == null ||
+      (split[0] == originalStart && split[1] == revisedStart) ||
+      (split[0] == originalEnd && split[1] == revisedEnd)
+    ) {
+      Arrays.fill(deleted, originalStart, originalEnd, true);
+      Arrays.fill(inserted, revisedStart, revisedEnd, true);
+      return;
+    }
+
+    diff(originalStart, split[0], revisedStart, split[1]);
+    diff(split[0], originalEnd, split[1], revisedEnd);
+  }
+
+  /**
+   * Walks the shortest edit path from both ends at once, and returns the
+   * point where they meet
+   */
+  private int[] bisect(int originalStart, int originalEnd, int revisedStart, int revisedEnd) {
+    int n = originalEnd - originalStart;
+    int m = revisedEnd - revisedStart;
+    int maxD = (n + m + 1) / 2;
+    int offset = maxD;
+    int length = 2 * maxD + 2;
+
+    int[] forward = new int[length];
+    int[] backward = new int[length];
+    Arrays.fill(forward, -1);
+    Arrays.fill(backward, -1);
+    forward[offset + 1] = 0;
+    backward[offset + 1] = 0;
+
+    int delta = n - m;
+    // when delta is odd the paths meet while extending the forward path, otherwise the backward one
+    boolean front = (delta % 2 != 0);
+    int forwardStart = 0;
+    int forwardEnd = 0;
+    int backwardStart = 0;
+    int backwardEnd = 0;
+
+    for (int d = 0; d < maxD; d++) {
+      for (int k = -d + forwardStart; k <= d - forwardEnd; k += 2) {
+        int kOffset = offset + k;
+        int x;
+        if (k == -d || (k != d && forward[kOffset - 1] < forward[kOffset + 1])) {
+          x = forward[kOffset + 1];
+        } else {
+          x = forward[kOffset - 1] + 1;
+        }
+        int y = x - k;
+        while (x < n && y < m && original[originalStart + x] == revised[revisedStart + y]) {
+          x++;
+          y++;
+        }
+        forward[kOffset] = x;
+
+        if (x > n) {
+          forwardEnd += 2;
+        } else if (y > m) {
+          forwardStart += 2;
+        } else if (front) {
+          int backwardOffset = offset + delta - k;
+          if (backwardOffset >= 0 && backwardOffset < length && backward[backwardOffset] != -1) {
+            if (x >= n - backward[backwardOffset]) {
+              return new int[] { originalStart + x, revisedStart + y };
+            }
+          }
+        }
+      }
+
+      for (int k = -d + backwardStart; k <= d - backwardEnd; k += 2) {
+        int kOffset = offset + k;
+        int x;
+        if (k == -d || (k != d && backward[kOffset - 1] < backward[kOffset + 1])) {
+          x = backward[kOffset + 1];
+        } else {
+          x = backward[kOffset - 1] + 1;
+        }
+        int y = x - k;
+        while (x < n && y < m && original[originalEnd - x - 1] == revised[revisedEnd - y - 1]) {
+          x++;
+          y++;
+        }
+        backward[kOffset] = x;
+
+        if (x > n) {
+          backwardEnd += 2;
+        } else if (y > m) {
+          backwardStart += 2;
+        } else if (!front) {
+          int forwardOffset = offset + delta - k;
+          if (forwardOffset >= 0 && forwardOffset < length && forward[forwardOffset] != -1) {
+            int forwardX = forward[forwardOffset];
+            int forwardY = offset + forwardX - forwardOffset;
+            if (forwardX >= n - x) {
+              return new int[] { originalStart + forwardX, revisedStart + forwardY };
+            }
+          }
+        }
+      }
+    }
+
+    return null;
+  }
+}
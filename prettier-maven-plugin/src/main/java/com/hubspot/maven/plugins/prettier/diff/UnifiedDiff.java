@@ -0,0 +1,158 @@
+package com.hubspot.maven.plugins.prettier.diff;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes diffs in the same unified format as diff -u
+ */
+public class UnifiedDiff {
+  private static final int CONTEXT_LINES = 3;
+  private static final String NO_NEWLINE = "\\ No newline at end of file";
+
+  private UnifiedDiff() {}
+
+  /**
+   * Writes the diff between original and revised, if there is one, using path
+   * as the file name on both sides. Returns whether anything was written.
+   */
+  public static boolean write(Writer writer, String path, String original, String revised)
+    throws IOException {
+    List<String> originalLines = splitLines(original);
+    List<String> revisedLines = splitLines(revised);
+
+    MyersDiff diff = MyersDiff.compute(originalLines, revisedLines);
+    if (!diff.hasChanges()) {
+      return false;
+    }
+
+    writer.write("--- " + path + "\n");
+    writer.write("+++ " + path + "\n");
+
+    // pair up the lines of both versions: unchanged lines, deletions and insertions
+    List<int[]> lines = new ArrayList<>();
+    int i = 0;
+    int j = 0;
+    while (i < originalLines.size() || j < revisedLines.size()) {
+      if (i < originalLines.size() && diff.isDeleted(i)) {
+        lines.add(new int[] { i++, -1 });
+      } else if (j < revisedLines.size() && diff.isInserted(j)) {
+        lines.add(new int[] { -1, j++ });
+      } else {
+        lines.add(new int[] { i++, j++ });
+      }
+    }
+
+    int start = 0;
+    // number of lines of each version before the current position
+    int[] position = { 0, 0 };
+    int positionIndex = 0;
+    while (start < lines.size()) {
+      int firstChange = nextChange(lines, start);
+      if (firstChange < 0) {
+        break;
+      }
+
+      // extend the hunk while the gap between changes fits in the context of both
+      int lastChange = firstChange;
+      int next;
+      while ((next = nextChange(lines, lastChange + 1)) >= 0 && next - lastChange - 1 <= 2 * CONTEXT_LINES) {
+        lastChange = next;
+      }
+
+      int hunkStart = Math.max(start, firstChange - CONTEXT_LINES);
+      int hunkEnd = Math.min(lines.size(), lastChange + CONTEXT_LINES + 1);
+      for (; positionIndex < hunkStart; positionIndex++) {
+        advance(position, lines.get(positionIndex));
+      }
+      writeHunk(writer, lines.subList(hunkStart, hunkEnd), position, originalLines, revisedLines);
+      start = hunkEnd;
+    }
+
+    return true;
+  }
+
+  static List<String> splitLines(String text) {
+    List<String> lines = new ArrayList<>();
+    int start = 0;
+    for (int i = 0; i < text.length(); i++) {
+      if (text.charAt(i) == '\n') {
+        lines.add(text.substring(start, i + 1));
+        start = i + 1;
+      }
+    }
+    if (start < text.length()) {
+      lines.add(text.substring(start));
+    }
+    return lines;
+  }
+
+  private static int nextChange(List<int[]> lines, int from) {
+    for (int index = from; index < lines.size(); index++) {
+      int[] line = lines.get(index);
+      if (line[0] < 0 || line[1] < 0) {
+        return index;
+      }
+    }
+    return -1;
+  }
+
+  private static void advance(int[] position, int[] line) {
+    if (line[0] >= 0) {
+      position[0]++;
+    }
+    if (line[1] >= 0) {
+      position[1]++;
+    }
+  }
+
+  private static void writeHunk(
+      Writer writer,
+      List<int[]> hunk,
+      int[] position,
+      List<String> originalLines,
+      List<String> revisedLines
+  ) throws IOException {
+    int[] counts = { 0, 0 };
+    for (int[] line : hunk) {
+      advance(counts, line);
+    }
+
+    writer.write(
+        "@@ -" + range(position[0], counts[0]) + " +" + range(position[1], counts[1]) + " @@\n"
+    );
+
+    for (int[] line : hunk) {
+      if (line[0] >= 0 && line[1] >= 0) {
+        writeLine(writer, ' ', originalLines.get(line[0]));
+      } else if (line[0] >= 0) {
+        writeLine(writer, '-', originalLines.get(line[0]));
+      } else {
+        writeLine(writer, '+', revisedLines.get(line[1]));
+      }
+    }
+  }
+
+  /**
+   * Line numbers are 1-based, but an empty range refers to the line before it
+   */
+  private static String range(int linesBefore, int count) {
+    if (count == 0) {
+      return linesBefore + ",0";
+    } else if (count == 1) {
+      return Integer.toString(linesBefore + 1);
+    } else {
+      return (linesBefore + 1) + "," + count;
+    }
+  }
+
+  private static void writeLine(Writer writer, char prefix, String line) throws IOException {
+    writer.write(prefix);
+    writer.write(line);
+    if (!line.endsWith("\n")) {
+      writer.write("\n" + NO_NEWLINE + "\n");
+    }
+  }
+}
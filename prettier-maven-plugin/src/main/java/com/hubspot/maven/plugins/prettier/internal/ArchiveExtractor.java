@@ -0,0 +1,143 @@
+package com.hubspot.maven.plugins.prettier.internal;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Writes the entries of an archive to disk. The calling thread decompresses
+ * the archive, while small files are written by a bounded pool of writer
+ * threads. When the pool falls behind, the calling thread writes files
+ * itself, so the amount of buffered data stays bounded.
+ */
+class ArchiveExtractor implements AutoCloseable {
+  // larger files are streamed straight to disk rather than buffered for a writer
+  private static final int MAX_BUFFERED_FILE_SIZE = 1024 * 1024;
+  private static final int MAX_QUEUED_WRITES = 64;
+  private static final int MAX_WRITERS = 4;
+
+  private final Path targetDirectory;
+  private final Set<Path> createdDirectories = new HashSet<>();
+  private final ExecutorService writers;
+  private final AtomicReference<IOException> writeFailure = new AtomicReference<>();
+  private int entryCount = 0;
+  private long bytesWritten = 0;
+
+  ArchiveExtractor(Path targetDirectory) {
+    this.targetDirectory = targetDirectory;
+    this.createdDirectories.add(targetDirectory);
+
+    AtomicInteger threadCount = new AtomicInteger(0);
+    int writerCount = Math.max(1, Math.min(MAX_WRITERS, Runtime.getRuntime().availableProcessors() - 1));
+    this.writers = new ThreadPoolExecutor(
+        writerCount,
+        writerCount,
+        0,
+        TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(MAX_QUEUED_WRITES),
+        runnable -> {
+          Thread thread = new Thread(runnable, "prettier-extract-" + threadCount.incrementAndGet());
+          thread.setDaemon(true);
+          return thread;
+        },
+        new ThreadPoolExecutor.CallerRunsPolicy()
+    );
+  }
+
+  void addDirectory(String name) throws IOException {
+    ensureDirectory(resolve(name));
+  }
+
+  void addFile(String name, long size, InputStream inputStream) throws IOException {
+    checkWriteFailure();
+
+    Path file = resolve(name);
+    Path parent = file.getParent();
+    if (parent != null) {
+      ensureDirectory(parent);
+    }
+
+    entryCount++;
+    if (size < 0 || size > MAX_BUFFERED_FILE_SIZE) {
+      bytesWritten += Files.copy(inputStream, file);
+      return;
+    }
+
+    byte[] contents = inputStream.readNBytes((int) size);
+    bytesWritten += contents.length;
+    try {
+      writers.execute(
+          () -> {
+            try {
+              Files.write(file, contents);
+            } catch (IOException e) {
+              writeFailure.compareAndSet(null, e);
+            }
+          }
+      );
+    } catch (RejectedExecutionException e) {
+      throw new IOException("Unable to write " + file, e);
+    }
+  }
+
+  /**
+   * Waits for all pending writes, and fails if any of them did
+   */
+  void finish() throws IOException {
+    writers.shutdown();
+    try {
+      if (!writers.awaitTermination(10, TimeUnit.MINUTES)) {
+        throw new IOException("Timed out writing files to " + targetDirectory);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while writing files to " + targetDirectory, e);
+    }
+    checkWriteFailure();
+  }
+
+  int getEntryCount() {
+    return entryCount;
+  }
+
+  long getBytesWritten() {
+    return bytesWritten;
+  }
+
+  @Override
+  public void close() {
+    writers.shutdownNow();
+  }
+
+  private Path resolve(String name) throws IOException {
+    Path entryPath = targetDirectory.resolve(name).normalize();
+    if (!entryPath.startsWith(targetDirectory)) {
+      throw new IOException("Invalid archive entry: " + name);
+    }
+    return entryPath;
+  }
+
+  private void ensureDirectory(Path directory) throws IOException {
+    // archives list thousands of files in the same few directories
+    if (createdDirectories.add(directory)) {
+      Files.createDirectories(directory);
+    }
+  }
+
+  private void checkWriteFailure() throws IOException {
+    IOException failure = writeFailure.get();
+    if (failure != null) {
+      throw failure;
+    }
+  }
+}
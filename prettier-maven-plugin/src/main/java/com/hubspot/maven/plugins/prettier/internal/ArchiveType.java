@@ -1,71 +1,50 @@
 package com.hubspot.maven.plugins.prettier.internal;
 
+import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
 
 import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
 import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
 import org.apache.commons.compress.compressors.gzip.GzipCompressorInputStream;
+import org.apache.maven.plugin.logging.Log;
 
 public enum ArchiveType {
   ZIP("zip") {
 
     @Override
-    public void extract(Path targetDirectory, Path archive) throws IOException {
-      try (
-          InputStream inputStream = Files.newInputStream(archive);
-          ZipInputStream zipInputStream = new ZipInputStream(inputStream)
-      ) {
-        ZipEntry zipEntry;
-        while ((zipEntry = zipInputStream.getNextEntry()) != null) {
-          Path entryPath = targetDirectory.resolve(zipEntry.getName()).normalize();
-          if (!entryPath.startsWith(targetDirectory)) {
-            throw new IOException("Invalid zip entry: " + zipEntry.getName());
-          }
-
-          if (zipEntry.isDirectory()) {
-            Files.createDirectories(entryPath);
-          } else {
-            Path parent = entryPath.getParent();
-            if (parent != null) {
-              Files.createDirectories(parent);
-            }
-
-            Files.copy(zipInputStream, entryPath);
-          }
+    void readEntries(InputStream inputStream, ArchiveExtractor extractor) throws IOException {
+      ZipInputStream zipInputStream = new ZipInputStream(inputStream);
+      ZipEntry zipEntry;
+      while ((zipEntry = zipInputStream.getNextEntry()) != null) {
+        if (zipEntry.isDirectory()) {
+          extractor.addDirectory(zipEntry.getName());
+        } else {
+          extractor.addFile(zipEntry.getName(), zipEntry.getSize(), zipInputStream);
         }
       }
     }
   }, TAR_GZ("tar.gz") {
 
     @Override
-    public void extract(Path targetDirectory, Path archive) throws IOException {
-      try (
-          InputStream inputStream = Files.newInputStream(archive);
-          GzipCompressorInputStream gzipInputStream = new GzipCompressorInputStream(inputStream);
-          TarArchiveInputStream tarInputStream = new TarArchiveInputStream(gzipInputStream)
-      ) {
-        TarArchiveEntry tarEntry;
-        while ((tarEntry = tarInputStream.getNextTarEntry()) != null) {
-          Path entryPath = targetDirectory.resolve(tarEntry.getName()).normalize();
-          if (!entryPath.startsWith(targetDirectory)) {
-            throw new IOException("Invalid tar entry: " + tarEntry.getName());
-          }
-
-          if (tarEntry.isDirectory()) {
-            Files.createDirectories(entryPath);
-          } else {
-            Path parent = entryPath.getParent();
-            if (parent != null) {
-              Files.createDirectories(parent);
-            }
-
-            Files.copy(tarInputStream, entryPath);
-          }
+    void readEntries(InputStream inputStream, ArchiveExtractor extractor) throws IOException {
+      GzipCompressorInputStream gzipInputStream = new GzipCompressorInputStream(inputStream);
+      TarArchiveInputStream tarInputStream = new TarArchiveInputStream(gzipInputStream);
+      TarArchiveEntry tarEntry;
+      while ((tarEntry = tarInputStream.getNextTarEntry()) != null) {
+        if (tarEntry.isDirectory()) {
+          extractor.addDirectory(tarEntry.getName());
+        } else {
+          extractor.addFile(tarEntry.getName(), tarEntry.getSize(), tarInputStream);
         }
       }
     }
@@ -81,5 +60,60 @@ public enum ArchiveType {
     return asString;
   }
 
-  public abstract void extract(Path targetDirectory, Path archive) throws IOException;
+  public void extract(Path targetDirectory, Path archive, Log log) throws IOException {
+    extract(targetDirectory, archive, Optional.empty(), log);
+  }
+
+  /**
+   * Decompresses the archive on the calling thread while a pool of writers
+   * creates the files. If a SHA-256 is expected, it's computed over the raw
+   * archive bytes as they're read, so the archive is only read once.
+   */
+  public void extract(Path targetDirectory, Path archive, Optional<String> expectedSha256, Log log)
+    throws IOException {
+    long start = System.nanoTime();
+    MessageDigest digest = HashBuilder.newDigest();
+
+    try (
+        // digest below the buffer, since gzip rewinds the buffer past the end of each member
+        InputStream inputStream = new BufferedInputStream(
+            new DigestInputStream(Files.newInputStream(archive), digest),
+            64 * 1024
+        );
+        ArchiveExtractor extractor = new ArchiveExtractor(targetDirectory)
+    ) {
+      readEntries(inputStream, extractor);
+      // the checksum covers the whole file, including any padding after the last entry
+      inputStream.transferTo(OutputStream.nullOutputStream());
+      extractor.finish();
+
+      if (expectedSha256.isPresent()) {
+        String actualSha256 = HashBuilder.toHex(digest.digest());
+        if (!actualSha256.equalsIgnoreCase(expectedSha256.get())) {
+          throw new IOException(
+              "Checksum mismatch for " + archive.getFileName() + ", expected SHA-256 " +
+              expectedSha256.get() + " but was " + actualSha256
+          );
+        }
+        log.debug("Verified SHA-256 of " + archive.getFileName() + ": " + actualSha256);
+      }
+
+      if (log.isDebugEnabled()) {
+        long millis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        double megabytes = extractor.getBytesWritten() / (1024.0 * 1024.0);
+        log.debug(
+            String.format(
+                "Extracted %d files (%.1f MB) from %s in %dms (%.1f MB/s)",
+                extractor.getEntryCount(),
+                megabytes,
+                archive.getFileName(),
+                millis,
+                megabytes * 1000 / millis
+            )
+        );
+      }
+    }
+  }
+
+  abstract void readEntries(InputStream inputStream, ArchiveExtractor extractor) throws IOException;
 }
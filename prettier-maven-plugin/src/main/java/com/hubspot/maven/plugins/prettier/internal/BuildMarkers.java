@@ -0,0 +1,64 @@
+package com.hubspot.maven.plugins.prettier.internal;
+
+import java.nio.file.Path;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import javax.annotation.Nullable;
+import org.sonatype.plexus.build.incremental.BuildContext;
+import org.sonatype.plexus.build.incremental.DefaultBuildContext;
+
+/**
+ * Reports problems as markers on the files they're in when running inside an
+ * IDE (m2e). On the command line the build context only logs the messages,
+ * which the mojos already do, so nothing is reported there.
+ */
+public class BuildMarkers {
+  // prettier reports "(3:14)", prettier-java "line: 3, column: 14"
+  private static final Pattern POSITION = Pattern.compile("\\((\\d+):(\\d+)\\)|line: (\\d+), column: (\\d+)");
+
+  @Nullable
+  private final BuildContext buildContext;
+
+  public BuildMarkers(@Nullable BuildContext buildContext) {
+    this.buildContext = buildContext instanceof DefaultBuildContext ? null : buildContext;
+  }
+
+  /**
+   * Removes the markers of a previous run, before the file is formatted again
+   */
+  public void clear(Path file) {
+    if (buildContext != null) {
+      buildContext.removeMessages(file.toFile());
+    }
+  }
+
+  public void error(Path file, String message) {
+    add(file, message, BuildContext.SEVERITY_ERROR);
+  }
+
+  public void warning(Path file, String message) {
+    add(file, message, BuildContext.SEVERITY_WARNING);
+  }
+
+  private void add(Path file, String message, int severity) {
+    if (buildContext == null) {
+      return;
+    }
+
+    int[] position = position(message);
+    buildContext.addMessage(file.toFile(), position[0], position[1], message, severity, null);
+  }
+
+  /**
+   * The line and column an error message points at, 0 when it doesn't
+   */
+  static int[] position(String message) {
+    Matcher matcher = POSITION.matcher(message == null ? "" : message);
+    if (!matcher.find()) {
+      return new int[] { 0, 0 };
+    }
+
+    int group = matcher.group(1) != null ? 1 : 3;
+    return new int[] { Integer.parseInt(matcher.group(group)), Integer.parseInt(matcher.group(group + 1)) };
+  }
+}
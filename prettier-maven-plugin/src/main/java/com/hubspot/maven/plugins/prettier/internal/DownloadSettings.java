@@ -0,0 +1,90 @@
+package com.hubspot.maven.plugins.prettier.internal;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import okhttp3.ConnectionPool;
+import okhttp3.OkHttpClient;
+
+/**
+ * How HttpDownloader talks to mirrors
+ */
+public class DownloadSettings {
+  private static final int DEFAULT_THREADS = 4;
+  private static final Duration DEFAULT_CONNECT_TIMEOUT = Duration.ofSeconds(10);
+  private static final Duration DEFAULT_READ_TIMEOUT = Duration.ofSeconds(30);
+  private static final int DEFAULT_MAX_IDLE_CONNECTIONS = 8;
+  private static final int DEFAULT_RETRIES = 3;
+  private static final long DEFAULT_CHUNK_SIZE_BYTES = 4 * 1024 * 1024;
+
+  private final int threads;
+  private final Duration connectTimeout;
+  private final Duration readTimeout;
+  private final int maxIdleConnections;
+  private final int retries;
+  private final long chunkSizeBytes;
+
+  public DownloadSettings(
+      int threads,
+      Duration connectTimeout,
+      Duration readTimeout,
+      int maxIdleConnections,
+      int retries,
+      long chunkSizeBytes
+  ) {
+    this.threads = Math.max(1, threads);
+    this.connectTimeout = connectTimeout;
+    this.readTimeout = readTimeout;
+    this.maxIdleConnections = Math.max(0, maxIdleConnections);
+    this.retries = Math.max(0, retries);
+    this.chunkSizeBytes = Math.max(1, chunkSizeBytes);
+  }
+
+  public static DownloadSettings defaults() {
+    return new DownloadSettings(
+        DEFAULT_THREADS,
+        DEFAULT_CONNECT_TIMEOUT,
+        DEFAULT_READ_TIMEOUT,
+        DEFAULT_MAX_IDLE_CONNECTIONS,
+        DEFAULT_RETRIES,
+        DEFAULT_CHUNK_SIZE_BYTES
+    );
+  }
+
+  /**
+   * Number of ranges of a file that are downloaded in parallel
+   */
+  public int getThreads() {
+    return threads;
+  }
+
+  public Duration getConnectTimeout() {
+    return connectTimeout;
+  }
+
+  public Duration getReadTimeout() {
+    return readTimeout;
+  }
+
+  public int getMaxIdleConnections() {
+    return maxIdleConnections;
+  }
+
+  /**
+   * How often a failed range is retried, moving on to the next mirror each time
+   */
+  public int getRetries() {
+    return retries;
+  }
+
+  public long getChunkSizeBytes() {
+    return chunkSizeBytes;
+  }
+
+  public OkHttpClient newHttpClient() {
+    return new OkHttpClient.Builder()
+        .connectTimeout(connectTimeout)
+        .readTimeout(readTimeout)
+        .connectionPool(new ConnectionPool(maxIdleConnections, 5, TimeUnit.MINUTES))
+        .build();
+  }
+}
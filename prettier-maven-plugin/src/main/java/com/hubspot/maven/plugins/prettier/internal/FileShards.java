@@ -0,0 +1,59 @@
+package com.hubspot.maven.plugins.prettier.internal;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+public class FileShards {
+
+  private FileShards() {}
+
+  /**
+   * Splits files into at most shardCount groups of roughly equal total size,
+   * since formatting time mostly depends on file size rather than file count
+   */
+  public static List<List<Path>> split(List<Path> files, int shardCount) throws IOException {
+    if (shardCount <= 1 || files.size() <= 1) {
+      return Collections.singletonList(files);
+    }
+
+    Map<Path, Long> sizes = new HashMap<>();
+    for (Path file : files) {
+      sizes.put(file, Files.size(file));
+    }
+
+    List<Path> largestFirst = new ArrayList<>(files);
+    largestFirst.sort(Comparator.comparing(sizes::get).reversed());
+
+    PriorityQueue<Shard> shards = new PriorityQueue<>(Comparator.comparingLong(shard -> shard.totalSize));
+    for (int i = 0; i < Math.min(shardCount, files.size()); i++) {
+      shards.add(new Shard());
+    }
+
+    for (Path file : largestFirst) {
+      Shard smallest = shards.poll();
+      smallest.files.add(file);
+      smallest.totalSize += sizes.get(file);
+      shards.add(smallest);
+    }
+
+    List<List<Path>> result = new ArrayList<>();
+    for (Shard shard : shards) {
+      Collections.sort(shard.files);
+      result.add(shard.files);
+    }
+    return result;
+  }
+
+  private static class Shard {
+    private final List<Path> files = new ArrayList<>();
+    private long totalSize = 0;
+  }
+}
@@ -1,6 +1,7 @@
 package com.hubspot.maven.plugins.prettier.internal;
 
 import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.DirectoryNotEmptyException;
 import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.FileSystemException;
@@ -10,6 +11,10 @@ import java.nio.file.Path;
 import java.nio.file.SimpleFileVisitor;
 import java.nio.file.StandardCopyOption;
 import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
 import org.apache.maven.plugin.MojoExecutionException;
 
 public class FileUtils {
@@ -39,48 +44,90 @@ public class FileUtils {
     }
   }
 
-  public static Path copyDirectory(Path source) throws MojoExecutionException {
-    Path mutableTmpDir = null;
+  /**
+   * Replaces the contents of the file atomically, through a temporary file
+   * in the same directory, unless it already has these exact contents. A file
+   * that isn't replaced keeps its modification time, so incremental compilers
+   * don't consider it changed. Returns whether the file was replaced.
+   */
+  public static boolean writeIfChanged(Path file, byte[] contents) throws IOException {
+    if (Files.size(file) == contents.length && Arrays.equals(Files.readAllBytes(file), contents)) {
+      return false;
+    }
+
+    Path tmpFile = Files.createTempFile(file.getParent(), "." + file.getFileName() + "-", ".tmp");
     try {
-      Path tmpDir = Files.createTempDirectory(
-          source.getParent(),
-          "prettier-java-", OperatingSystemFamily.current().getGlobalPermissions()
-      );
+      Files.write(tmpFile, contents);
 
-      mutableTmpDir = tmpDir;
+      PosixFileAttributeView attributes = Files.getFileAttributeView(file, PosixFileAttributeView.class);
+      if (attributes != null) {
+        Files.setPosixFilePermissions(tmpFile, attributes.readAttributes().permissions());
+      }
 
-      Files.walkFileTree(
-          source,
-          new SimpleFileVisitor<>() {
+      try {
+        Files.move(tmpFile, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+      } catch (AtomicMoveNotSupportedException e) {
+        Files.move(tmpFile, file, StandardCopyOption.REPLACE_EXISTING);
+      }
+    } finally {
+      Files.deleteIfExists(tmpFile);
+    }
 
-            @Override
-            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
-              // we already created the root directory
-              if (!source.equals(dir)) {
-                Path target = tmpDir.resolve(source.relativize(dir));
-                Files.copy(dir, target, StandardCopyOption.COPY_ATTRIBUTES);
-              }
+    return true;
+  }
+
+  /**
+   * Mirrors source into target, which must already exist, hard linking files
+   * rather than copying them. Files and directories in skip (relative to
+   * source) are left out. Falls back to copying if the file system doesn't
+   * support hard links.
+   */
+  public static void linkDirectory(Path source, Path target, Set<Path> skip) throws IOException {
+    linkDirectory(source, target, skip, Files::createLink);
+  }
+
+  static void linkDirectory(Path source, Path target, Set<Path> skip, HardLinker hardLinker) throws IOException {
+    AtomicBoolean canLink = new AtomicBoolean(true);
+    Files.walkFileTree(
+        source,
+        new SimpleFileVisitor<>() {
+
+          @Override
+          public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+            if (source.equals(dir)) {
               return FileVisitResult.CONTINUE;
+            } else if (skip.contains(source.relativize(dir))) {
+              return FileVisitResult.SKIP_SUBTREE;
             }
+            Files.copy(dir, target.resolve(source.relativize(dir)), StandardCopyOption.COPY_ATTRIBUTES);
+            return FileVisitResult.CONTINUE;
+          }
 
-            @Override
-            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
-              Path target = tmpDir.resolve(source.relativize(file));
-              Files.copy(file, target, StandardCopyOption.COPY_ATTRIBUTES);
+          @Override
+          public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+            Path relativePath = source.relativize(file);
+            Path link = target.resolve(relativePath);
+            if (skip.contains(relativePath)) {
+              return FileVisitResult.CONTINUE;
+            } else if (attrs.isSymbolicLink()) {
+              Files.createSymbolicLink(link, Files.readSymbolicLink(file));
               return FileVisitResult.CONTINUE;
             }
-          }
-      );
 
-      return tmpDir;
-    } catch (IOException e) {
-      if (mutableTmpDir != null) {
-        // don't leave tmp dir hanging around
-        deleteDirectory(mutableTmpDir);
-      }
+            if (canLink.get()) {
+              try {
+                hardLinker.createLink(link, file);
+                return FileVisitResult.CONTINUE;
+              } catch (UnsupportedOperationException | FileSystemException e) {
+                canLink.set(false);
+              }
+            }
 
-      throw new MojoExecutionException("Error copying directory: " + source, e);
-    }
+            Files.copy(file, link, StandardCopyOption.COPY_ATTRIBUTES);
+            return FileVisitResult.CONTINUE;
+          }
+        }
+    );
   }
 
   public static void deleteDirectory(Path directory) throws MojoExecutionException {
@@ -111,6 +158,13 @@ public class FileUtils {
     }
   }
 
+  /**
+   * Files.createLink, tests replace it to simulate file systems without hard links
+   */
+  interface HardLinker {
+    void createLink(Path link, Path existing) throws IOException;
+  }
+
   private static boolean isIgnorableMoveError(IOException e) {
     return (
       e instanceof FileAlreadyExistsException ||
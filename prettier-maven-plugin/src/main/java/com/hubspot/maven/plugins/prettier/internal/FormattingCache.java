@@ -0,0 +1,148 @@
+package com.hubspot.maven.plugins.prettier.internal;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.TreeMap;
+import org.apache.maven.plugin.logging.Log;
+
+/**
+ * Remembers the content hash of every file that prettier has confirmed is
+ * formatted correctly, so that unchanged files don't need to be sent to
+ * prettier again. The cache is invalidated entirely whenever the key
+ * (prettier-java version, engine, formatting options, config files) changes.
+ *
+ * The file format is the key on the first line, followed by one line per file
+ * in the same format as sha256sum.
+ */
+public class FormattingCache {
+  private final Path cacheFile;
+  private final Path baseDirectory;
+  private final String key;
+  private final Map<String, String> hashes;
+
+  private FormattingCache(Path cacheFile, Path baseDirectory, String key, Map<String, String> hashes) {
+    this.cacheFile = cacheFile;
+    this.baseDirectory = baseDirectory.toAbsolutePath().normalize();
+    this.key = key;
+    this.hashes = hashes;
+  }
+
+  /**
+   * Key for everything besides the file contents that affects how files are
+   * formatted. The graaljs engine doesn't read config files, so the engine
+   * is part of it too.
+   */
+  public static String computeKey(
+      String pluginVersion,
+      String prettierJavaVersion,
+      boolean disableGenericsLinebreaks,
+      String engine,
+      List<String> prettierOptions,
+      List<Path> configFiles
+  ) throws IOException {
+    HashBuilder hashBuilder = new HashBuilder()
+        .putString(pluginVersion)
+        .putString(prettierJavaVersion)
+        .putString(Boolean.toString(disableGenericsLinebreaks))
+        .putString(engine)
+        .putString(String.join(" ", prettierOptions));
+
+    for (Path configFile : configFiles) {
+      hashBuilder.putFile(configFile);
+    }
+
+    return hashBuilder.hash();
+  }
+
+  public static FormattingCache load(Path cacheFile, Path baseDirectory, String key, Log log) {
+    Map<String, String> hashes = new TreeMap<>();
+
+    try (BufferedReader reader = Files.newBufferedReader(cacheFile, StandardCharsets.UTF_8)) {
+      String storedKey = reader.readLine();
+      if (key.equals(storedKey)) {
+        String line;
+        while ((line = reader.readLine()) != null) {
+          int separator = line.indexOf("  ");
+          if (separator > 0) {
+            hashes.put(line.substring(separator + 2), line.substring(0, separator));
+          }
+        }
+        log.debug("Loaded " + hashes.size() + " entries from formatting cache " + cacheFile);
+      } else {
+        log.debug("Formatting configuration has changed, ignoring cache " + cacheFile);
+      }
+    } catch (NoSuchFileException e) {
+      log.debug("No formatting cache found at " + cacheFile);
+    } catch (IOException e) {
+      log.warn("Unable to read formatting cache " + cacheFile + ", ignoring it", e);
+      hashes.clear();
+    }
+
+    return new FormattingCache(cacheFile, baseDirectory, key, hashes);
+  }
+
+  public boolean isUpToDate(Path file) throws IOException {
+    String cachedHash = hashes.get(relativize(file));
+    return cachedHash != null && cachedHash.equals(HashBuilder.hashFile(file));
+  }
+
+  /**
+   * Marks the files that prettier processed as formatted, except the ones it
+   * reported as not formatted correctly. Needs to be called after prettier
+   * has run, since the write goal might have changed the contents of the files.
+   */
+  public void markFormatted(Collection<Path> files, Collection<Path> unformattedFiles) throws IOException {
+    Set<String> unformatted = new HashSet<>();
+    for (Path file : unformattedFiles) {
+      unformatted.add(relativize(file));
+    }
+
+    for (Path file : files) {
+      String relativePath = relativize(file);
+      if (unformatted.contains(relativePath)) {
+        hashes.remove(relativePath);
+      } else if (Files.isRegularFile(file)) {
+        hashes.put(relativePath, HashBuilder.hashFile(file));
+      }
+    }
+  }
+
+  public void save() throws IOException {
+    Path directory = cacheFile.toAbsolutePath().getParent();
+    Files.createDirectories(directory);
+
+    Path tmpFile = Files.createTempFile(directory, "prettier-java-", ".tmp");
+    try {
+      try (BufferedWriter writer = Files.newBufferedWriter(tmpFile, StandardCharsets.UTF_8)) {
+        writer.write(key);
+        writer.newLine();
+        for (Entry<String, String> entry : hashes.entrySet()) {
+          writer.write(entry.getValue());
+          writer.write("  ");
+          writer.write(entry.getKey());
+          writer.newLine();
+        }
+      }
+
+      Files.move(tmpFile, cacheFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(tmpFile);
+    }
+  }
+
+  private String relativize(Path file) {
+    return baseDirectory.relativize(file.toAbsolutePath().normalize()).toString().replace('\\', '/');
+  }
+}
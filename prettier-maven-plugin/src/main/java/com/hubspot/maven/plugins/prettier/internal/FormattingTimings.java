@@ -0,0 +1,121 @@
+package com.hubspot.maven.plugins.prettier.internal;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.maven.plugin.logging.Log;
+
+/**
+ * Collects how long prettier took to format each file, so that the files
+ * that dominate the build time can be found (and maybe excluded)
+ */
+public class FormattingTimings {
+  private final Path baseDirectory;
+  private final List<Timing> timings = new ArrayList<>();
+
+  public FormattingTimings(Path baseDirectory) {
+    this.baseDirectory = baseDirectory;
+  }
+
+  /**
+   * The file is relative to the base directory, as it was passed to prettier
+   */
+  public void record(String file, long durationMillis) {
+    long size;
+    try {
+      size = Files.size(baseDirectory.resolve(file));
+    } catch (IOException e) {
+      size = -1;
+    }
+
+    synchronized (timings) {
+      timings.add(new Timing(file, size, durationMillis));
+    }
+  }
+
+  /**
+   * Writes every file, slowest first
+   */
+  public void write(Path jsonFile) throws IOException {
+    List<Timing> sorted = sorted();
+    long totalMillis = 0;
+    List<Map<String, Object>> files = new ArrayList<>();
+    for (Timing timing : sorted) {
+      totalMillis += timing.durationMillis;
+
+      Map<String, Object> file = new LinkedHashMap<>();
+      file.put("file", timing.file);
+      file.put("bytes", timing.size);
+      file.put("ms", timing.durationMillis);
+      files.add(file);
+    }
+
+    Map<String, Object> report = new LinkedHashMap<>();
+    report.put("fileCount", sorted.size());
+    report.put("totalMillis", totalMillis);
+    report.put("files", files);
+
+    Files.createDirectories(jsonFile.getParent());
+    try (Writer writer = Files.newBufferedWriter(jsonFile, StandardCharsets.UTF_8)) {
+      writer.write(Json.toJson(report));
+      writer.write('\n');
+    }
+  }
+
+  public void logSlowest(Log log, int count) {
+    List<Timing> sorted = sorted();
+    if (sorted.isEmpty() || count <= 0) {
+      return;
+    }
+
+    long totalMillis = sorted.stream().mapToLong(timing -> timing.durationMillis).sum();
+    List<Timing> slowest = sorted.subList(0, Math.min(count, sorted.size()));
+    log.info(
+        "Slowest " + slowest.size() + " of " + sorted.size() + " files (" + totalMillis + "ms formatting in total):"
+    );
+    for (Timing timing : slowest) {
+      log.info(String.format("  %6dms %10s  %s", timing.durationMillis, formatSize(timing.size), timing.file));
+    }
+  }
+
+  private List<Timing> sorted() {
+    List<Timing> sorted;
+    synchronized (timings) {
+      sorted = new ArrayList<>(timings);
+    }
+
+    sorted.sort(Comparator.comparingLong((Timing timing) -> timing.durationMillis).reversed());
+    return sorted;
+  }
+
+  private static String formatSize(long bytes) {
+    if (bytes < 0) {
+      return "?";
+    } else if (bytes < 1024) {
+      return bytes + " B";
+    } else if (bytes < 1024 * 1024) {
+      return String.format("%.1f KB", bytes / 1024.0);
+    } else {
+      return String.format("%.1f MB", bytes / (1024.0 * 1024.0));
+    }
+  }
+
+  private static class Timing {
+    private final String file;
+    private final long size;
+    private final long durationMillis;
+
+    private Timing(String file, long size, long durationMillis) {
+      this.file = file;
+      this.size = size;
+      this.durationMillis = durationMillis;
+    }
+  }
+}
@@ -0,0 +1,119 @@
+package com.hubspot.maven.plugins.prettier.internal;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.apache.maven.plugin.logging.Log;
+
+/**
+ * Asks the local git repository which files changed relative to the merge
+ * base of a ref and HEAD: committed, staged and unstaged changes, plus new
+ * untracked files. Deleted files are left out. This only uses the local
+ * repository, nothing is fetched.
+ */
+public class GitChangedFiles {
+  // every module of a build shares the same answer, so git only runs once per repository
+  private static final Map<List<String>, Set<Path>> CACHE = new ConcurrentHashMap<>();
+
+  private GitChangedFiles() {}
+
+  /**
+   * Returns the absolute, normalized paths of the changed files in the
+   * repository that contains directory. The buildId scopes the cached result
+   * to a single build, for JVMs that run more than one build.
+   */
+  public static Set<Path> find(Path directory, String baseRef, String buildId, Log log) throws IOException {
+    Path root = Paths.get(git(directory, "rev-parse", "--show-toplevel").trim()).toAbsolutePath().normalize();
+
+    List<String> key = Arrays.asList(root.toString(), baseRef, buildId);
+    Set<Path> cached = CACHE.get(key);
+    if (cached != null) {
+      return cached;
+    }
+
+    String mergeBase = git(root, "merge-base", baseRef, "HEAD").trim();
+    log.debug("Merge base of " + baseRef + " and HEAD is " + mergeBase);
+
+    Set<Path> changedFiles = new HashSet<>();
+    for (String file : splitNul(git(root, "diff", "--name-only", "-z", "--no-renames", "--diff-filter=d", mergeBase))) {
+      changedFiles.add(root.resolve(file).normalize());
+    }
+    for (String file : splitNul(git(root, "ls-files", "--others", "--exclude-standard", "-z"))) {
+      changedFiles.add(root.resolve(file).normalize());
+    }
+
+    log.debug("Found " + changedFiles.size() + " files changed since " + baseRef + " in " + root);
+    Set<Path> result = Collections.unmodifiableSet(changedFiles);
+    CACHE.put(key, result);
+    return result;
+  }
+
+  private static List<String> splitNul(String output) {
+    List<String> result = new ArrayList<>();
+    for (String entry : output.split("\0")) {
+      if (!entry.isEmpty()) {
+        result.add(entry);
+      }
+    }
+    return result;
+  }
+
+  private static String git(Path directory, String... args) throws IOException {
+    List<String> command = new ArrayList<>();
+    command.add("git");
+    // paths need to come out verbatim rather than quoted
+    command.add("-c");
+    command.add("core.quotePath=false");
+    command.addAll(Arrays.asList(args));
+
+    // reading stderr only after stdout would block both if git warns a lot, so it goes to a file
+    Path stderrFile = Files.createTempFile("prettier-git-", ".log");
+    try {
+      Process process = new ProcessBuilder(command)
+          .directory(directory.toFile())
+          .redirectError(stderrFile.toFile())
+          .start();
+      process.getOutputStream().close();
+
+      String stdout = readFully(process.getInputStream());
+
+      int status;
+      try {
+        status = process.waitFor();
+      } catch (InterruptedException e) {
+        process.destroy();
+        Thread.currentThread().interrupt();
+        throw new IOException("Interrupted while running " + String.join(" ", command), e);
+      }
+
+      if (status != 0) {
+        String stderr = new String(Files.readAllBytes(stderrFile), StandardCharsets.UTF_8);
+        throw new IOException(String.join(" ", command) + " failed with exit code " + status + ": " + stderr.trim());
+      }
+
+      return stdout;
+    } finally {
+      Files.deleteIfExists(stderrFile);
+    }
+  }
+
+  private static String readFully(InputStream inputStream) throws IOException {
+    try (InputStream input = inputStream) {
+      ByteArrayOutputStream output = new ByteArrayOutputStream();
+      input.transferTo(output);
+      return output.toString(StandardCharsets.UTF_8);
+    }
+  }
+}
@@ -0,0 +1,174 @@
+package com.hubspot.maven.plugins.prettier.internal;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Translates the glob patterns accepted by prettier's CLI into regexes that
+ * match '/' separated paths relative to the project base directory
+ */
+public class Glob {
+  private static final String GLOB_CHARACTERS = "*?[]{}!\\";
+  private static final String REGEX_CHARACTERS = "\\.[]{}()<>*+-=!?^$|";
+
+  private final String pattern;
+  private final boolean negated;
+  private final String baseDirectory;
+  private final Pattern regex;
+
+  private Glob(String pattern, boolean negated, String baseDirectory, Pattern regex) {
+    this.pattern = pattern;
+    this.negated = negated;
+    this.baseDirectory = baseDirectory;
+    this.regex = regex;
+  }
+
+  public static Glob compile(String pattern) {
+    String normalized = pattern;
+    boolean negated = false;
+    if (normalized.startsWith("!")) {
+      negated = true;
+      normalized = normalized.substring(1);
+    }
+    while (normalized.startsWith("./")) {
+      normalized = normalized.substring(2);
+    }
+
+    return new Glob(
+        pattern,
+        negated,
+        staticPrefix(normalized),
+        Pattern.compile(toRegex(normalized))
+    );
+  }
+
+  public static boolean isLiteral(String pattern) {
+    for (int i = 0; i < pattern.length(); i++) {
+      if (GLOB_CHARACTERS.indexOf(pattern.charAt(i)) >= 0) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  public String getPattern() {
+    return pattern;
+  }
+
+  public boolean isNegated() {
+    return negated;
+  }
+
+  /**
+   * The leading directories of the pattern that don't contain any wildcards,
+   * there's no need to walk anything outside of this directory
+   */
+  public String getBaseDirectory() {
+    return baseDirectory;
+  }
+
+  public boolean matches(String relativePath) {
+    return regex.matcher(relativePath).matches();
+  }
+
+  private static String staticPrefix(String pattern) {
+    List<String> segments = new ArrayList<>();
+    String[] parts = pattern.split("/");
+    // the last segment is the file name pattern, never part of the directory
+    for (int i = 0; i < parts.length - 1; i++) {
+      if (!isLiteral(parts[i])) {
+        break;
+      }
+      segments.add(parts[i]);
+    }
+
+    return String.join("/", segments);
+  }
+
+  private static String toRegex(String pattern) {
+    StringBuilder regex = new StringBuilder();
+    int groupDepth = 0;
+
+    for (int i = 0; i < pattern.length(); i++) {
+      char c = pattern.charAt(i);
+      switch (c) {
+        case '*':
+          if (i + 1 < pattern.length() && pattern.charAt(i + 1) == '*' && isSegmentStart(pattern, i)) {
+            i++;
+            if (i + 1 < pattern.length() && pattern.charAt(i + 1) == '/') {
+              // '**/' matches zero or more directories
+              i++;
+              regex.append("(?:[^/]*/)*");
+            } else {
+              regex.append(".*");
+            }
+          } else {
+            regex.append("[^/]*");
+          }
+          break;
+        case '?':
+          regex.append("[^/]");
+          break;
+        case '[':
+          int end = pattern.indexOf(']', i + 1);
+          if (end < 0) {
+            regex.append("\\[");
+          } else {
+            String characterClass = pattern.substring(i + 1, end);
+            if (characterClass.startsWith("!")) {
+              characterClass = "^" + characterClass.substring(1);
+            }
+            regex.append('[').append(characterClass.replace("\\", "\\\\")).append(']');
+            i = end;
+          }
+          break;
+        case '{':
+          groupDepth++;
+          regex.append("(?:");
+          break;
+        case '}':
+          if (groupDepth > 0) {
+            groupDepth--;
+            regex.append(')');
+          } else {
+            regex.append("\\}");
+          }
+          break;
+        case ',':
+          if (groupDepth > 0) {
+            regex.append('|');
+          } else {
+            regex.append(',');
+          }
+          break;
+        case '\\':
+          if (i + 1 < pattern.length()) {
+            i++;
+            appendLiteral(regex, pattern.charAt(i));
+          }
+          break;
+        default:
+          appendLiteral(regex, c);
+      }
+    }
+
+    while (groupDepth-- > 0) {
+      regex.append(')');
+    }
+
+    return regex.toString();
+  }
+
+  private static void appendLiteral(StringBuilder regex, char c) {
+    if (REGEX_CHARACTERS.indexOf(c) >= 0) {
+      regex.append('\\');
+    }
+    regex.append(c);
+  }
+
+  private static boolean isSegmentStart(String pattern, int index) {
+    return index == 0 || pattern.charAt(index - 1) == '/';
+  }
+}
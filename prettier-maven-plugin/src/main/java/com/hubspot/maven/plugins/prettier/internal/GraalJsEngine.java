@@ -0,0 +1,361 @@
+package com.hubspot.maven.plugins.prettier.internal;
+
+import com.hubspot.maven.plugins.prettier.internal.PrettierResult.Status;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Executable;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+
+/**
+ * Runs prettier inside the Maven JVM with GraalJS, so there is no node
+ * process to start. The polyglot API is used reflectively, GraalJS has to be
+ * added as a dependency of the plugin to use this engine.
+ *
+ * Loading prettier and prettier-java into a context is the expensive part,
+ * so contexts are pooled and shared by every mojo execution in the JVM that
+ * uses the same install, like daemons. A context is only ever used by one
+ * thread at a time.
+ */
+public class GraalJsEngine implements PrettierEngine {
+  private static final String LOADER_RESOURCE = "/prettier-embedded.js";
+  private static final Map<List<String>, Deque<Formatter>> POOLS = new HashMap<>();
+
+  static {
+    Runtime.getRuntime().addShutdownHook(new Thread(GraalJsEngine::closeAll, "prettier-graaljs-shutdown"));
+  }
+
+  private final Polyglot polyglot;
+  private final Path prettierDirectory;
+  private final Path pluginPath;
+  private final String optionsJson;
+  private final PhaseTimings phaseTimings;
+  private final Log log;
+
+  /**
+   * Options are passed to prettier as is, config files aren't resolved
+   */
+  public GraalJsEngine(
+      Path prettierDirectory,
+      Path pluginPath,
+      Map<String, Object> options,
+      PhaseTimings phaseTimings,
+      Log log
+  ) throws MojoExecutionException {
+    this.polyglot = Polyglot.load();
+    this.prettierDirectory = prettierDirectory;
+    this.pluginPath = pluginPath;
+    this.optionsJson = Json.toJson(options);
+    this.phaseTimings = phaseTimings;
+    this.log = log;
+  }
+
+  @Override
+  public void run(String mode, Path workingDirectory, List<String> files, Consumer<PrettierResult> resultConsumer)
+    throws IOException {
+    Formatter formatter = acquire();
+    try {
+      for (String file : files) {
+        long start = System.nanoTime();
+        PrettierResult result;
+        try {
+          result = format(formatter, mode, workingDirectory, file, start);
+        } catch (IOException | UncheckedIOException e) {
+          result = new PrettierResult(file, Status.ERROR, elapsedMillis(start), e.getMessage());
+        }
+        resultConsumer.accept(result);
+      }
+    } finally {
+      release(formatter);
+    }
+  }
+
+  public static void closeAll() {
+    synchronized (POOLS) {
+      for (Deque<Formatter> pool : POOLS.values()) {
+        for (Formatter formatter : pool) {
+          formatter.close();
+        }
+      }
+      POOLS.clear();
+    }
+  }
+
+  private PrettierResult format(Formatter formatter, String mode, Path workingDirectory, String file, long start)
+    throws IOException {
+    Path path = workingDirectory.resolve(file).toAbsolutePath();
+    String input = new String(Files.readAllBytes(path), StandardCharsets.UTF_8);
+    String output = formatter.format(input, path.toString().replace('\\', '/'), optionsJson);
+
+    if (output.equals(input)) {
+      return new PrettierResult(file, Status.CLEAN, elapsedMillis(start), null);
+    } else if ("write".equals(mode)) {
+      FileUtils.writeIfChanged(path, output.getBytes(StandardCharsets.UTF_8));
+    } else if ("format".equals(mode)) {
+      return new PrettierResult(file, Status.CHANGED, elapsedMillis(start), null, output);
+    }
+    return new PrettierResult(file, Status.CHANGED, elapsedMillis(start), null);
+  }
+
+  private Formatter acquire() throws IOException {
+    List<String> key = Arrays.asList(prettierDirectory.toString(), pluginPath.toString());
+    synchronized (POOLS) {
+      Formatter formatter = POOLS.computeIfAbsent(key, ignored -> new ArrayDeque<>()).poll();
+      if (formatter != null) {
+        return formatter;
+      }
+    }
+
+    // create outside of the lock, so that shards can load prettier in parallel
+    log.info("Loading prettier into GraalJS");
+    PhaseTimings.Phase engineStartup = phaseTimings.start(PhaseTimings.ENGINE_STARTUP);
+    try {
+      Formatter formatter = new Formatter(polyglot, key, loadLoaderSource(), prettierDirectory, pluginPath);
+      log.debug("GraalJS context is running prettier " + formatter.version);
+      return formatter;
+    } finally {
+      engineStartup.close();
+    }
+  }
+
+  private static void release(Formatter formatter) {
+    synchronized (POOLS) {
+      POOLS.computeIfAbsent(formatter.key, ignored -> new ArrayDeque<>()).push(formatter);
+    }
+  }
+
+  private static String loadLoaderSource() throws IOException {
+    try (InputStream inputStream = GraalJsEngine.class.getResourceAsStream(LOADER_RESOURCE)) {
+      if (inputStream == null) {
+        throw new IOException("Unable to find " + LOADER_RESOURCE);
+      }
+      return new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
+    }
+  }
+
+  private static long elapsedMillis(long start) {
+    return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+  }
+
+  /**
+   * Gives scripts in the context read access to prettier and prettier-java.
+   * These methods are all a context can call, and only files below the
+   * install directory can be read.
+   */
+  public static class Host {
+    private final Path installDirectory;
+
+    private Host(Path installDirectory) {
+      this.installDirectory = installDirectory;
+    }
+
+    public String readFile(String path) throws IOException {
+      Path file = resolve(path);
+      if (file == null) {
+        throw new IOException("Unable to read " + path + ", it is outside of " + installDirectory);
+      }
+      return new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+    }
+
+    public boolean isFile(String path) {
+      Path file = resolve(path);
+      return file != null && Files.isRegularFile(file);
+    }
+
+    public boolean isDirectory(String path) {
+      Path file = resolve(path);
+      return file != null && Files.isDirectory(file);
+    }
+
+    private Path resolve(String path) {
+      Path file = Paths.get(path).toAbsolutePath().normalize();
+      return file.startsWith(installDirectory) ? file : null;
+    }
+  }
+
+  /**
+   * A context with prettier and prettier-java loaded
+   */
+  private static class Formatter {
+    private final Polyglot polyglot;
+    private final List<String> key;
+    private final Object context;
+    private final Object format;
+    private final String version;
+
+    private Formatter(Polyglot polyglot, List<String> key, String loaderSource, Path prettierDirectory, Path pluginPath)
+      throws IOException {
+      this.polyglot = polyglot;
+      this.key = key;
+      this.context = polyglot.newContext();
+
+      try {
+        Object formatter = polyglot.execute(
+            polyglot.eval(context, loaderSource),
+            new Host(installDirectory(prettierDirectory, pluginPath)),
+            prettierDirectory.toAbsolutePath().toString().replace('\\', '/'),
+            pluginPath.toAbsolutePath().toString().replace('\\', '/')
+        );
+        this.format = polyglot.getMember(formatter, "format");
+        this.version = polyglot.asString(polyglot.getMember(formatter, "version"));
+      } catch (IOException | RuntimeException e) {
+        close();
+        throw e;
+      }
+    }
+
+    private String format(String source, String filepath, String optionsJson) throws IOException {
+      Object result = polyglot.execute(format, source, filepath, optionsJson);
+
+      Object error = polyglot.getMember(result, "error");
+      if (error != null && !polyglot.isNull(error)) {
+        throw new IOException(polyglot.asString(error));
+      }
+      Object formatted = polyglot.getMember(result, "formatted");
+      if (formatted == null || polyglot.isNull(formatted)) {
+        throw new IOException("Prettier didn't finish formatting " + filepath);
+      }
+      return polyglot.asString(formatted);
+    }
+
+    private void close() {
+      polyglot.close(context);
+    }
+
+    /**
+     * The closest directory containing both prettier and prettier-java
+     */
+    private static Path installDirectory(Path prettierDirectory, Path pluginPath) {
+      Path plugin = pluginPath.toAbsolutePath().normalize();
+      Path directory = prettierDirectory.toAbsolutePath().normalize();
+      while (!plugin.startsWith(directory)) {
+        directory = directory.getParent();
+      }
+      return directory;
+    }
+  }
+
+  /**
+   * The parts of the GraalVM polyglot API that are used, looked up reflectively
+   */
+  private static class Polyglot {
+    private static final String MISSING_MESSAGE =
+      "The graaljs engine needs org.graalvm.polyglot:polyglot and org.graalvm.polyglot:js as dependencies of the plugin";
+
+    private final Method newBuilder;
+    private final Method allowHostAccess;
+    private final Object hostAccess;
+    private final Method option;
+    private final Method build;
+    private final Method eval;
+    private final Method close;
+    private final Method execute;
+    private final Method getMember;
+    private final Method isNull;
+    private final Method asString;
+
+    private Polyglot(ClassLoader classLoader) throws ReflectiveOperationException {
+      Class<?> contextClass = Class.forName("org.graalvm.polyglot.Context", true, classLoader);
+      Class<?> builderClass = Class.forName("org.graalvm.polyglot.Context$Builder", true, classLoader);
+      Class<?> valueClass = Class.forName("org.graalvm.polyglot.Value", true, classLoader);
+      Class<?> hostAccessClass = Class.forName("org.graalvm.polyglot.HostAccess", true, classLoader);
+      Class<?> hostAccessBuilderClass = Class.forName("org.graalvm.polyglot.HostAccess$Builder", true, classLoader);
+
+      this.newBuilder = contextClass.getMethod("newBuilder", String[].class);
+      this.allowHostAccess = builderClass.getMethod("allowHostAccess", hostAccessClass);
+      this.option = builderClass.getMethod("option", String.class, String.class);
+      this.build = builderClass.getMethod("build");
+      this.eval = contextClass.getMethod("eval", String.class, CharSequence.class);
+      this.close = contextClass.getMethod("close");
+      this.execute = valueClass.getMethod("execute", Object[].class);
+      this.getMember = valueClass.getMethod("getMember", String.class);
+      this.isNull = valueClass.getMethod("isNull");
+      this.asString = valueClass.getMethod("asString");
+
+      // the public methods of the host object, and nothing else of the JVM
+      Object hostAccessBuilder = hostAccessClass.getMethod("newBuilder").invoke(null);
+      Method allowAccess = hostAccessBuilderClass.getMethod("allowAccess", Executable.class);
+      for (Method method : Host.class.getDeclaredMethods()) {
+        if (Modifier.isPublic(method.getModifiers())) {
+          allowAccess.invoke(hostAccessBuilder, method);
+        }
+      }
+      this.hostAccess = hostAccessBuilderClass.getMethod("build").invoke(hostAccessBuilder);
+    }
+
+    private static Polyglot load() throws MojoExecutionException {
+      try {
+        return new Polyglot(GraalJsEngine.class.getClassLoader());
+      } catch (ReflectiveOperationException | LinkageError e) {
+        throw new MojoExecutionException(MISSING_MESSAGE, e);
+      }
+    }
+
+    private Object newContext() throws IOException {
+      Object builder = invoke(newBuilder, null, (Object) new String[] { "js" });
+      // scripts get no file system, threads, environment or host classes, only the host object
+      builder = invoke(allowHostAccess, builder, hostAccess);
+      // running on a JVM without the Graal compiler is slower, but works
+      builder = invoke(option, builder, "engine.WarnInterpreterOnly", "false");
+      return invoke(build, builder);
+    }
+
+    private Object eval(Object context, String source) throws IOException {
+      return invoke(eval, context, "js", source);
+    }
+
+    private Object execute(Object value, Object... arguments) throws IOException {
+      return invoke(execute, value, (Object) arguments);
+    }
+
+    private Object getMember(Object value, String name) throws IOException {
+      return invoke(getMember, value, name);
+    }
+
+    private boolean isNull(Object value) throws IOException {
+      return (Boolean) invoke(isNull, value);
+    }
+
+    private String asString(Object value) throws IOException {
+      return (String) invoke(asString, value);
+    }
+
+    private void close(Object context) {
+      try {
+        invoke(close, context);
+      } catch (IOException e) {
+        // nothing left to do with the context anyway
+      }
+    }
+
+    /**
+     * Exceptions thrown by scripts (PolyglotException) become IOExceptions
+     */
+    private static Object invoke(Method method, Object target, Object... arguments) throws IOException {
+      try {
+        return method.invoke(target, arguments);
+      } catch (InvocationTargetException e) {
+        Throwable cause = e.getCause();
+        throw new IOException(cause.getMessage() == null ? cause.toString() : cause.getMessage(), cause);
+      } catch (IllegalAccessException e) {
+        throw new IOException("Unable to call " + method, e);
+      }
+    }
+  }
+}
@@ -0,0 +1,78 @@
+package com.hubspot.maven.plugins.prettier.internal;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+public class HashBuilder {
+  private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+  private final MessageDigest digest;
+
+  public HashBuilder() {
+    this.digest = newDigest();
+  }
+
+  public HashBuilder putString(String value) {
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    putLength(bytes.length);
+    digest.update(bytes);
+    return this;
+  }
+
+  public HashBuilder putFile(Path file) throws IOException {
+    putString(file.toString());
+    putString(Long.toString(Files.size(file)));
+    update(digest, file);
+    return this;
+  }
+
+  public String hash() {
+    return toHex(digest.digest());
+  }
+
+  public static String hashFile(Path file) throws IOException {
+    MessageDigest digest = newDigest();
+    update(digest, file);
+    return toHex(digest.digest());
+  }
+
+  public static MessageDigest newDigest() {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 should always be available", e);
+    }
+  }
+
+  public static String toHex(byte[] bytes) {
+    char[] hex = new char[bytes.length * 2];
+    for (int i = 0; i < bytes.length; i++) {
+      hex[i * 2] = HEX_DIGITS[(bytes[i] >> 4) & 0xF];
+      hex[i * 2 + 1] = HEX_DIGITS[bytes[i] & 0xF];
+    }
+    return new String(hex);
+  }
+
+  private void putLength(int length) {
+    // length prefix so that ("ab", "c") and ("a", "bc") hash differently
+    digest.update((byte) (length >>> 24));
+    digest.update((byte) (length >>> 16));
+    digest.update((byte) (length >>> 8));
+    digest.update((byte) length);
+  }
+
+  private static void update(MessageDigest digest, Path file) throws IOException {
+    byte[] buffer = new byte[8192];
+    try (InputStream inputStream = Files.newInputStream(file)) {
+      int read;
+      while ((read = inputStream.read(buffer)) != -1) {
+        digest.update(buffer, 0, read);
+      }
+    }
+  }
+}
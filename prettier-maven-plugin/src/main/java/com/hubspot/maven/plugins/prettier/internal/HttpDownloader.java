@@ -0,0 +1,400 @@
+package com.hubspot.maven.plugins.prettier.internal;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import org.apache.maven.plugin.logging.Log;
+
+/**
+ * Downloads a file that's available from an ordered list of mirrors. All
+ * mirrors are probed first, and the fastest one that has the file is
+ * preferred. If it supports range requests, the file is split into chunks
+ * that are downloaded in parallel, each into its own part file. Part files
+ * survive a failed build, so the next attempt resumes where it left off. A
+ * chunk that fails is retried with the next mirror.
+ */
+public class HttpDownloader {
+  private static final String PART_SUFFIX = ".part";
+  private static final long STALE_PART_MILLIS = TimeUnit.DAYS.toMillis(1);
+  private static final long RETRY_DELAY_MILLIS = 250;
+
+  private final DownloadSettings settings;
+  private final OkHttpClient httpClient;
+  private final Path partDirectory;
+  private final Log log;
+
+  public HttpDownloader(DownloadSettings settings, Path partDirectory, Log log) {
+    this.settings = settings;
+    this.httpClient = settings.newHttpClient();
+    this.partDirectory = partDirectory;
+    this.log = log;
+  }
+
+  /**
+   * Downloads the file to target, returns false if none of the mirrors have it
+   */
+  public boolean download(List<String> urls, Path target) throws IOException {
+    List<Probe> probes = probe(urls);
+    if (probes.stream().allMatch(probe -> probe.code == 404)) {
+      log.debug("Got 404 from every mirror of " + fileName(urls.get(0)));
+      return false;
+    }
+
+    List<Probe> mirrors = orderMirrors(probes);
+    Probe preferred = mirrors.get(0);
+    boolean ranges = preferred.acceptsRanges && preferred.length > 0;
+    log.debug(
+        "Downloading " + fileName(preferred.url) + " from " + preferred.url +
+        (preferred.length >= 0 ? " (" + preferred.length + " bytes" + (ranges ? ", in ranges)" : ")") : "")
+    );
+
+    Files.createDirectories(partDirectory);
+    deleteStaleParts();
+
+    List<Chunk> chunks = chunks(urls.get(0), preferred, ranges);
+    runChunks(chunks, mirrors);
+
+    Path tmpFile = Files.createTempFile(target.toAbsolutePath().getParent(), target.getFileName() + "-", ".tmp");
+    try {
+      try (OutputStream outputStream = Files.newOutputStream(tmpFile)) {
+        for (Chunk chunk : chunks) {
+          Files.copy(chunk.part, outputStream);
+        }
+      }
+
+      if (preferred.length >= 0 && Files.size(tmpFile) != preferred.length) {
+        throw new IOException(
+            "Downloaded " + Files.size(tmpFile) + " bytes of " + fileName(preferred.url) + ", expected " + preferred.length
+        );
+      }
+      Files.move(tmpFile, target, StandardCopyOption.REPLACE_EXISTING);
+    } finally {
+      Files.deleteIfExists(tmpFile);
+      for (Chunk chunk : chunks) {
+        Files.deleteIfExists(chunk.part);
+      }
+    }
+
+    return true;
+  }
+
+  /**
+   * Fetches a small text file from the first mirror that has it
+   */
+  public Optional<String> fetchString(List<String> urls) throws IOException {
+    IOException failure = null;
+    for (String url : urls) {
+      Request request = new Request.Builder().url(url).build();
+      try (Response response = httpClient.newCall(request).execute()) {
+        if (response.code() == 404) {
+          continue;
+        } else if (!response.isSuccessful()) {
+          throw new IOException("Got response code " + response.code() + " from " + url);
+        }
+        return Optional.of(body(response).string());
+      } catch (IOException e) {
+        log.debug("Unable to fetch " + url + ": " + e.getMessage());
+        failure = e;
+      }
+    }
+
+    if (failure != null) {
+      throw failure;
+    }
+    return Optional.empty();
+  }
+
+  private List<Probe> probe(List<String> urls) throws IOException {
+    List<CompletableFuture<Probe>> futures = new ArrayList<>();
+    for (String url : urls) {
+      CompletableFuture<Probe> future = new CompletableFuture<>();
+      long start = System.nanoTime();
+      httpClient
+          .newCall(new Request.Builder().url(url).head().build())
+          .enqueue(
+              new Callback() {
+
+                @Override
+                public void onFailure(Call call, IOException e) {
+                  log.debug("Unable to reach mirror " + url + ": " + e.getMessage());
+                  future.complete(new Probe(url, -1, -1, false, Long.MAX_VALUE));
+                }
+
+                @Override
+                public void onResponse(Call call, Response response) {
+                  try (response) {
+                    long length = -1;
+                    String contentLength = response.header("Content-Length");
+                    if (contentLength != null) {
+                      try {
+                        length = Long.parseLong(contentLength.trim());
+                      } catch (NumberFormatException e) {
+                        length = -1;
+                      }
+                    }
+                    boolean acceptsRanges = "bytes".equalsIgnoreCase(response.header("Accept-Ranges"));
+                    future.complete(new Probe(url, response.code(), length, acceptsRanges, System.nanoTime() - start));
+                  }
+                }
+              }
+          );
+      futures.add(future);
+    }
+
+    List<Probe> probes = new ArrayList<>();
+    for (CompletableFuture<Probe> future : futures) {
+      try {
+        probes.add(future.get());
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IOException("Interrupted while probing mirrors", e);
+      } catch (ExecutionException e) {
+        throw new IOException("Error probing mirrors", e.getCause());
+      }
+    }
+    return probes;
+  }
+
+  /**
+   * Mirrors that answered first come first. Mirrors that couldn't be probed
+   * (some don't allow HEAD) are still tried as a last resort, in the
+   * configured order.
+   */
+  private static List<Probe> orderMirrors(List<Probe> probes) {
+    List<Probe> available = new ArrayList<>();
+    List<Probe> unknown = new ArrayList<>();
+    for (Probe probe : probes) {
+      if (probe.code >= 200 && probe.code < 300) {
+        available.add(probe);
+      } else if (probe.code != 404) {
+        unknown.add(probe);
+      }
+    }
+    available.sort(Comparator.comparingLong(probe -> probe.latencyNanos));
+
+    // a mirror with a different length is out of date, or serving an error page
+    if (!available.isEmpty() && available.get(0).length >= 0) {
+      long length = available.get(0).length;
+      available.removeIf(probe -> probe.length >= 0 && probe.length != length);
+    }
+
+    List<Probe> mirrors = new ArrayList<>(available);
+    mirrors.addAll(unknown);
+    return mirrors;
+  }
+
+  private List<Chunk> chunks(String url, Probe preferred, boolean ranges) throws IOException {
+    String partPrefix = partPrefix(url, preferred.length);
+    List<Chunk> chunks = new ArrayList<>();
+    if (!ranges) {
+      Path part = partDirectory.resolve(partPrefix + ".0" + PART_SUFFIX);
+      // without ranges there's nothing to resume from
+      Files.deleteIfExists(part);
+      chunks.add(new Chunk(part, 0, -1));
+      return chunks;
+    }
+
+    long chunkSize = settings.getChunkSizeBytes();
+    for (long start = 0; start < preferred.length; start += chunkSize) {
+      Path part = partDirectory.resolve(partPrefix + "." + chunks.size() + PART_SUFFIX);
+      chunks.add(new Chunk(part, start, Math.min(chunkSize, preferred.length - start)));
+    }
+    return chunks;
+  }
+
+  private void runChunks(List<Chunk> chunks, List<Probe> mirrors) throws IOException {
+    if (chunks.size() == 1) {
+      downloadChunk(chunks.get(0), mirrors);
+      return;
+    }
+
+    AtomicInteger threadCount = new AtomicInteger(0);
+    ExecutorService executor = Executors.newFixedThreadPool(
+        Math.min(settings.getThreads(), chunks.size()),
+        runnable -> {
+          Thread thread = new Thread(runnable, "prettier-download-" + threadCount.incrementAndGet());
+          thread.setDaemon(true);
+          return thread;
+        }
+    );
+
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (Chunk chunk : chunks) {
+        futures.add(
+            executor.submit(
+                () -> {
+                  downloadChunk(chunk, mirrors);
+                  return null;
+                }
+            )
+        );
+      }
+
+      for (Future<?> future : futures) {
+        try {
+          future.get();
+        } catch (ExecutionException e) {
+          if (e.getCause() instanceof IOException) {
+            throw (IOException) e.getCause();
+          }
+          throw new IOException("Error downloading " + chunks.get(0).part.getFileName(), e.getCause());
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while downloading", e);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private void downloadChunk(Chunk chunk, List<Probe> mirrors) throws IOException {
+    int attempts = Math.max(settings.getRetries() + 1, mirrors.size());
+    for (int attempt = 0; ; attempt++) {
+      String url = mirrors.get(attempt % mirrors.size()).url;
+      try {
+        fetchChunk(url, chunk);
+        return;
+      } catch (IOException e) {
+        if (attempt + 1 >= attempts) {
+          throw new IOException("Error downloading " + url + " after " + attempts + " attempts", e);
+        }
+        log.debug("Error downloading " + url + ", going to retry: " + e.getMessage());
+      }
+
+      try {
+        Thread.sleep(RETRY_DELAY_MILLIS << Math.min(attempt, 4));
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IOException("Interrupted while downloading " + url, e);
+      }
+    }
+  }
+
+  /**
+   * Appends the missing bytes of the chunk to its part file
+   */
+  private void fetchChunk(String url, Chunk chunk) throws IOException {
+    long existing = Files.exists(chunk.part) ? Files.size(chunk.part) : 0;
+    if (chunk.length >= 0 && existing == chunk.length) {
+      return;
+    } else if (chunk.length < 0 || existing > chunk.length) {
+      Files.deleteIfExists(chunk.part);
+      existing = 0;
+    }
+
+    Request.Builder request = new Request.Builder().url(url);
+    if (chunk.length >= 0) {
+      request.header("Range", "bytes=" + (chunk.start + existing) + "-" + (chunk.start + chunk.length - 1));
+    }
+
+    try (Response response = httpClient.newCall(request.build()).execute()) {
+      if (response.code() == 200 && chunk.length >= 0 && (chunk.start > 0 || existing > 0)) {
+        throw new IOException("Mirror ignored the range request");
+      } else if (!response.isSuccessful()) {
+        throw new IOException("Got response code " + response.code());
+      }
+
+      try (
+          InputStream inputStream = body(response).byteStream();
+          OutputStream outputStream = Files.newOutputStream(
+              chunk.part,
+              StandardOpenOption.CREATE,
+              StandardOpenOption.WRITE,
+              response.code() == 206 ? StandardOpenOption.APPEND : StandardOpenOption.TRUNCATE_EXISTING
+          )
+      ) {
+        inputStream.transferTo(outputStream);
+      }
+    }
+
+    if (chunk.length >= 0 && Files.size(chunk.part) != chunk.length) {
+      throw new IOException("Connection closed after " + Files.size(chunk.part) + " of " + chunk.length + " bytes");
+    }
+  }
+
+  private void deleteStaleParts() throws IOException {
+    try (DirectoryStream<Path> parts = Files.newDirectoryStream(partDirectory, "*" + PART_SUFFIX)) {
+      for (Path part : parts) {
+        if (System.currentTimeMillis() - Files.getLastModifiedTime(part).toMillis() > STALE_PART_MILLIS) {
+          Files.deleteIfExists(part);
+        }
+      }
+    }
+  }
+
+  private static ResponseBody body(Response response) throws IOException {
+    ResponseBody body = response.body();
+    if (body == null) {
+      throw new IOException("Null body returned for response: " + response);
+    }
+    return body;
+  }
+
+  /**
+   * Parts are keyed by the first url rather than the mirror they came from,
+   * so that a retry can resume them from any mirror. The hash keeps files
+   * with the same name and length from different urls apart.
+   */
+  static String partPrefix(String url, long length) {
+    return fileName(url) + "-" + new HashBuilder().putString(url).hash().substring(0, 16) + "-" + length;
+  }
+
+  private static String fileName(String url) {
+    String path = url.replaceAll("[?#].*$", "");
+    return path.substring(path.lastIndexOf('/') + 1);
+  }
+
+  private static class Probe {
+    private final String url;
+    private final int code;
+    private final long length;
+    private final boolean acceptsRanges;
+    private final long latencyNanos;
+
+    private Probe(String url, int code, long length, boolean acceptsRanges, long latencyNanos) {
+      this.url = url;
+      this.code = code;
+      this.length = length;
+      this.acceptsRanges = acceptsRanges;
+      this.latencyNanos = latencyNanos;
+    }
+  }
+
+  private static class Chunk {
+    private final Path part;
+    private final long start;
+    // -1 if the length of the file is unknown
+    private final long length;
+
+    private Chunk(Path part, long start, long length) {
+      this.part = part;
+      this.start = start;
+      this.length = length;
+    }
+  }
+}
@@ -0,0 +1,208 @@
+package com.hubspot.maven.plugins.prettier.internal;
+
+import java.io.IOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+
+/**
+ * Expands prettier input globs into the list of files they match, following
+ * the same conventions as prettier's CLI (dot files are matched, VCS and
+ * node_modules directories are skipped, .prettierignore is honored). The
+ * directory tree is walked in parallel on the common ForkJoin pool.
+ */
+public class InputFileScanner {
+  private static final Set<String> IGNORED_DIRECTORIES = new HashSet<>(
+      Arrays.asList("node_modules", ".git", ".svn", ".hg", ".sl", ".jj")
+  );
+
+  // extensions that prettier (plus prettier-java) will format when passed a directory
+  private static final String DIRECTORY_EXTENSIONS =
+      "{java,js,jsx,mjs,cjs,ts,tsx,mts,cts,json,json5,css,scss,less,md,markdown,mdx,yaml,yml,html,htm,vue,graphql,gql,hbs,handlebars}";
+
+  private final Path baseDirectory;
+  private final Log log;
+  private PrettierIgnore prettierIgnore;
+
+  public InputFileScanner(Path baseDirectory, Log log) {
+    this.baseDirectory = baseDirectory.toAbsolutePath().normalize();
+    this.log = log;
+  }
+
+  public List<Path> scan(List<String> inputGlobs) throws MojoExecutionException {
+    long start = System.nanoTime();
+    try {
+      prettierIgnore = PrettierIgnore.load(baseDirectory);
+    } catch (IOException e) {
+      throw new MojoExecutionException("Error reading " + PrettierIgnore.FILE_NAME, e);
+    }
+
+    List<Glob> includes = new ArrayList<>();
+    List<Glob> excludes = new ArrayList<>();
+    for (String inputGlob : inputGlobs) {
+      Glob glob = Glob.compile(toGlob(inputGlob));
+      if (glob.isNegated()) {
+        excludes.add(glob);
+      } else {
+        includes.add(glob);
+      }
+    }
+
+    Set<Path> files = new TreeSet<>();
+    for (Glob include : includes) {
+      List<Path> matches = scan(include, excludes);
+      if (matches.isEmpty()) {
+        log.info(String.format("No files matching the pattern were found: \"%s\".", include.getPattern()));
+      }
+
+      files.addAll(matches);
+    }
+
+    log.debug(
+        "Found " + files.size() + " files matching " + inputGlobs + " in " +
+        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + "ms"
+    );
+    return new ArrayList<>(files);
+  }
+
+  public String relativize(Path file) {
+    return toUnixPath(baseDirectory.relativize(file));
+  }
+
+  private List<Path> scan(Glob include, List<Glob> excludes) throws MojoExecutionException {
+    if (Glob.isLiteral(include.getPattern())) {
+      Path file = baseDirectory.resolve(include.getPattern()).normalize();
+      List<Path> matches = new ArrayList<>();
+      String relativePath = relativize(file);
+      if (
+        Files.isRegularFile(file) &&
+        !isExcluded(relativePath, excludes) &&
+        !prettierIgnore.isIgnored(relativePath)
+      ) {
+        matches.add(file);
+      }
+      return matches;
+    }
+
+    Path root = baseDirectory.resolve(include.getBaseDirectory()).normalize();
+    if (!Files.isDirectory(root) || prettierIgnore.isIgnoredDirectory(relativize(root))) {
+      return new ArrayList<>();
+    }
+
+    return ForkJoinPool.commonPool().invoke(new DirectoryScan(root, include, excludes));
+  }
+
+  /**
+   * Lists a directory and forks a task per subdirectory, so that large trees
+   * are walked by several threads at once
+   */
+  private class DirectoryScan extends RecursiveTask<List<Path>> {
+    private static final long serialVersionUID = 1L;
+
+    private final Path directory;
+    private final Glob include;
+    private final List<Glob> excludes;
+
+    private DirectoryScan(Path directory, Glob include, List<Glob> excludes) {
+      this.directory = directory;
+      this.include = include;
+      this.excludes = excludes;
+    }
+
+    @Override
+    protected List<Path> compute() {
+      List<Path> matches = new ArrayList<>();
+      List<DirectoryScan> subdirectories = new ArrayList<>();
+
+      try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory)) {
+        for (Path entry : entries) {
+          BasicFileAttributes attrs = readAttributes(entry);
+          if (attrs == null) {
+            continue;
+          }
+
+          String relativePath = relativize(entry);
+          if (attrs.isDirectory()) {
+            String name = entry.getFileName().toString();
+            if (!IGNORED_DIRECTORIES.contains(name) && !prettierIgnore.isIgnored(relativePath, true)) {
+              DirectoryScan subdirectory = new DirectoryScan(entry, include, excludes);
+              subdirectory.fork();
+              subdirectories.add(subdirectory);
+            }
+          } else if (
+            attrs.isRegularFile() &&
+            include.matches(relativePath) &&
+            !isExcluded(relativePath, excludes) &&
+            !prettierIgnore.isIgnored(relativePath, false)
+          ) {
+            matches.add(entry);
+          }
+        }
+      } catch (IOException | DirectoryIteratorException e) {
+        log.debug("Unable to read " + directory + ": " + e.getMessage());
+      }
+
+      for (DirectoryScan subdirectory : subdirectories) {
+        matches.addAll(subdirectory.join());
+      }
+      return matches;
+    }
+  }
+
+  /**
+   * Symlinks to files are followed, but symlinks to directories aren't, to avoid cycles
+   */
+  private BasicFileAttributes readAttributes(Path entry) {
+    try {
+      BasicFileAttributes attrs = Files.readAttributes(entry, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+      if (attrs.isSymbolicLink()) {
+        BasicFileAttributes target = Files.readAttributes(entry, BasicFileAttributes.class);
+        return target.isRegularFile() ? target : null;
+      }
+      return attrs;
+    } catch (IOException e) {
+      log.debug("Unable to read " + entry + ": " + e.getMessage());
+      return null;
+    }
+  }
+
+  /**
+   * prettier treats a path to an existing directory as all of the supported files it contains
+   */
+  private String toGlob(String inputGlob) {
+    if (Glob.isLiteral(inputGlob) && Files.isDirectory(baseDirectory.resolve(inputGlob))) {
+      String directory = inputGlob.endsWith("/") ? inputGlob : inputGlob + "/";
+      return directory + "**/*." + DIRECTORY_EXTENSIONS;
+    } else {
+      return inputGlob;
+    }
+  }
+
+  private static boolean isExcluded(String relativePath, List<Glob> excludes) {
+    for (Glob exclude : excludes) {
+      if (exclude.matches(relativePath)) {
+        return true;
+      }
+    }
+
+    return false;
+  }
+
+  private static String toUnixPath(Path path) {
+    return path.toString().replace('\\', '/');
+  }
+}
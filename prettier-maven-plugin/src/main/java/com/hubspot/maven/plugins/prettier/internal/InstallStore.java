@@ -0,0 +1,521 @@
+package com.hubspot.maven.plugins.prettier.internal;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+
+/**
+ * Content-addressed store for node and prettier-java installs, shared by
+ * every version of the plugin. Entries are keyed by a hash of everything
+ * that determines their contents, so upgrading the plugin doesn't mean
+ * downloading node and running npm install again.
+ *
+ * Every JVM using an entry holds a shared file lock on it for as long as it
+ * runs, and eviction only moves an entry away while holding that lock
+ * exclusively. When the store grows beyond its size budget, the least
+ * recently used entries that nobody uses are evicted. Users also leave a
+ * lease file named after their host and pid in the entry, which shows who
+ * uses it and lets eviction skip entries without trying their lock.
+ *
+ * Installing an entry takes a lock for just that entry, which is a file lock
+ * so that it also excludes other Maven processes sharing the local
+ * repository. Entries that are already installed don't take that lock.
+ */
+public class InstallStore {
+  private static final String MARKER_FILE_NAME = ".prettier-store";
+  private static final String LEASES_DIRECTORY_NAME = ".leases";
+  private static final String LOCKS_DIRECTORY_NAME = ".locks";
+  private static final String CACHES_DIRECTORY_NAME = ".caches";
+  private static final String TMP_PREFIX = ".tmp-";
+  private static final String TRASH_PREFIX = ".trash-";
+  private static final long STALE_TMP_DIRECTORY_MILLIS = TimeUnit.DAYS.toMillis(1);
+
+  // entries this JVM already holds a lease on
+  private static final Set<Path> LEASED = ConcurrentHashMap.newKeySet();
+  // shared locks of the entries this JVM uses, held until it exits
+  private static final Map<Path, FileLock> USE_LOCKS = new ConcurrentHashMap<>();
+  // file locks are held by the whole JVM, so threads need to be excluded separately
+  private static final ConcurrentHashMap<Path, ReentrantLock> THREAD_LOCKS = new ConcurrentHashMap<>();
+
+  private final Path directory;
+  private final long maxSizeBytes;
+  private final Log log;
+
+  public interface Installer {
+    void install(Path directory) throws IOException, MojoExecutionException;
+  }
+
+  public InstallStore(Path directory, long maxSizeBytes, Log log) {
+    this.directory = directory;
+    this.maxSizeBytes = maxSizeBytes;
+    this.log = log;
+  }
+
+  /**
+   * Directory for caches of an entry, like the V8 compile cache. It is next
+   * to the entry rather than in it, so that entries stay as installed, but
+   * counts towards the entry's size and is evicted with it.
+   */
+  public Path cacheDirectory(Path entry) {
+    return directory.resolve(CACHES_DIRECTORY_NAME).resolve(entry.getFileName().toString());
+  }
+
+  /**
+   * Returns the directory of the entry for this key, running the installer
+   * in a temporary directory first if there is no valid entry yet
+   */
+  public Path install(String name, String key, Predicate<Path> isValid, Installer installer)
+    throws MojoExecutionException {
+    Path entry = directory.resolve(name + "-" + new HashBuilder().putString(key).hash().substring(0, 12));
+
+    try {
+      if (isInstalled(entry, isValid)) {
+        // eviction needs the use lock exclusively, so once this JVM holds it an
+        // entry that is still installed stays where it is
+        lockForUse(entry);
+        if (isInstalled(entry, isValid) && tryAcquireLease(entry)) {
+          log.debug("Reusing " + name + " from install store at: " + entry);
+          return entry;
+        }
+        log.debug("Install store entry " + entry + " was evicted concurrently");
+        releaseLease(entry);
+      }
+
+      Files.createDirectories(directory, OperatingSystemFamily.current().getGlobalPermissions());
+      EntryLock lock = lock(entry, true);
+      try {
+        if (isInstalled(entry, isValid)) {
+          log.debug("Reusing " + name + " installed concurrently at: " + entry);
+        } else {
+          if (Files.exists(entry)) {
+            log.warn("Corrupted install at " + entry + ", going to delete and re-install");
+            FileUtils.deleteDirectory(entry);
+            deleteCache(entry);
+            LEASED.remove(entry);
+          }
+
+          Path tmpDir = Files.createTempDirectory(
+              directory,
+              TMP_PREFIX + name + "-",
+              OperatingSystemFamily.current().getGlobalPermissions()
+          );
+          try {
+            installer.install(tmpDir);
+            writeMarker(tmpDir, key, sizeOf(tmpDir));
+          } catch (IOException | MojoExecutionException | RuntimeException e) {
+            FileUtils.deleteDirectory(tmpDir);
+            throw e;
+          }
+
+          // only builds from before per-entry locks could have installed it in the meantime, theirs wins
+          FileUtils.move(tmpDir, entry);
+          log.debug("Added " + name + " to install store at: " + entry);
+        }
+
+        lockForUse(entry);
+        acquireLease(entry);
+      } finally {
+        lock.close();
+      }
+
+      evict(entry);
+    } catch (IOException e) {
+      throw new MojoExecutionException("Error installing " + name + " to " + directory, e);
+    }
+
+    return entry;
+  }
+
+  private static boolean isInstalled(Path entry, Predicate<Path> isValid) {
+    return Files.exists(entry.resolve(MARKER_FILE_NAME)) && isValid.test(entry);
+  }
+
+  /**
+   * Locks the entry against installs and evictions by other threads and
+   * processes. Returns null if it's locked already and wait is false.
+   */
+  private EntryLock lock(Path entry, boolean wait) throws IOException {
+    ReentrantLock threadLock = THREAD_LOCKS.computeIfAbsent(entry, ignored -> new ReentrantLock());
+    if (!threadLock.tryLock()) {
+      if (!wait) {
+        return null;
+      }
+      log.debug("Waiting for another thread to install " + entry.getFileName());
+      threadLock.lock();
+    }
+
+    FileChannel channel = null;
+    try {
+      Path locks = directory.resolve(LOCKS_DIRECTORY_NAME);
+      Files.createDirectories(locks);
+      // lock files are never deleted, another process might be about to lock it
+      channel = FileChannel.open(
+          locks.resolve(entry.getFileName() + ".lock"),
+          StandardOpenOption.CREATE,
+          StandardOpenOption.WRITE
+      );
+
+      FileLock fileLock = channel.tryLock();
+      if (fileLock == null) {
+        if (!wait) {
+          channel.close();
+          threadLock.unlock();
+          return null;
+        }
+        log.info("Waiting for another build to install " + entry.getFileName());
+        fileLock = channel.lock();
+      }
+
+      return new EntryLock(threadLock, channel, fileLock);
+    } catch (IOException | RuntimeException e) {
+      if (channel != null) {
+        channel.close();
+      }
+      threadLock.unlock();
+      throw e;
+    }
+  }
+
+  /**
+   * Takes a shared lock on the entry, which blocks while it is being evicted
+   */
+  private void lockForUse(Path entry) throws IOException {
+    if (USE_LOCKS.containsKey(entry)) {
+      return;
+    }
+
+    // a JVM can only hold one lock on a file, this also excludes evict in other threads
+    synchronized (USE_LOCKS) {
+      if (USE_LOCKS.containsKey(entry)) {
+        return;
+      }
+
+      FileChannel channel = openUseLock(entry);
+      try {
+        USE_LOCKS.put(entry, channel.lock(0, Long.MAX_VALUE, true));
+      } catch (IOException | RuntimeException e) {
+        channel.close();
+        throw e;
+      }
+    }
+  }
+
+  private FileChannel openUseLock(Path entry) throws IOException {
+    Path locks = directory.resolve(LOCKS_DIRECTORY_NAME);
+    Files.createDirectories(locks);
+    return FileChannel.open(
+        locks.resolve(entry.getFileName() + ".use"),
+        StandardOpenOption.CREATE,
+        StandardOpenOption.READ,
+        StandardOpenOption.WRITE
+    );
+  }
+
+  /**
+   * Returns false if the entry disappeared, without recreating its directory
+   */
+  private boolean tryAcquireLease(Path entry) throws IOException {
+    try {
+      acquireLease(entry);
+      return true;
+    } catch (NoSuchFileException e) {
+      return false;
+    }
+  }
+
+  private void acquireLease(Path entry) throws IOException {
+    if (LEASED.contains(entry)) {
+      return;
+    }
+
+    Path leases = entry.resolve(LEASES_DIRECTORY_NAME);
+    Path lease = leases.resolve(leaseFileName());
+    try {
+      Files.createDirectory(leases);
+    } catch (FileAlreadyExistsException e) {
+      // another build leased it before
+    }
+    try {
+      Files.createFile(lease);
+    } catch (FileAlreadyExistsException e) {
+      // another thread of this JVM got here first
+    }
+    if (LEASED.add(entry)) {
+      lease.toFile().deleteOnExit();
+    }
+
+    Path marker = entry.resolve(MARKER_FILE_NAME);
+    Files.setLastModifiedTime(marker, FileTime.fromMillis(System.currentTimeMillis()));
+  }
+
+  private static void releaseLease(Path entry) throws IOException {
+    LEASED.remove(entry);
+    Files.deleteIfExists(entry.resolve(LEASES_DIRECTORY_NAME).resolve(leaseFileName()));
+  }
+
+  private static String leaseFileName() {
+    return LocalHost.NAME + "-" + ProcessHandle.current().pid();
+  }
+
+  private void evict(Path current) throws IOException, MojoExecutionException {
+    List<Entry> entries = new ArrayList<>();
+    long totalSize = 0;
+
+    try (DirectoryStream<Path> children = Files.newDirectoryStream(directory)) {
+      for (Path child : children) {
+        String fileName = child.getFileName().toString();
+        if (fileName.startsWith(TMP_PREFIX) || fileName.startsWith(TRASH_PREFIX)) {
+          deleteIfStale(child);
+          continue;
+        }
+
+        Optional<Entry> entry = readEntry(child);
+        if (entry.isPresent()) {
+          entries.add(entry.get());
+          totalSize += entry.get().size;
+        }
+      }
+    }
+
+    if (totalSize <= maxSizeBytes) {
+      return;
+    }
+
+    entries.sort(Comparator.comparing(entry -> entry.lastUsed));
+    for (Entry entry : entries) {
+      if (totalSize <= maxSizeBytes) {
+        break;
+      } else if (entry.directory.equals(current) || hasLiveLeases(entry.directory)) {
+        continue;
+      }
+
+      // move it out of the way first, so nobody picks up a half deleted entry
+      Path trash = directory.resolve(TRASH_PREFIX + entry.directory.getFileName());
+      try (EntryLock lock = lock(entry.directory, false)) {
+        if (lock == null || hasLiveLeases(entry.directory) || !moveUnused(entry.directory, trash)) {
+          // being (re)installed or used right now, older plugin versions only leave a lease
+          continue;
+        }
+      } catch (IOException e) {
+        log.debug("Unable to evict " + entry.directory + ": " + e.getMessage());
+        continue;
+      }
+
+      FileUtils.deleteDirectory(trash);
+      deleteCache(entry.directory);
+      totalSize -= entry.size;
+      log.info("Evicted " + entry.directory.getFileName() + " from install store, last used " + entry.lastUsed);
+    }
+  }
+
+  /**
+   * Moves the entry to trash if nobody holds its use lock. Leases don't
+   * protect an entry on their own, since reusing an entry creates the lease
+   * without taking the entry lock.
+   */
+  private boolean moveUnused(Path entry, Path trash) throws IOException {
+    synchronized (USE_LOCKS) {
+      if (USE_LOCKS.containsKey(entry)) {
+        return false;
+      }
+
+      try (FileChannel channel = openUseLock(entry); FileLock useLock = channel.tryLock()) {
+        if (useLock == null) {
+          return false;
+        }
+        Files.move(entry, trash, StandardCopyOption.ATOMIC_MOVE);
+        return true;
+      }
+    }
+  }
+
+  /**
+   * Whether a process on this host that is still running leased the entry.
+   * Leases from other hosts sharing the store can't be checked, the use
+   * lock decides about those.
+   */
+  private static boolean hasLiveLeases(Path entry) throws IOException {
+    Path leases = entry.resolve(LEASES_DIRECTORY_NAME);
+    if (!Files.isDirectory(leases)) {
+      return false;
+    }
+
+    boolean live = false;
+    try (DirectoryStream<Path> children = Files.newDirectoryStream(leases)) {
+      for (Path lease : children) {
+        String name = lease.getFileName().toString();
+        // leases of older plugin versions are just the pid
+        String prefix = LocalHost.NAME + "-";
+        if (name.startsWith(prefix)) {
+          name = name.substring(prefix.length());
+        }
+
+        long pid;
+        try {
+          pid = Long.parseLong(name);
+        } catch (NumberFormatException e) {
+          continue;
+        }
+
+        if (ProcessHandle.of(pid).map(ProcessHandle::isAlive).orElse(false)) {
+          live = true;
+        } else {
+          // the JVM holding this lease crashed or was killed
+          Files.deleteIfExists(lease);
+        }
+      }
+    }
+
+    return live;
+  }
+
+  private void deleteIfStale(Path tmpDirectory) throws IOException, MojoExecutionException {
+    long age = System.currentTimeMillis() - Files.getLastModifiedTime(tmpDirectory).toMillis();
+    if (age > STALE_TMP_DIRECTORY_MILLIS) {
+      log.debug("Deleting stale directory " + tmpDirectory);
+      FileUtils.deleteDirectory(tmpDirectory);
+    }
+  }
+
+  private void deleteCache(Path entry) throws IOException, MojoExecutionException {
+    Path cache = cacheDirectory(entry);
+    if (Files.exists(cache)) {
+      FileUtils.deleteDirectory(cache);
+    }
+  }
+
+  private Optional<Entry> readEntry(Path entryDirectory) throws IOException {
+    Path marker = entryDirectory.resolve(MARKER_FILE_NAME);
+    Properties properties = new Properties();
+    try (Reader reader = Files.newBufferedReader(marker, StandardCharsets.UTF_8)) {
+      properties.load(reader);
+    } catch (NoSuchFileException e) {
+      return Optional.empty();
+    }
+
+    long size;
+    try {
+      size = Long.parseLong(properties.getProperty("size", "0"));
+    } catch (NumberFormatException e) {
+      size = 0;
+    }
+
+    // the marker has the size as installed, the cache grows as it's used
+    size += sizeOf(cacheDirectory(entryDirectory));
+    return Optional.of(new Entry(entryDirectory, size, Files.getLastModifiedTime(marker)));
+  }
+
+  private static void writeMarker(Path entryDirectory, String key, long size) throws IOException {
+    Properties properties = new Properties();
+    properties.setProperty("key", key);
+    properties.setProperty("size", Long.toString(size));
+
+    try (Writer writer = Files.newBufferedWriter(entryDirectory.resolve(MARKER_FILE_NAME), StandardCharsets.UTF_8)) {
+      properties.store(writer, null);
+    }
+  }
+
+  private static long sizeOf(Path directory) throws IOException {
+    if (!Files.isDirectory(directory)) {
+      return 0;
+    }
+
+    long[] size = { 0 };
+    Files.walkFileTree(
+        directory,
+        new SimpleFileVisitor<>() {
+
+          @Override
+          public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+            size[0] += attrs.size();
+            return FileVisitResult.CONTINUE;
+          }
+
+          @Override
+          public FileVisitResult visitFileFailed(Path file, IOException e) {
+            // a cache file replaced by a concurrent build
+            return FileVisitResult.CONTINUE;
+          }
+        }
+    );
+    return size[0];
+  }
+
+  /**
+   * Pids repeat across containers that share the local repository, so
+   * leases include the host name. Looked up once, and only when needed.
+   */
+  private static class LocalHost {
+    private static final String NAME = lookup();
+
+    private static String lookup() {
+      try {
+        return InetAddress.getLocalHost().getHostName().replaceAll("[^A-Za-z0-9._]", "_");
+      } catch (IOException e) {
+        return "unknown";
+      }
+    }
+  }
+
+  private static class EntryLock implements AutoCloseable {
+    private final ReentrantLock threadLock;
+    private final FileChannel channel;
+    private final FileLock fileLock;
+
+    private EntryLock(ReentrantLock threadLock, FileChannel channel, FileLock fileLock) {
+      this.threadLock = threadLock;
+      this.channel = channel;
+      this.fileLock = fileLock;
+    }
+
+    @Override
+    public void close() throws IOException {
+      try {
+        fileLock.release();
+        channel.close();
+      } finally {
+        threadLock.unlock();
+      }
+    }
+  }
+
+  private static class Entry {
+    private final Path directory;
+    private final long size;
+    private final FileTime lastUsed;
+
+    private Entry(Path directory, long size, FileTime lastUsed) {
+      this.directory = directory;
+      this.size = size;
+      this.lastUsed = lastUsed;
+    }
+  }
+}
@@ -0,0 +1,87 @@
+package com.hubspot.maven.plugins.prettier.internal;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Just enough JSON to write requests and reports, without pulling a JSON
+ * library into the plugin's classpath. Records from prettier-runner.js are
+ * read by RunnerRecordReader.
+ */
+public class Json {
+
+  private Json() {}
+
+  public static String toJson(Map<String, ?> object) {
+    StringBuilder builder = new StringBuilder();
+    appendValue(builder, object);
+    return builder.toString();
+  }
+
+  private static void appendValue(StringBuilder builder, Object value) {
+    if (value == null) {
+      builder.append("null");
+    } else if (value instanceof String) {
+      appendQuoted(builder, (String) value);
+    } else if (value instanceof Number || value instanceof Boolean) {
+      builder.append(value);
+    } else if (value instanceof Map) {
+      builder.append('{');
+      boolean first = true;
+      for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+        if (!first) {
+          builder.append(',');
+        }
+        first = false;
+        appendQuoted(builder, String.valueOf(entry.getKey()));
+        builder.append(':');
+        appendValue(builder, entry.getValue());
+      }
+      builder.append('}');
+    } else if (value instanceof Collection) {
+      builder.append('[');
+      boolean first = true;
+      for (Object element : (Collection<?>) value) {
+        if (!first) {
+          builder.append(',');
+        }
+        first = false;
+        appendValue(builder, element);
+      }
+      builder.append(']');
+    } else {
+      throw new IllegalArgumentException("Unsupported JSON value: " + value.getClass());
+    }
+  }
+
+  private static void appendQuoted(StringBuilder builder, String value) {
+    builder.append('"');
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      switch (c) {
+        case '"':
+          builder.append("\\\"");
+          break;
+        case '\\':
+          builder.append("\\\\");
+          break;
+        case '\n':
+          builder.append("\\n");
+          break;
+        case '\r':
+          builder.append("\\r");
+          break;
+        case '\t':
+          builder.append("\\t");
+          break;
+        default:
+          if (c < 0x20) {
+            builder.append(String.format("\\u%04x", (int) c));
+          } else {
+            builder.append(c);
+          }
+      }
+    }
+    builder.append('"');
+  }
+}
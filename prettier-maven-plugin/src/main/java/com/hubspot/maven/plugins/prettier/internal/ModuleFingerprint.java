@@ -0,0 +1,123 @@
+package com.hubspot.maven.plugins.prettier.internal;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.apache.maven.plugin.logging.Log;
+
+/**
+ * Up-to-date check for a whole module that only needs a stat per file: a hash
+ * of the path, size and modification time of every input file, plus the
+ * formatting configuration. It's stored after a run that found every file
+ * formatted correctly, and as long as it still matches prettier doesn't need
+ * to run at all, so node isn't even resolved.
+ */
+public class ModuleFingerprint {
+  private final Path fingerprintFile;
+  private final Path baseDirectory;
+  private final List<Path> files;
+  private final String configKey;
+  private final Log log;
+  // the fingerprint from before prettier ran
+  private String fingerprint;
+
+  public ModuleFingerprint(Path fingerprintFile, Path baseDirectory, List<Path> files, String configKey, Log log) {
+    this.fingerprintFile = fingerprintFile;
+    this.baseDirectory = baseDirectory.toAbsolutePath().normalize();
+    this.files = files;
+    this.configKey = configKey;
+    this.log = log;
+  }
+
+  /**
+   * Whether the files are the same as after the last clean run, remembers
+   * their current fingerprint for save
+   */
+  public boolean isUpToDate() throws IOException {
+    fingerprint = compute();
+    return matches(fingerprint);
+  }
+
+  /**
+   * Saves the fingerprint from before prettier ran, for when it didn't need to run
+   */
+  public void save() {
+    save(fingerprint);
+  }
+
+  /**
+   * Saves the fingerprint if prettier found every file formatted correctly.
+   * Rewritten files have a new modification time, so then it's computed
+   * again. Otherwise the one from before the run is kept, in case a file
+   * changed while prettier was running.
+   */
+  public void saveAfterRun(boolean allFormatted, boolean rewroteFiles) throws IOException {
+    if (!allFormatted) {
+      return;
+    }
+    save(rewroteFiles ? compute() : fingerprint);
+  }
+
+  String compute() throws IOException {
+    List<String> relativePaths = new ArrayList<>(files.size());
+    for (Path file : files) {
+      relativePaths.add(baseDirectory.relativize(file.toAbsolutePath().normalize()).toString().replace('\\', '/'));
+    }
+    // the scan order isn't guaranteed to be stable
+    Collections.sort(relativePaths);
+
+    HashBuilder hashBuilder = new HashBuilder().putString(configKey);
+    for (String relativePath : relativePaths) {
+      BasicFileAttributes attributes;
+      try {
+        attributes = Files.readAttributes(baseDirectory.resolve(relativePath), BasicFileAttributes.class);
+      } catch (NoSuchFileException e) {
+        // deleted since the scan, make sure the fingerprint can't match
+        attributes = null;
+      }
+
+      hashBuilder
+          .putString(relativePath)
+          .putString(attributes == null ? "-1" : Long.toString(attributes.size()))
+          .putString(attributes == null ? "-1" : Long.toString(attributes.lastModifiedTime().toMillis()));
+    }
+
+    return hashBuilder.hash();
+  }
+
+  private boolean matches(String fingerprint) {
+    try {
+      String storedFingerprint = new String(Files.readAllBytes(fingerprintFile), StandardCharsets.UTF_8).trim();
+      return storedFingerprint.equals(fingerprint);
+    } catch (NoSuchFileException e) {
+      return false;
+    } catch (IOException e) {
+      log.debug("Unable to read module fingerprint " + fingerprintFile + ", ignoring it", e);
+      return false;
+    }
+  }
+
+  private void save(String fingerprint) {
+    try {
+      Path directory = fingerprintFile.toAbsolutePath().getParent();
+      Files.createDirectories(directory);
+
+      Path tmpFile = Files.createTempFile(directory, "prettier-java-", ".tmp");
+      try {
+        Files.write(tmpFile, (fingerprint + "\n").getBytes(StandardCharsets.UTF_8));
+        Files.move(tmpFile, fingerprintFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      } finally {
+        Files.deleteIfExists(tmpFile);
+      }
+    } catch (IOException e) {
+      log.warn("Unable to write module fingerprint " + fingerprintFile + ": " + e.getMessage());
+    }
+  }
+}
@@ -1,31 +1,64 @@
 package com.hubspot.maven.plugins.prettier.internal;
 
 import java.io.IOException;
-import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
 
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.logging.Log;
 
-import okhttp3.OkHttpClient;
-import okhttp3.Request;
-import okhttp3.Response;
-import okhttp3.ResponseBody;
-
 public class NodeDownloader {
-  private static final OkHttpClient HTTP_CLIENT = new OkHttpClient();
+  private static final String CHECKSUMS_FILE_NAME = "SHASUMS256.txt";
 
   private final Optional<String> customDownloadUrl;
+  private final List<String> mirrors;
+  private final HttpDownloader httpDownloader;
   private final Path installDirectory;
+  private final PhaseTimings phaseTimings;
   private final Log log;
 
   public NodeDownloader(Optional<String> customDownloadUrl, Path installDirectory, Log log) {
+    this(customDownloadUrl, installDirectory, new PhaseTimings(), log);
+  }
+
+  public NodeDownloader(
+      Optional<String> customDownloadUrl,
+      Path installDirectory,
+      PhaseTimings phaseTimings,
+      Log log
+  ) {
+    this(
+        customDownloadUrl,
+        Collections.singletonList(OperatingSystemFamily.DEFAULT_NODE_MIRROR),
+        new HttpDownloader(DownloadSettings.defaults(), installDirectory, log),
+        installDirectory,
+        phaseTimings,
+        log
+    );
+  }
+
+  /**
+   * Mirrors are base URLs laid out like https://nodejs.org/dist/, and are
+   * ignored if there's a custom download URL
+   */
+  public NodeDownloader(
+      Optional<String> customDownloadUrl,
+      List<String> mirrors,
+      HttpDownloader httpDownloader,
+      Path installDirectory,
+      PhaseTimings phaseTimings,
+      Log log
+  ) {
     this.customDownloadUrl = customDownloadUrl;
+    this.mirrors = mirrors;
+    this.httpDownloader = httpDownloader;
     this.installDirectory = installDirectory;
+    this.phaseTimings = phaseTimings;
     this.log = log;
   }
 
@@ -35,15 +68,42 @@ public class NodeDownloader {
     return download(version, os);
   }
 
+  /**
+   * Finds node in the install directory, without downloading anything
+   */
+  public static Optional<NodeInstall> findInstalled(
+      Path installDirectory,
+      String version,
+      OperatingSystemFamily currentOs
+  ) {
+    Optional<OperatingSystemFamily> os = Optional.of(currentOs);
+    while (os.isPresent()) {
+      Path targetDirectory = installDirectory.resolve(os.get().getNodeDirectoryName(version));
+      if (Files.exists(targetDirectory)) {
+        return Optional.of(os.get().toNodeInstall(targetDirectory));
+      }
+      os = os.get().getFallback();
+    }
+
+    return Optional.empty();
+  }
+
   public NodeInstall download(String version, OperatingSystemFamily os) throws MojoExecutionException, IOException {
     Path targetDirectory = installDirectory.resolve(os.getNodeDirectoryName(version));
     if (Files.exists(targetDirectory)) {
       log.debug("Reusing cached node at: " + targetDirectory);
     } else {
-      String downloadUrl = customDownloadUrl.orElseGet(() -> os.getNodeDownloadUrl(version));
-      log.debug("Downloading node from url: " + downloadUrl);
-
-      Optional<Path> maybeNodeArchive = downloadToTmpFile(downloadUrl);
+      List<String> downloadUrls = downloadUrls(version, os);
+      String downloadUrl = downloadUrls.get(0);
+      log.debug("Downloading node from url: " + String.join(", ", downloadUrls));
+
+      Optional<Path> maybeNodeArchive;
+      PhaseTimings.Phase nodeDownload = phaseTimings.start(PhaseTimings.NODE_DOWNLOAD);
+      try {
+        maybeNodeArchive = downloadToTmpFile(downloadUrls);
+      } finally {
+        nodeDownload.close();
+      }
       if (!maybeNodeArchive.isPresent()) {
         Optional<OperatingSystemFamily> fallback = os.getFallback();
         if (fallback.isPresent()) {
@@ -56,7 +116,14 @@ public class NodeDownloader {
       Path nodeArchive = maybeNodeArchive.get();
       log.debug("Downloaded node to: " + nodeArchive);
 
-      Path tmpDir = os.extractToTmpDir(installDirectory, nodeArchive);
+      Optional<String> expectedSha256 = fetchExpectedSha256(downloadUrls);
+      Path tmpDir;
+      PhaseTimings.Phase nodeExtract = phaseTimings.start(PhaseTimings.NODE_EXTRACT);
+      try {
+        tmpDir = os.extractToTmpDir(installDirectory, nodeArchive, expectedSha256, log);
+      } finally {
+        nodeExtract.close();
+      }
       Files.delete(nodeArchive);
       log.debug("Extracted node to: " + tmpDir);
 
@@ -75,34 +142,63 @@ public class NodeDownloader {
     return os.toNodeInstall(targetDirectory);
   }
 
-  private Optional<Path> downloadToTmpFile(String downloadUrl) throws MojoExecutionException, IOException {
-    Request request = new Request.Builder().url(downloadUrl).build();
+  private List<String> downloadUrls(String version, OperatingSystemFamily os) {
+    if (customDownloadUrl.isPresent()) {
+      return Collections.singletonList(customDownloadUrl.get());
+    }
+
+    List<String> downloadUrls = new ArrayList<>();
+    for (String mirror : mirrors) {
+      downloadUrls.add(os.getNodeDownloadUrl(mirror, version));
+    }
+    return downloadUrls;
+  }
+
+  private Optional<Path> downloadToTmpFile(List<String> downloadUrls) throws IOException {
+    Path tempFile = Files.createTempFile(installDirectory, "node-", ".tmp");
+    tempFile.toFile().deleteOnExit();
+
+    if (httpDownloader.download(downloadUrls, tempFile)) {
+      return Optional.of(tempFile);
+    } else {
+      Files.delete(tempFile);
+      return Optional.empty();
+    }
+  }
+
+  /**
+   * Looks up the archive in the SHASUMS256.txt published next to it. Only a
+   * custom download URL that doesn't publish one is trusted as is.
+   */
+  private Optional<String> fetchExpectedSha256(List<String> downloadUrls) throws MojoExecutionException, IOException {
+    String fileName = downloadUrls.get(0).substring(downloadUrls.get(0).lastIndexOf('/') + 1);
+    List<String> checksumsUrls = new ArrayList<>();
+    for (String downloadUrl : downloadUrls) {
+      checksumsUrls.add(downloadUrl.substring(0, downloadUrl.lastIndexOf('/') + 1) + CHECKSUMS_FILE_NAME);
+    }
 
-    try (Response response = HTTP_CLIENT.newCall(request).execute();
-         InputStream responseStream = responseStream(response)) {
-      if (response.code() == 404) {
-        log.debug("Got 404 when trying to download node from: " + downloadUrl);
+    Optional<String> checksums = httpDownloader.fetchString(checksumsUrls);
+    if (!checksums.isPresent()) {
+      if (customDownloadUrl.isPresent()) {
+        log.debug("No " + CHECKSUMS_FILE_NAME + " found at " + checksumsUrls + ", skipping checksum verification");
         return Optional.empty();
-      } else if (!response.isSuccessful()) {
-        throw new MojoExecutionException(
-            "Got response code " + response.code() + " when trying to download node from: " + downloadUrl
-        );
-      } else {
-        Path tempFile = Files.createTempFile(installDirectory, "node-", ".tmp");
-        Files.copy(responseStream, tempFile, StandardCopyOption.REPLACE_EXISTING);
-        tempFile.toFile().deleteOnExit();
-
-        return Optional.of(tempFile);
+      }
+      throw new MojoExecutionException("Unable to fetch " + CHECKSUMS_FILE_NAME + " from " + checksumsUrls);
+    }
+
+    // each line is "<sha256>  <file name>"
+    for (String line : checksums.get().split("\n")) {
+      String[] parts = line.trim().split("\\s+");
+      if (parts.length == 2 && parts[1].equals(fileName)) {
+        return Optional.of(parts[0]);
       }
     }
-  }
 
-  private static InputStream responseStream(Response response) throws IOException {
-    ResponseBody body = response.body();
-    if (body == null) {
-      throw new IOException("Null body returned for response: " + response);
+    if (customDownloadUrl.isPresent()) {
+      log.debug("No checksum for " + fileName + " found in " + checksumsUrls + ", skipping checksum verification");
+      return Optional.empty();
     }
 
-    return body.byteStream();
+    throw new MojoExecutionException("No checksum for " + fileName + " found in " + checksumsUrls);
   }
 }
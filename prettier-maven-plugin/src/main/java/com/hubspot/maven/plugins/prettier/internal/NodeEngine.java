@@ -0,0 +1,51 @@
+package com.hubspot.maven.plugins.prettier.internal;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import org.apache.maven.plugin.logging.Log;
+
+/**
+ * Runs prettier-runner.js in node, either in a pooled daemon or in a new
+ * process for every request
+ */
+public class NodeEngine implements PrettierEngine {
+  private final List<String> runnerCommand;
+  private final boolean daemon;
+  private final int maxDaemons;
+  private final PhaseTimings phaseTimings;
+  private final Log log;
+
+  /**
+   * The command is the runner command without a mode
+   */
+  public NodeEngine(List<String> runnerCommand, boolean daemon, int maxDaemons, PhaseTimings phaseTimings, Log log) {
+    this.runnerCommand = runnerCommand;
+    this.daemon = daemon;
+    this.maxDaemons = maxDaemons;
+    this.phaseTimings = phaseTimings;
+    this.log = log;
+  }
+
+  @Override
+  public void run(String mode, Path workingDirectory, List<String> files, Consumer<PrettierResult> resultConsumer)
+    throws IOException, InterruptedException {
+    if (daemon) {
+      List<String> command = new ArrayList<>(runnerCommand);
+      command.add("--daemon");
+
+      PrettierDaemon prettierDaemon = PrettierDaemon.acquire(command, maxDaemons, phaseTimings, log);
+      try {
+        prettierDaemon.run(mode, workingDirectory, files, resultConsumer);
+      } finally {
+        prettierDaemon.release();
+      }
+      return;
+    }
+
+    // the files go through stdin, so one process handles any number of them
+    PrettierRunnerProcess.run(runnerCommand, mode, workingDirectory, files, resultConsumer, phaseTimings, log);
+  }
+}
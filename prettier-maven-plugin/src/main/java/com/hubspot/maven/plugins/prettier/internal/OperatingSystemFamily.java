@@ -10,6 +10,7 @@ import java.util.Arrays;
 import java.util.Optional;
 import java.util.Set;
 import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
 
 public enum OperatingSystemFamily {
   LINUX_X64("linux-x64", ArchiveType.TAR_GZ),
@@ -18,6 +19,8 @@ public enum OperatingSystemFamily {
   MAC_ARM("darwin-arm64", ArchiveType.TAR_GZ),
   WINDOWS_X64("win-x64", ArchiveType.ZIP);
 
+  public static final String DEFAULT_NODE_MIRROR = "https://nodejs.org/dist/";
+
   private static final Set<PosixFilePermission> GLOBAL_PERMISSIONS = PosixFilePermissions.fromString(
       "rwxrwxrwx"
   );
@@ -66,8 +69,16 @@ public enum OperatingSystemFamily {
   }
 
   public String getNodeDownloadUrl(String version) {
+    return getNodeDownloadUrl(DEFAULT_NODE_MIRROR, version);
+  }
+
+  /**
+   * The mirror is a base URL laid out like https://nodejs.org/dist/
+   */
+  public String getNodeDownloadUrl(String mirror, String version) {
     return String.format(
-        "https://nodejs.org/dist/v%s/node-v%s-%s.%s",
+        "%sv%s/node-v%s-%s.%s",
+        mirror.endsWith("/") ? mirror : mirror + "/",
         version,
         version,
         classifier,
@@ -96,9 +107,10 @@ public enum OperatingSystemFamily {
     );
   }
 
-  public Path extractToTmpDir(Path installDirectory, Path nodeArchive) throws IOException {
+  public Path extractToTmpDir(Path installDirectory, Path nodeArchive, Optional<String> expectedSha256, Log log)
+    throws IOException {
     Path tmpDir = Files.createTempDirectory(installDirectory, "node-", getGlobalPermissions());
-    extension.extract(tmpDir, nodeArchive);
+    extension.extract(tmpDir, nodeArchive, expectedSha256, log);
 
     return tmpDir;
   }
@@ -0,0 +1,207 @@
+package com.hubspot.maven.plugins.prettier.internal;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.apache.maven.plugin.logging.Log;
+
+/**
+ * Where the time of a plugin execution went: resolving node, installing
+ * prettier-java, starting node, formatting, generating diffs. Phases that
+ * run more than once (one node process per shard, for example) add up.
+ */
+public class PhaseTimings {
+  public static final String TOTAL = "total";
+  public static final String SCAN = "scan";
+  public static final String RESOLVE_NODE = "resolve-node";
+  public static final String NODE_DOWNLOAD = "node-download";
+  public static final String NODE_EXTRACT = "node-extract";
+  public static final String INSTALL_PRETTIER_JAVA = "install-prettier-java";
+  public static final String NODE_STARTUP = "node-startup";
+  public static final String ENGINE_STARTUP = "engine-startup";
+  public static final String FORMAT = "format";
+  public static final String DIFF = "diff";
+
+  private static final String SECONDS_METRIC = "prettier_phase_seconds";
+  private static final String RUNS_METRIC = "prettier_phase_runs";
+  private static final String BUILD_LABEL = "build";
+  private static final Object OPEN_METRICS_LOCK = new Object();
+
+  private final Map<String, Timing> timings = new LinkedHashMap<>();
+
+  /**
+   * Closing the returned phase records it, in a finally block
+   */
+  public interface Phase extends AutoCloseable {
+    @Override
+    void close();
+  }
+
+  public Phase start(String phase) {
+    long start = System.nanoTime();
+    return () -> record(phase, System.nanoTime() - start);
+  }
+
+  public synchronized void record(String phase, long nanos) {
+    Timing timing = timings.computeIfAbsent(phase, ignored -> new Timing());
+    timing.nanos += nanos;
+    timing.count++;
+  }
+
+  public void logSummary(Log log) {
+    if (!log.isDebugEnabled()) {
+      return;
+    }
+
+    for (Map.Entry<String, Timing> entry : snapshot().entrySet()) {
+      log.debug(
+          String.format(
+              "Phase %s took %dms (%d times)",
+              entry.getKey(),
+              TimeUnit.NANOSECONDS.toMillis(entry.getValue().nanos),
+              entry.getValue().count
+          )
+      );
+    }
+  }
+
+  public void writeJson(Path jsonFile, Map<String, String> labels) throws IOException {
+    List<Map<String, Object>> phases = new ArrayList<>();
+    for (Map.Entry<String, Timing> entry : snapshot().entrySet()) {
+      Map<String, Object> phase = new LinkedHashMap<>();
+      phase.put("phase", entry.getKey());
+      phase.put("ms", TimeUnit.NANOSECONDS.toMillis(entry.getValue().nanos));
+      phase.put("count", entry.getValue().count);
+      phases.add(phase);
+    }
+
+    Map<String, Object> report = new LinkedHashMap<>(labels);
+    report.put("phases", phases);
+
+    Files.createDirectories(jsonFile.getParent());
+    try (Writer writer = Files.newBufferedWriter(jsonFile, StandardCharsets.UTF_8)) {
+      writer.write(Json.toJson(report));
+      writer.write('\n');
+    }
+  }
+
+  /**
+   * Writes the timings in the OpenMetrics text format, with a build label
+   * first. Samples of other modules and goals of the same build already in
+   * the file are kept, so that a reactor can share one file, and samples of
+   * previous builds are dropped. The file is replaced atomically, since
+   * collectors may read it at any time.
+   */
+  public void writeOpenMetrics(Path metricsFile, String buildId, Map<String, String> labels) throws IOException {
+    Map<String, Timing> snapshot = snapshot();
+    Map<String, String> buildLabels = new LinkedHashMap<>();
+    buildLabels.put(BUILD_LABEL, buildId);
+    buildLabels.putAll(labels);
+    String buildPrefix = "{" + BUILD_LABEL + "=\"" + escapeLabelValue(buildId) + "\",";
+
+    // modules built in parallel read and replace the same file
+    synchronized (OPEN_METRICS_LOCK) {
+      Map<String, List<String>> samples = new LinkedHashMap<>();
+      samples.put(SECONDS_METRIC, new ArrayList<>());
+      samples.put(RUNS_METRIC, new ArrayList<>());
+      if (Files.exists(metricsFile)) {
+        for (String line : Files.readAllLines(metricsFile, StandardCharsets.UTF_8)) {
+          String metricName = metricName(line);
+          List<String> family = samples.get(metricName);
+          if (
+            family != null &&
+            line.startsWith(metricName + buildPrefix) &&
+            !line.startsWith(metricName + formatLabels(buildLabels, ""))
+          ) {
+            family.add(line);
+          }
+        }
+      }
+
+      for (Map.Entry<String, Timing> entry : snapshot.entrySet()) {
+        samples
+            .get(SECONDS_METRIC)
+            .add(
+                SECONDS_METRIC +
+                formatLabels(buildLabels, entry.getKey()) +
+                " " +
+                String.format(Locale.ROOT, "%.3f", entry.getValue().nanos / 1e9)
+            );
+        samples.get(RUNS_METRIC).add(RUNS_METRIC + formatLabels(buildLabels, entry.getKey()) + " " + entry.getValue().count);
+      }
+
+      StringBuilder metrics = new StringBuilder();
+      metrics.append("# TYPE " + SECONDS_METRIC + " gauge\n");
+      metrics.append("# HELP " + SECONDS_METRIC + " Time spent in each phase of the prettier executions of the last build\n");
+      samples.get(SECONDS_METRIC).forEach(sample -> metrics.append(sample).append('\n'));
+      metrics.append("# TYPE " + RUNS_METRIC + " gauge\n");
+      metrics.append("# HELP " + RUNS_METRIC + " Number of times each phase ran in the prettier executions of the last build\n");
+      samples.get(RUNS_METRIC).forEach(sample -> metrics.append(sample).append('\n'));
+      metrics.append("# EOF\n");
+
+      Path directory = metricsFile.toAbsolutePath().getParent();
+      Files.createDirectories(directory);
+      Path tmpFile = Files.createTempFile(directory, ".prettier-metrics-", ".tmp");
+      try {
+        Files.write(tmpFile, metrics.toString().getBytes(StandardCharsets.UTF_8));
+        try {
+          Files.move(tmpFile, metricsFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+          Files.move(tmpFile, metricsFile, StandardCopyOption.REPLACE_EXISTING);
+        }
+      } finally {
+        Files.deleteIfExists(tmpFile);
+      }
+    }
+  }
+
+  private static String metricName(String line) {
+    int end = line.indexOf('{');
+    return end < 0 ? line : line.substring(0, end);
+  }
+
+  private synchronized Map<String, Timing> snapshot() {
+    Map<String, Timing> snapshot = new LinkedHashMap<>();
+    for (Map.Entry<String, Timing> entry : timings.entrySet()) {
+      Timing timing = new Timing();
+      timing.nanos = entry.getValue().nanos;
+      timing.count = entry.getValue().count;
+      snapshot.put(entry.getKey(), timing);
+    }
+    return snapshot;
+  }
+
+  /**
+   * An empty phase gives the prefix shared by every sample of these labels
+   */
+  private static String formatLabels(Map<String, String> labels, String phase) {
+    StringBuilder builder = new StringBuilder("{");
+    for (Map.Entry<String, String> label : labels.entrySet()) {
+      builder.append(label.getKey()).append("=\"").append(escapeLabelValue(label.getValue())).append("\",");
+    }
+    builder.append("phase=\"");
+    if (!phase.isEmpty()) {
+      builder.append(escapeLabelValue(phase)).append("\"}");
+    }
+    return builder.toString();
+  }
+
+  private static String escapeLabelValue(String value) {
+    return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+  }
+
+  private static class Timing {
+    private long nanos;
+    private int count;
+  }
+}
@@ -0,0 +1,251 @@
+package com.hubspot.maven.plugins.prettier.internal;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import org.apache.maven.plugin.logging.Log;
+
+/**
+ * A node process running prettier-runner.js in daemon mode, so that prettier
+ * and prettier-java only get loaded once per build rather than once per module.
+ * Daemons are pooled and shared by every mojo execution in the JVM that uses
+ * the same command (node, prettier-java version and formatting options), and
+ * are shut down when the JVM exits.
+ */
+public class PrettierDaemon {
+  private static final Map<List<String>, Pool> POOLS = new HashMap<>();
+
+  static {
+    Runtime.getRuntime().addShutdownHook(new Thread(PrettierDaemon::shutdownAll, "prettier-daemon-shutdown"));
+  }
+
+  private final Pool pool;
+  private final Process process;
+  private final BufferedWriter stdin;
+  private final RunnerRecordReader stdout;
+  private long nextRequestId = 1;
+
+  private PrettierDaemon(Pool pool, Process process) {
+    this.pool = pool;
+    this.process = process;
+    this.stdin = new BufferedWriter(new OutputStreamWriter(process.getOutputStream(), StandardCharsets.UTF_8));
+    this.stdout = new RunnerRecordReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Returns an idle daemon for this command, starting a new one if there are
+   * fewer than maxDaemons running, otherwise waits for one to be released
+   */
+  public static PrettierDaemon acquire(List<String> command, int maxDaemons, PhaseTimings phaseTimings, Log log)
+    throws IOException, InterruptedException {
+    return acquire(command, maxDaemons, phaseTimings, log, PrettierDaemon::startProcess);
+  }
+
+  static PrettierDaemon acquire(
+      List<String> command,
+      int maxDaemons,
+      PhaseTimings phaseTimings,
+      Log log,
+      ProcessStarter processStarter
+  ) throws IOException, InterruptedException {
+    Pool pool;
+    synchronized (POOLS) {
+      pool = POOLS.computeIfAbsent(new ArrayList<>(command), ignored -> new Pool());
+
+      while (true) {
+        while (!pool.idle.isEmpty()) {
+          PrettierDaemon daemon = pool.idle.remove(pool.idle.size() - 1);
+          if (daemon.process.isAlive()) {
+            log.debug("Reusing prettier daemon with pid " + daemon.process.pid());
+            return daemon;
+          }
+          pool.all.remove(daemon);
+        }
+
+        if (pool.all.size() + pool.starting < Math.max(1, maxDaemons)) {
+          pool.starting++;
+          break;
+        }
+
+        POOLS.wait();
+      }
+    }
+
+    // start outside of the lock, so that shards can start their daemons in parallel
+    PrettierDaemon daemon = null;
+    try {
+      PhaseTimings.Phase nodeStartup = phaseTimings.start(PhaseTimings.NODE_STARTUP);
+      try {
+        daemon = start(pool, command, processStarter, log);
+      } finally {
+        nodeStartup.close();
+      }
+      return daemon;
+    } finally {
+      synchronized (POOLS) {
+        pool.starting--;
+        if (daemon != null) {
+          pool.all.add(daemon);
+        }
+        POOLS.notifyAll();
+      }
+    }
+  }
+
+  /**
+   * Returns this daemon to the pool so that other executions can use it
+   */
+  public void release() {
+    synchronized (POOLS) {
+      if (process.isAlive()) {
+        pool.idle.add(this);
+      } else {
+        pool.all.remove(this);
+      }
+      POOLS.notifyAll();
+    }
+  }
+
+  public static void shutdownAll() {
+    synchronized (POOLS) {
+      for (Pool pool : POOLS.values()) {
+        for (PrettierDaemon daemon : pool.all) {
+          daemon.shutdown();
+        }
+      }
+      POOLS.clear();
+    }
+  }
+
+  /**
+   * Runs prettier on the given files, which are relative to workingDirectory.
+   * Requests are serialized, node only runs one of them at a time anyway.
+   */
+  public synchronized void run(
+      String mode,
+      Path workingDirectory,
+      List<String> files,
+      Consumer<PrettierResult> resultConsumer
+  ) throws IOException {
+    long requestId = nextRequestId++;
+
+    Map<String, Object> request = new LinkedHashMap<>();
+    request.put("id", requestId);
+    request.put("mode", mode);
+    request.put("cwd", workingDirectory.toAbsolutePath().toString());
+    request.put("files", files);
+
+    try {
+      stdin.write(Json.toJson(request));
+      stdin.newLine();
+      stdin.flush();
+    } catch (IOException e) {
+      process.destroy();
+      throw new IOException("Error sending request to prettier daemon", e);
+    }
+
+    while (true) {
+      readRecord();
+
+      if (stdout.getType() == RunnerRecordReader.Type.FAILED) {
+        process.destroy();
+        throw new IOException("Prettier daemon failed: " + stdout.getMessage());
+      } else if (stdout.getId() != requestId) {
+        continue;
+      } else if (stdout.getType() == RunnerRecordReader.Type.DONE) {
+        return;
+      } else if (stdout.getType() == RunnerRecordReader.Type.RESULT) {
+        resultConsumer.accept(stdout.toResult());
+      }
+    }
+  }
+
+  private static PrettierDaemon start(Pool pool, List<String> command, ProcessStarter processStarter, Log log)
+    throws IOException {
+    log.info("Starting prettier daemon");
+    if (log.isDebugEnabled()) {
+      log.debug("Running prettier daemon with args: " + String.join(" ", command));
+    }
+
+    Process process = processStarter.start(command);
+    startStderrPump(process, log);
+
+    PrettierDaemon daemon = new PrettierDaemon(pool, process);
+    try {
+      daemon.readRecord();
+      if (daemon.stdout.getType() != RunnerRecordReader.Type.READY) {
+        throw new IOException("Unexpected output from prettier daemon: " + daemon.stdout.getType());
+      }
+    } catch (IOException e) {
+      daemon.shutdown();
+      throw e;
+    }
+
+    log.debug("Prettier daemon with pid " + process.pid() + " is running prettier " + daemon.stdout.getVersion());
+    return daemon;
+  }
+
+  private static Process startProcess(List<String> command) throws IOException {
+    return new ProcessBuilder(command.toArray(new String[0])).start();
+  }
+
+  private void readRecord() throws IOException {
+    if (!stdout.next()) {
+      throw new IOException("Prettier daemon exited unexpectedly, see the log output above for details");
+    }
+  }
+
+  private void shutdown() {
+    try {
+      // the daemon exits by itself once stdin is closed
+      stdin.close();
+    } catch (IOException e) {
+      process.destroy();
+    }
+  }
+
+  static void startStderrPump(Process process, Log log) {
+    Thread thread = new Thread(
+        () -> {
+          try (
+            BufferedReader stderr = new BufferedReader(
+                new InputStreamReader(process.getErrorStream(), StandardCharsets.UTF_8)
+            )
+          ) {
+            String line;
+            while ((line = stderr.readLine()) != null) {
+              log.warn(line);
+            }
+          } catch (IOException e) {
+            log.debug("Error reading prettier daemon output", e);
+          }
+        },
+        "prettier-daemon-stderr"
+    );
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  /**
+   * Starts the node process, tests replace it with a fake runner
+   */
+  interface ProcessStarter {
+    Process start(List<String> command) throws IOException;
+  }
+
+  private static class Pool {
+    private final List<PrettierDaemon> all = new ArrayList<>();
+    private final List<PrettierDaemon> idle = new ArrayList<>();
+    private int starting = 0;
+  }
+}
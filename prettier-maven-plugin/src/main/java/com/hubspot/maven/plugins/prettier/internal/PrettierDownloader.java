@@ -9,71 +9,51 @@ import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.logging.Log;
 
 public class PrettierDownloader {
-  private final Path installDirectory;
   private final NodeInstall nodeInstall;
   private final Log log;
 
-  public PrettierDownloader(Path installDirectory, NodeInstall nodeInstall, Log log) {
-    this.installDirectory = installDirectory;
+  public PrettierDownloader(NodeInstall nodeInstall, Log log) {
     this.nodeInstall = nodeInstall;
     this.log = log;
   }
 
-  public Path downloadPrettierJava(String prettierJavaVersion) throws MojoExecutionException {
-    Path prettierDirectory = installDirectory.resolve("prettier-java-" + prettierJavaVersion);
-    Path prettierBin = prettierDirectory.resolve(PrettierPaths.prettierBinPath(prettierJavaVersion));
-
-    if (Files.exists(prettierDirectory) && Files.exists(prettierBin)) {
-      log.debug("Reusing cached prettier-java at: " + prettierDirectory);
-      return prettierDirectory;
-    } else if (Files.exists(prettierDirectory) && !Files.exists(prettierBin)) {
-      log.warn("Corrupted prettier install, going to delete and re-download");
-      FileUtils.deleteDirectory(prettierDirectory);
-    }
-
-    try {
-      Path tmpDir = installPrettierJavaToTmpDir(prettierJavaVersion);
-      FileUtils.move(tmpDir, prettierDirectory);
-
-      log.info("Downloaded prettier-java to: " + prettierDirectory);
-      return prettierDirectory;
-    } catch (IOException e) {
-      throw new MojoExecutionException("Error downloading prettier-java", e);
-    }
+  public static String installSpec(String prettierJavaVersion) {
+    return "prettier-plugin-java@" + prettierJavaVersion;
   }
 
-  private Path installPrettierJavaToTmpDir(String prettierJavaVersion) throws MojoExecutionException, IOException {
-    Path tmpDir = Files.createTempDirectory(
-        installDirectory,
-        "prettier-java-", OperatingSystemFamily.current().getGlobalPermissions()
-    );
+  public static boolean isInstalled(Path prettierDirectory, String prettierJavaVersion) {
+    return Files.exists(prettierDirectory.resolve(PrettierPaths.prettierBinPath(prettierJavaVersion)));
+  }
 
+  /**
+   * Runs npm install for prettier-java in an empty directory
+   */
+  public void downloadPrettierJava(String prettierJavaVersion, Path directory) throws MojoExecutionException, IOException {
     List<String> command = new ArrayList<>(nodeInstall.getNpmCommand());
     command.add("install");
     command.add("--prefix");
     command.add(".");
-    command.add("prettier-plugin-java@" + prettierJavaVersion);
+    command.add(installSpec(prettierJavaVersion));
 
     log.debug("Running npm install command: " + command);
 
     Process process = new ProcessBuilder(command.toArray(new String[0]))
-        .directory(tmpDir.toFile())
+        .directory(directory.toFile())
         .inheritIO()
         .start();
 
     try {
       int exitCode = process.waitFor();
-      boolean prettierBinExists = Files.exists(tmpDir.resolve(PrettierPaths.prettierBinPath(prettierJavaVersion)));
       if (exitCode != 0) {
         throw new MojoExecutionException("Error downloading prettier-java, exit code: " + exitCode);
       }
-      if (!prettierBinExists) {
+      if (!isInstalled(directory, prettierJavaVersion)) {
         throw new MojoExecutionException("Error downloading prettier-java, prettier bin was not found");
       }
     } catch (InterruptedException e) {
       throw new MojoExecutionException("Interrupted while downloading prettier-java", e);
     }
 
-    return tmpDir;
+    log.info("Downloaded prettier-java " + prettierJavaVersion);
   }
 }
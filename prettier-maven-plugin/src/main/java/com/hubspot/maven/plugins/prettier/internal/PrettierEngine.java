@@ -0,0 +1,19 @@
+package com.hubspot.maven.plugins.prettier.internal;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Something that runs prettier: node processes running prettier-runner.js,
+ * or a JavaScript engine embedded in the Maven JVM
+ */
+public interface PrettierEngine {
+  /**
+   * Runs prettier on the given files, which are relative to workingDirectory.
+   * The mode is one of the runner modes: check, write or format.
+   */
+  void run(String mode, Path workingDirectory, List<String> files, Consumer<PrettierResult> resultConsumer)
+    throws IOException, InterruptedException;
+}
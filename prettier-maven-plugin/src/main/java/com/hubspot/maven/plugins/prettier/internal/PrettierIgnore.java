@@ -0,0 +1,142 @@
+package com.hubspot.maven.plugins.prettier.internal;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The patterns in a .prettierignore file, which uses the same syntax as
+ * .gitignore. Like prettier's CLI, only the file in the working directory
+ * is used.
+ */
+public class PrettierIgnore {
+  public static final String FILE_NAME = ".prettierignore";
+
+  private static final PrettierIgnore EMPTY = new PrettierIgnore(Collections.emptyList());
+
+  private final List<Rule> rules;
+
+  private PrettierIgnore(List<Rule> rules) {
+    this.rules = rules;
+  }
+
+  public static PrettierIgnore load(Path baseDirectory) throws IOException {
+    List<String> lines;
+    try {
+      lines = Files.readAllLines(baseDirectory.resolve(FILE_NAME), StandardCharsets.UTF_8);
+    } catch (NoSuchFileException e) {
+      return EMPTY;
+    }
+
+    return parse(lines);
+  }
+
+  static PrettierIgnore parse(List<String> lines) {
+    List<Rule> rules = new ArrayList<>();
+    for (String line : lines) {
+      String pattern = stripTrailingSpaces(line);
+      if (pattern.isEmpty() || pattern.startsWith("#")) {
+        continue;
+      }
+
+      boolean negated = false;
+      if (pattern.startsWith("!")) {
+        negated = true;
+        pattern = pattern.substring(1);
+      } else if (pattern.startsWith("\\!") || pattern.startsWith("\\#")) {
+        pattern = pattern.substring(1);
+      }
+
+      boolean directoryOnly = pattern.endsWith("/");
+      if (directoryOnly) {
+        pattern = pattern.substring(0, pattern.length() - 1);
+      }
+
+      // patterns with a slash other than at the end are relative to the ignore file
+      if (pattern.startsWith("/")) {
+        pattern = pattern.substring(1);
+      } else if (!pattern.contains("/")) {
+        pattern = "**/" + pattern;
+      }
+
+      if (!pattern.isEmpty()) {
+        rules.add(new Rule(Glob.compile(pattern), negated, directoryOnly));
+      }
+    }
+
+    return new PrettierIgnore(rules);
+  }
+
+  /**
+   * Whether a '/' separated path to a file, relative to the base directory,
+   * is ignored either by itself or because one of its directories is
+   */
+  public boolean isIgnored(String relativePath) {
+    if (rules.isEmpty()) {
+      return false;
+    }
+
+    int lastSlash = relativePath.lastIndexOf('/');
+    if (lastSlash >= 0 && isIgnoredDirectory(relativePath.substring(0, lastSlash))) {
+      return true;
+    }
+    return isIgnored(relativePath, false);
+  }
+
+  /**
+   * Whether a directory is ignored, either by itself or because one of its
+   * parent directories is
+   */
+  public boolean isIgnoredDirectory(String relativePath) {
+    if (rules.isEmpty() || relativePath.isEmpty()) {
+      return false;
+    }
+
+    for (int i = relativePath.indexOf('/'); i >= 0; i = relativePath.indexOf('/', i + 1)) {
+      if (isIgnored(relativePath.substring(0, i), true)) {
+        return true;
+      }
+    }
+    return isIgnored(relativePath, true);
+  }
+
+  /**
+   * Whether a '/' separated path relative to the base directory is ignored.
+   * The last matching pattern wins, and files in an ignored directory can't
+   * be included again, so the walk can skip ignored directories entirely.
+   */
+  public boolean isIgnored(String relativePath, boolean directory) {
+    boolean ignored = false;
+    for (Rule rule : rules) {
+      if ((directory || !rule.directoryOnly) && rule.glob.matches(relativePath)) {
+        ignored = !rule.negated;
+      }
+    }
+    return ignored;
+  }
+
+  private static String stripTrailingSpaces(String line) {
+    int end = line.length();
+    while (end > 0 && line.charAt(end - 1) == ' ' && (end < 2 || line.charAt(end - 2) != '\\')) {
+      end--;
+    }
+    return line.substring(0, end);
+  }
+
+  private static class Rule {
+    private final Glob glob;
+    private final boolean negated;
+    private final boolean directoryOnly;
+
+    private Rule(Glob glob, boolean negated, boolean directoryOnly) {
+      this.glob = glob;
+      this.negated = negated;
+      this.directoryOnly = directoryOnly;
+    }
+  }
+}
@@ -0,0 +1,109 @@
+package com.hubspot.maven.plugins.prettier.internal;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+import org.eclipse.aether.RepositorySystem;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.eclipse.aether.resolution.ArtifactRequest;
+import org.eclipse.aether.resolution.ArtifactResolutionException;
+import org.eclipse.aether.resolution.ArtifactResult;
+
+/**
+ * A prebuilt archive of node_modules (prettier plus prettier-plugin-java),
+ * published as a regular Maven artifact, so that prettier-java can be
+ * installed from a Maven repository rather than by running npm install
+ */
+public class PrettierJavaBundle {
+  private final Artifact artifact;
+  private final Path archive;
+
+  private PrettierJavaBundle(Artifact artifact, Path archive) {
+    this.artifact = artifact;
+    this.archive = archive;
+  }
+
+  /**
+   * The coordinates are groupId:artifactId:extension:classifier, optionally
+   * followed by a version. Without one, the prettier-java version is used.
+   */
+  public static PrettierJavaBundle resolve(
+      String coordinates,
+      String prettierJavaVersion,
+      RepositorySystem repositorySystem,
+      RepositorySystemSession repositorySystemSession,
+      List<RemoteRepository> remoteRepositories,
+      Log log
+  ) throws MojoExecutionException {
+    String[] parts = coordinates.trim().split(":");
+    if (parts.length != 4 && parts.length != 5) {
+      throw new MojoExecutionException(
+          "Invalid prettier-java bundle coordinates, expected groupId:artifactId:extension:classifier[:version]: " +
+          coordinates
+      );
+    }
+
+    Artifact artifact = new DefaultArtifact(
+        parts[0],
+        parts[1],
+        parts[3],
+        parts[2],
+        parts.length == 5 ? parts[4] : prettierJavaVersion
+    );
+    archiveType(artifact);
+
+    ArtifactResult result;
+    try {
+      result = repositorySystem.resolveArtifact(
+          repositorySystemSession,
+          new ArtifactRequest(artifact, remoteRepositories, null)
+      );
+    } catch (ArtifactResolutionException e) {
+      throw new MojoExecutionException("Error resolving prettier-java bundle " + artifact, e);
+    }
+
+    Path archive = result.getArtifact().getFile().toPath();
+    log.debug("Resolved prettier-java bundle " + artifact + " to: " + archive);
+    return new PrettierJavaBundle(result.getArtifact(), archive);
+  }
+
+  /**
+   * Identifies the contents of the bundle, snapshots can change under the same coordinates
+   */
+  public String getKey() throws MojoExecutionException {
+    try {
+      return String.join(
+          "\n",
+          artifact.toString(),
+          Long.toString(Files.size(archive)),
+          Files.getLastModifiedTime(archive).toString()
+      );
+    } catch (IOException e) {
+      throw new MojoExecutionException("Error reading prettier-java bundle " + archive, e);
+    }
+  }
+
+  public void extract(Path directory, Log log) throws MojoExecutionException, IOException {
+    archiveType(artifact).extract(directory, archive, log);
+  }
+
+  private static ArchiveType archiveType(Artifact artifact) throws MojoExecutionException {
+    switch (artifact.getExtension()) {
+      case "zip":
+        return ArchiveType.ZIP;
+      case "tar.gz":
+      case "tgz":
+        return ArchiveType.TAR_GZ;
+      default:
+        throw new MojoExecutionException(
+            "Unsupported prettier-java bundle extension, expected zip or tar.gz: " + artifact.getExtension()
+        );
+    }
+  }
+}
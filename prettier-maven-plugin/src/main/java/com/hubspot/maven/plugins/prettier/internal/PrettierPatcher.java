@@ -1,17 +1,16 @@
 package com.hubspot.maven.plugins.prettier.internal;
 
-import java.io.File;
 import java.io.IOException;
-import java.lang.ProcessBuilder.Redirect;
+import java.io.InputStream;
 import java.net.URL;
-import java.nio.channels.Channels;
-import java.nio.channels.FileChannel;
-import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.StandardOpenOption;
-import java.util.Arrays;
-import java.util.List;
+import java.nio.file.Paths;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.util.HashSet;
+import java.util.Set;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.logging.Log;
 
@@ -24,61 +23,59 @@ public class PrettierPatcher {
     this.log = log;
   }
 
-  public Path patch(URL patch, String prettierJavaVersion) throws MojoExecutionException {
-    Path patchDirectory = originalDirectory.resolveSibling(originalDirectory.getFileName() + "-patched");
-    Path prettierBin = patchDirectory.resolve(PrettierPaths.prettierBinPath(prettierJavaVersion));
+  /**
+   * Mirrors the original install into an empty directory with hard links,
+   * only the files touched by the patch are written out. Installs are never
+   * modified in place, so sharing the untouched files is safe.
+   */
+  public void patch(URL patch, Path directory) throws MojoExecutionException {
+    try {
+      UnifiedPatch unifiedPatch = UnifiedPatch.parse(readPatch(patch));
 
-    if (Files.exists(patchDirectory) && Files.exists(prettierBin)) {
-      log.debug("Reusing patched prettier-java at: " + patchDirectory);
-      return patchDirectory;
-    } else if (Files.exists(patchDirectory) && !Files.exists(prettierBin)) {
-      log.warn("Corrupted patched prettier install, going to delete and re-download");
-      FileUtils.deleteDirectory(patchDirectory);
-    }
+      Set<Path> skip = new HashSet<>();
+      for (UnifiedPatch.FilePatch filePatch : unifiedPatch.getFiles()) {
+        skip.add(Paths.get(filePatch.getPath()));
+      }
+      // the install store's marker, leases and caches belong to the original entry,
+      // a hard linked marker would be overwritten with the patched entry's key
+      try (DirectoryStream<Path> children = Files.newDirectoryStream(originalDirectory, ".*")) {
+        for (Path child : children) {
+          skip.add(originalDirectory.relativize(child));
+        }
+      }
 
-    try {
-      Path tmpDir = FileUtils.copyDirectory(originalDirectory);
-      applyPatch(patch, tmpDir);
-      FileUtils.move(tmpDir, patchDirectory);
+      FileUtils.linkDirectory(originalDirectory, directory, skip);
+      for (UnifiedPatch.FilePatch filePatch : unifiedPatch.getFiles()) {
+        applyPatch(filePatch, directory);
+      }
 
-      log.info("Patched prettier-java to: " + patchDirectory);
-      return patchDirectory;
+      log.info("Patched prettier-java to: " + directory);
     } catch (IOException e) {
       throw new MojoExecutionException("Error patching prettier-java", e);
     }
   }
 
-  private void applyPatch(URL patch, Path directory) throws MojoExecutionException, IOException {
-    List<String> command = Arrays.asList("patch", "-p1", "-f");
-    log.debug("Running patch command: " + command);
+  private void applyPatch(UnifiedPatch.FilePatch filePatch, Path directory) throws IOException {
+    Path original = originalDirectory.resolve(filePatch.getPath());
+    Path patched = directory.resolve(filePatch.getPath());
+    log.debug("Patching " + filePatch.getPath());
 
-    Process process = new ProcessBuilder(command.toArray(new String[0]))
-        .directory(directory.toFile())
-        .redirectInput(copyToFile(patch))
-        .redirectOutput(Redirect.INHERIT)
-        .redirectError(Redirect.INHERIT)
-        .start();
+    if (!Files.isRegularFile(original)) {
+      throw new IOException("Can't find file to patch: " + original);
+    }
 
-    try {
-      int exitCode = process.waitFor();
-      if (exitCode != 0) {
-        throw new MojoExecutionException("Error patching prettier-java, exit code: " + exitCode);
-      }
-    } catch (InterruptedException e) {
-      throw new MojoExecutionException("Interrupted while patching prettier-java", e);
+    String contents = new String(Files.readAllBytes(original), StandardCharsets.UTF_8);
+    Files.write(patched, filePatch.apply(contents).getBytes(StandardCharsets.UTF_8));
+
+    PosixFileAttributeView attributes = Files.getFileAttributeView(original, PosixFileAttributeView.class);
+    if (attributes != null) {
+      Files.setPosixFilePermissions(patched, attributes.readAttributes().permissions());
     }
   }
 
-  private File copyToFile(URL source) throws IOException {
-    Path tmpFile = Files.createTempFile(originalDirectory.getParent(), "prettier-", ".patch");
-    tmpFile.toFile().deleteOnExit();
-
-    try (
-      ReadableByteChannel inputChannel = Channels.newChannel(source.openStream());
-      FileChannel outputChannel = FileChannel.open(tmpFile, StandardOpenOption.WRITE)
-    ) {
-      outputChannel.transferFrom(inputChannel, 0, Long.MAX_VALUE);
+  private static String readPatch(URL patch) throws IOException {
+    try (InputStream inputStream = patch.openStream()) {
+      return new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
     }
-    return tmpFile.toFile();
   }
 }
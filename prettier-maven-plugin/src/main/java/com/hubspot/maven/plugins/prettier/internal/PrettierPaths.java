@@ -4,6 +4,7 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 
 public class PrettierPaths {
+  private static final Path PRETTIER_MODULE_PATH = Paths.get("node_modules/prettier");
   private static final Path OLD_PRETTIER_BIN_PATH = Paths.get("node_modules/prettier/bin-prettier.js");
   private static final Path NEW_PRETTIER_BIN_PATH = Paths.get("node_modules/prettier/bin/prettier.cjs");
   private static final Path OLD_PRETTIER_JAVA_PLUGIN_PATH = Paths.get("node_modules/prettier-plugin-java");
@@ -17,6 +18,10 @@ public class PrettierPaths {
     }
   }
 
+  public static Path prettierModulePath() {
+    return PRETTIER_MODULE_PATH;
+  }
+
   public static Path prettierJavaPluginPath(String prettierVersion) {
     if ("2.2.0".compareTo(prettierVersion) > 0) {
       return OLD_PRETTIER_JAVA_PLUGIN_PATH;
@@ -0,0 +1,70 @@
+package com.hubspot.maven.plugins.prettier.internal;
+
+import javax.annotation.Nullable;
+
+/**
+ * The outcome of running prettier on a single file
+ */
+public class PrettierResult {
+
+  public enum Status {
+    CLEAN,
+    CHANGED,
+    IGNORED,
+    ERROR
+  }
+
+  private final String file;
+  private final Status status;
+  private final long durationMillis;
+  @Nullable
+  private final String message;
+  @Nullable
+  private final String formatted;
+
+  public PrettierResult(String file, Status status, long durationMillis, @Nullable String message) {
+    this(file, status, durationMillis, message, null);
+  }
+
+  public PrettierResult(
+      String file,
+      Status status,
+      long durationMillis,
+      @Nullable String message,
+      @Nullable String formatted
+  ) {
+    this.file = file;
+    this.status = status;
+    this.durationMillis = durationMillis;
+    this.message = message;
+    this.formatted = formatted;
+  }
+
+  /**
+   * The path of the file, as it was passed to prettier
+   */
+  public String getFile() {
+    return file;
+  }
+
+  public Status getStatus() {
+    return status;
+  }
+
+  public long getDurationMillis() {
+    return durationMillis;
+  }
+
+  @Nullable
+  public String getMessage() {
+    return message;
+  }
+
+  /**
+   * The formatted contents of a changed file, only set in format mode
+   */
+  @Nullable
+  public String getFormatted() {
+    return formatted;
+  }
+}
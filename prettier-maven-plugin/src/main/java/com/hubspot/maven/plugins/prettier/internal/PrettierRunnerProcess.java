@@ -0,0 +1,100 @@
+package com.hubspot.maven.plugins.prettier.internal;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import org.apache.maven.plugin.logging.Log;
+
+/**
+ * Runs prettier-runner.js once for a single request, for when there's no
+ * point in keeping a daemon around
+ */
+public class PrettierRunnerProcess {
+
+  private PrettierRunnerProcess() {}
+
+  /**
+   * Runs prettier on the given files, which are relative to workingDirectory.
+   * The command is the runner command without a mode. The files are passed
+   * through stdin, so there's no limit on how many there are.
+   */
+  public static void run(
+      List<String> runnerCommand,
+      String mode,
+      Path workingDirectory,
+      List<String> files,
+      Consumer<PrettierResult> resultConsumer,
+      PhaseTimings phaseTimings,
+      Log log
+  ) throws IOException, InterruptedException {
+    List<String> command = new ArrayList<>(runnerCommand);
+    command.add("--" + mode);
+    command.add("--files-from");
+    command.add("-");
+
+    if (log.isDebugEnabled()) {
+      log.debug("Running prettier on " + files.size() + " files with args: " + String.join(" ", command));
+    }
+
+    long start = System.nanoTime();
+    Process process = new ProcessBuilder(command.toArray(new String[0]))
+        .directory(workingDirectory.toFile())
+        .start();
+    PrettierDaemon.startStderrPump(process, log);
+    writeFiles(process, files);
+
+    boolean done = false;
+    try (Reader stdout = new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8)) {
+      RunnerRecordReader records = new RunnerRecordReader(stdout);
+      while (records.next()) {
+        switch (records.getType()) {
+          case FAILED:
+            throw new IOException("Prettier failed: " + records.getMessage());
+          case READY:
+            phaseTimings.record(PhaseTimings.NODE_STARTUP, System.nanoTime() - start);
+            break;
+          case DONE:
+            done = true;
+            break;
+          default:
+            resultConsumer.accept(records.toResult());
+        }
+      }
+    } finally {
+      if (!done) {
+        process.destroy();
+      }
+    }
+
+    int status = process.waitFor();
+    log.debug("Prettier exit code: " + status);
+    if (!done || status != 0) {
+      throw new IOException("Prettier exited with code " + status + ", see the log output above for details");
+    }
+  }
+
+  /**
+   * The runner reads the whole list before it writes anything, so this can't
+   * block on stdout filling up
+   */
+  private static void writeFiles(Process process, List<String> files) {
+    try (
+        Writer stdin = new BufferedWriter(new OutputStreamWriter(process.getOutputStream(), StandardCharsets.UTF_8))
+    ) {
+      for (String file : files) {
+        stdin.write(file);
+        stdin.write('\n');
+      }
+    } catch (IOException e) {
+      // node exited early, the reason shows up in its output and exit code
+    }
+  }
+}
@@ -0,0 +1,49 @@
+package com.hubspot.maven.plugins.prettier.internal;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+
+/**
+ * prettier-runner.js ships inside the plugin jar, but node needs it on disk
+ */
+public class PrettierRunnerScript {
+  private static final String RESOURCE_NAME = "prettier-runner.js";
+
+  private PrettierRunnerScript() {}
+
+  public static Path install(Path installDirectory) throws IOException {
+    byte[] contents;
+    try (InputStream inputStream = PrettierRunnerScript.class.getResourceAsStream("/" + RESOURCE_NAME)) {
+      if (inputStream == null) {
+        throw new IOException("Unable to find " + RESOURCE_NAME + " on the classpath");
+      }
+      contents = inputStream.readAllBytes();
+    }
+
+    Path script = installDirectory.resolve(RESOURCE_NAME);
+    if (!hasContents(script, contents)) {
+      Path tmpFile = Files.createTempFile(installDirectory, "prettier-runner-", ".tmp");
+      try {
+        Files.write(tmpFile, contents);
+        Files.move(tmpFile, script, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      } finally {
+        Files.deleteIfExists(tmpFile);
+      }
+    }
+
+    return script;
+  }
+
+  private static boolean hasContents(Path file, byte[] contents) throws IOException {
+    try {
+      return Arrays.equals(Files.readAllBytes(file), contents);
+    } catch (NoSuchFileException e) {
+      return false;
+    }
+  }
+}
@@ -0,0 +1,383 @@
+package com.hubspot.maven.plugins.prettier.internal;
+
+import com.hubspot.maven.plugins.prettier.internal.PrettierResult.Status;
+import java.io.IOException;
+import java.io.Reader;
+import javax.annotation.Nullable;
+
+/**
+ * Reads the records that prettier-runner.js writes to stdout, one JSON
+ * object per line. Records are parsed straight from a char buffer into the
+ * fields of the current record, so that apart from the string values
+ * nothing is allocated per record: no line, no keys, no map.
+ */
+public class RunnerRecordReader {
+
+  public enum Type {
+    READY,
+    DONE,
+    FAILED,
+    RESULT
+  }
+
+  private final Reader reader;
+  private final char[] buffer = new char[8192];
+  private final StringBuilder text = new StringBuilder();
+  private int position = 0;
+  private int limit = 0;
+
+  private Type type;
+  private long id;
+  private Status status;
+  private long durationMillis;
+  @Nullable
+  private String file;
+  @Nullable
+  private String message;
+  @Nullable
+  private String formatted;
+  @Nullable
+  private String version;
+
+  public RunnerRecordReader(Reader reader) {
+    this.reader = reader;
+  }
+
+  /**
+   * Moves to the next record, returns false once the stream is exhausted
+   */
+  public boolean next() throws IOException {
+    skipWhitespace();
+    if (!fill()) {
+      return false;
+    }
+
+    type = null;
+    id = -1;
+    status = null;
+    durationMillis = 0;
+    file = null;
+    message = null;
+    formatted = null;
+    version = null;
+
+    expect('{');
+    skipWhitespace();
+    if (peek() == '}') {
+      position++;
+    } else {
+      while (true) {
+        skipWhitespace();
+        readField();
+        skipWhitespace();
+        char c = nextChar();
+        if (c == '}') {
+          break;
+        } else if (c != ',') {
+          fail("Expected ',' or '}'");
+        }
+      }
+    }
+
+    if (type == null) {
+      throw new IOException("Unexpected output from prettier, record without a status");
+    } else if (type == Type.RESULT && file == null) {
+      throw new IOException("Unexpected output from prettier, result without a file");
+    }
+    return true;
+  }
+
+  public Type getType() {
+    return type;
+  }
+
+  /**
+   * The id of the request this record belongs to, -1 if it has none
+   */
+  public long getId() {
+    return id;
+  }
+
+  @Nullable
+  public String getMessage() {
+    return message;
+  }
+
+  @Nullable
+  public String getVersion() {
+    return version;
+  }
+
+  public PrettierResult toResult() {
+    return new PrettierResult(file, status, durationMillis, message, formatted);
+  }
+
+  private void readField() throws IOException {
+    readString(text);
+    skipWhitespace();
+    expect(':');
+    skipWhitespace();
+
+    if (contentEquals(text, "status")) {
+      readStatus();
+    } else if (contentEquals(text, "file")) {
+      file = readNullableString();
+    } else if (contentEquals(text, "id")) {
+      id = readLong();
+    } else if (contentEquals(text, "ms")) {
+      durationMillis = Math.max(0, readLong());
+    } else if (contentEquals(text, "message")) {
+      message = readNullableString();
+    } else if (contentEquals(text, "formatted")) {
+      formatted = readNullableString();
+    } else if (contentEquals(text, "version")) {
+      version = readNullableString();
+    } else {
+      skipValue();
+    }
+  }
+
+  private void readStatus() throws IOException {
+    readString(text);
+    if (contentEquals(text, "clean")) {
+      type = Type.RESULT;
+      status = Status.CLEAN;
+    } else if (contentEquals(text, "changed")) {
+      type = Type.RESULT;
+      status = Status.CHANGED;
+    } else if (contentEquals(text, "ignored")) {
+      type = Type.RESULT;
+      status = Status.IGNORED;
+    } else if (contentEquals(text, "error")) {
+      type = Type.RESULT;
+      status = Status.ERROR;
+    } else if (contentEquals(text, "done")) {
+      type = Type.DONE;
+    } else if (contentEquals(text, "ready")) {
+      type = Type.READY;
+    } else if (contentEquals(text, "failed")) {
+      type = Type.FAILED;
+    } else {
+      throw new IOException("Unexpected output from prettier, unknown status " + text);
+    }
+  }
+
+  @Nullable
+  private String readNullableString() throws IOException {
+    if (peek() == 'n') {
+      expectLiteral("null");
+      return null;
+    }
+
+    readString(text);
+    return text.toString();
+  }
+
+  /**
+   * Reads a JSON string into the builder, copying unescaped runs in bulk
+   */
+  private void readString(StringBuilder builder) throws IOException {
+    builder.setLength(0);
+    expect('"');
+
+    while (true) {
+      if (!fill()) {
+        throw new IOException("Unexpected end of output from prettier");
+      }
+
+      int start = position;
+      while (position < limit) {
+        char c = buffer[position];
+        if (c == '"' || c == '\\') {
+          break;
+        }
+        position++;
+      }
+      builder.append(buffer, start, position - start);
+
+      if (position == limit) {
+        continue;
+      }
+
+      char c = buffer[position++];
+      if (c == '"') {
+        return;
+      }
+
+      char escaped = nextChar();
+      switch (escaped) {
+        case 'n':
+          builder.append('\n');
+          break;
+        case 'r':
+          builder.append('\r');
+          break;
+        case 't':
+          builder.append('\t');
+          break;
+        case 'b':
+          builder.append('\b');
+          break;
+        case 'f':
+          builder.append('\f');
+          break;
+        case 'u':
+          int codeUnit = 0;
+          for (int i = 0; i < 4; i++) {
+            int digit = Character.digit(nextChar(), 16);
+            if (digit < 0) {
+              fail("Invalid unicode escape");
+            }
+            codeUnit = codeUnit * 16 + digit;
+          }
+          builder.append((char) codeUnit);
+          break;
+        default:
+          builder.append(escaped);
+      }
+    }
+  }
+
+  /**
+   * Reads an integer, any fractional part is dropped
+   */
+  private long readLong() throws IOException {
+    if (peek() == 'n') {
+      expectLiteral("null");
+      return -1;
+    }
+
+    boolean negative = false;
+    if (peek() == '-') {
+      negative = true;
+      position++;
+    }
+
+    long value = 0;
+    boolean hasDigits = false;
+    while (fill() && buffer[position] >= '0' && buffer[position] <= '9') {
+      value = value * 10 + (buffer[position++] - '0');
+      hasDigits = true;
+    }
+    if (!hasDigits) {
+      fail("Expected a number");
+    }
+
+    while (fill() && "+-.eE0123456789".indexOf(buffer[position]) >= 0) {
+      position++;
+    }
+    return negative ? -value : value;
+  }
+
+  private void skipValue() throws IOException {
+    char c = peek();
+    if (c == '"') {
+      readString(text);
+    } else if (c == '{' || c == '[') {
+      char close = c == '{' ? '}' : ']';
+      position++;
+      skipWhitespace();
+      if (peek() == close) {
+        position++;
+        return;
+      }
+
+      do {
+        skipWhitespace();
+        if (close == '}') {
+          readString(text);
+          skipWhitespace();
+          expect(':');
+          skipWhitespace();
+        }
+        skipValue();
+        skipWhitespace();
+        c = nextChar();
+      } while (c == ',');
+
+      if (c != close) {
+        fail("Expected ',' or '" + close + "'");
+      }
+    } else if (c == 't') {
+      expectLiteral("true");
+    } else if (c == 'f') {
+      expectLiteral("false");
+    } else if (c == 'n') {
+      expectLiteral("null");
+    } else {
+      readLong();
+    }
+  }
+
+  private void skipWhitespace() throws IOException {
+    while (fill() && Character.isWhitespace(buffer[position])) {
+      position++;
+    }
+  }
+
+  private void expectLiteral(String literal) throws IOException {
+    for (int i = 0; i < literal.length(); i++) {
+      if (nextChar() != literal.charAt(i)) {
+        fail("Expected " + literal);
+      }
+    }
+  }
+
+  private void expect(char expected) throws IOException {
+    if (nextChar() != expected) {
+      fail("Expected '" + expected + "'");
+    }
+  }
+
+  private char peek() throws IOException {
+    if (!fill()) {
+      throw new IOException("Unexpected end of output from prettier");
+    }
+    return buffer[position];
+  }
+
+  private char nextChar() throws IOException {
+    char c = peek();
+    position++;
+    return c;
+  }
+
+  /**
+   * Makes sure there is at least one char in the buffer, returns false at the end of the stream
+   */
+  private boolean fill() throws IOException {
+    if (position < limit) {
+      return true;
+    }
+
+    int read;
+    do {
+      read = reader.read(buffer, 0, buffer.length);
+    } while (read == 0);
+
+    position = 0;
+    limit = Math.max(0, read);
+    return read > 0;
+  }
+
+  private void fail(String message) throws IOException {
+    // show what node wrote, which is usually a stray console.log or a stack trace
+    StringBuilder context = new StringBuilder();
+    while (context.length() < 200 && fill() && buffer[position] != '\n') {
+      context.append(buffer[position++]);
+    }
+    throw new IOException("Unexpected output from prettier, " + message + ": " + context);
+  }
+
+  private static boolean contentEquals(StringBuilder builder, String value) {
+    if (builder.length() != value.length()) {
+      return false;
+    }
+    for (int i = 0; i < value.length(); i++) {
+      if (builder.charAt(i) != value.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
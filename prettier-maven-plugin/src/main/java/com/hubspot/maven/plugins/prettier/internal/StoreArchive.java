@@ -0,0 +1,103 @@
+package com.hubspot.maven.plugins.prettier.internal;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collection;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.apache.commons.compress.archivers.tar.TarConstants;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorOutputStream;
+
+/**
+ * Packages install store entries as a tar.gz, with paths relative to the
+ * local Maven repository so that it can be unpacked straight into it. Leases
+ * are left out, they only mean something to the JVM that created them.
+ */
+public class StoreArchive {
+  private static final String LEASES_DIRECTORY_NAME = ".leases";
+
+  private StoreArchive() {}
+
+  public static long write(Path archive, Path baseDirectory, Collection<Path> directories) throws IOException {
+    Path archiveDirectory = archive.toAbsolutePath().getParent();
+    Files.createDirectories(archiveDirectory);
+
+    long[] entryCount = { 0 };
+    Path tmpFile = Files.createTempFile(archiveDirectory, ".prettier-prefetch-", ".tmp");
+    try {
+      try (
+          OutputStream outputStream = new BufferedOutputStream(Files.newOutputStream(tmpFile));
+          GzipCompressorOutputStream gzipOutputStream = new GzipCompressorOutputStream(outputStream);
+          TarArchiveOutputStream tarOutputStream = new TarArchiveOutputStream(gzipOutputStream)
+      ) {
+        tarOutputStream.setLongFileMode(TarArchiveOutputStream.LONGFILE_POSIX);
+        tarOutputStream.setBigNumberMode(TarArchiveOutputStream.BIGNUMBER_POSIX);
+
+        for (Path directory : directories) {
+          Files.walkFileTree(
+              directory,
+              new SimpleFileVisitor<>() {
+
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                  if (LEASES_DIRECTORY_NAME.equals(dir.getFileName().toString())) {
+                    return FileVisitResult.SKIP_SUBTREE;
+                  }
+
+                  TarArchiveEntry entry = new TarArchiveEntry(entryName(baseDirectory, dir) + "/");
+                  entry.setModTime(attrs.lastModifiedTime().toMillis());
+                  tarOutputStream.putArchiveEntry(entry);
+                  tarOutputStream.closeArchiveEntry();
+                  entryCount[0]++;
+                  return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                  TarArchiveEntry entry;
+                  if (attrs.isSymbolicLink()) {
+                    // node ships npm and npx as symlinks
+                    entry = new TarArchiveEntry(entryName(baseDirectory, file), TarConstants.LF_SYMLINK);
+                    entry.setLinkName(Files.readSymbolicLink(file).toString().replace('\\', '/'));
+                    tarOutputStream.putArchiveEntry(entry);
+                  } else {
+                    entry = new TarArchiveEntry(entryName(baseDirectory, file));
+                    entry.setSize(attrs.size());
+                    entry.setMode(Files.isExecutable(file) ? 0100755 : 0100644);
+                    entry.setModTime(attrs.lastModifiedTime().toMillis());
+                    tarOutputStream.putArchiveEntry(entry);
+                    Files.copy(file, tarOutputStream);
+                  }
+                  tarOutputStream.closeArchiveEntry();
+                  entryCount[0]++;
+                  return FileVisitResult.CONTINUE;
+                }
+              }
+          );
+        }
+      }
+
+      try {
+        Files.move(tmpFile, archive, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+      } catch (AtomicMoveNotSupportedException e) {
+        Files.move(tmpFile, archive, StandardCopyOption.REPLACE_EXISTING);
+      }
+    } finally {
+      Files.deleteIfExists(tmpFile);
+    }
+
+    return entryCount[0];
+  }
+
+  private static String entryName(Path baseDirectory, Path path) {
+    return baseDirectory.relativize(path).toString().replace('\\', '/');
+  }
+}
@@ -0,0 +1,222 @@
+package com.hubspot.maven.plugins.prettier.internal;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A patch in the unified diff format, as produced by git diff. Applying it
+ * behaves like patch -p1 without fuzz: hunks may have moved by a few lines,
+ * but their context has to match exactly.
+ */
+public class UnifiedPatch {
+  private static final Pattern HUNK_HEADER = Pattern.compile("^@@ -(\\d+)(?:,(\\d+))? \\+(\\d+)(?:,(\\d+))? @@.*");
+  private static final String NO_NEWLINE_MARKER = "\\ No newline at end of file";
+
+  private final List<FilePatch> files;
+
+  private UnifiedPatch(List<FilePatch> files) {
+    this.files = files;
+  }
+
+  public static UnifiedPatch parse(String patch) throws IOException {
+    List<String> lines = splitLines(patch);
+    List<FilePatch> files = new ArrayList<>();
+
+    int i = 0;
+    while (i < lines.size()) {
+      if (!stripLineEnding(lines.get(i)).startsWith("--- ")) {
+        i++;
+        continue;
+      }
+
+      if (i + 1 >= lines.size() || !stripLineEnding(lines.get(i + 1)).startsWith("+++ ")) {
+        throw new IOException("Invalid patch, expected +++ after line " + (i + 1));
+      }
+      String path = stripComponent(stripLineEnding(lines.get(i + 1)).substring(4));
+      FilePatch file = new FilePatch(path);
+      i += 2;
+
+      while (i < lines.size()) {
+        Matcher matcher = HUNK_HEADER.matcher(stripLineEnding(lines.get(i)));
+        if (!matcher.matches()) {
+          break;
+        }
+
+        Hunk hunk = new Hunk(Integer.parseInt(matcher.group(1)));
+        int oldCount = matcher.group(2) == null ? 1 : Integer.parseInt(matcher.group(2));
+        int newCount = matcher.group(4) == null ? 1 : Integer.parseInt(matcher.group(4));
+        i++;
+
+        while (oldCount > 0 || newCount > 0) {
+          if (i >= lines.size()) {
+            throw new IOException("Invalid patch, hunk for " + path + " is truncated");
+          }
+
+          String line = lines.get(i++);
+          char type;
+          String content;
+          if (stripLineEnding(line).isEmpty()) {
+            // some editors strip the leading space of empty context lines
+            type = ' ';
+            content = line;
+          } else {
+            type = line.charAt(0);
+            content = line.substring(1);
+          }
+
+          if (i < lines.size() && lines.get(i).startsWith(NO_NEWLINE_MARKER)) {
+            content = stripLineEnding(content);
+            i++;
+          }
+
+          if (type == ' ') {
+            hunk.oldLines.add(content);
+            hunk.newLines.add(content);
+            oldCount--;
+            newCount--;
+          } else if (type == '-') {
+            hunk.oldLines.add(content);
+            oldCount--;
+          } else if (type == '+') {
+            hunk.newLines.add(content);
+            newCount--;
+          } else {
+            throw new IOException("Invalid patch, unexpected line in hunk for " + path + ": " + line);
+          }
+        }
+
+        file.hunks.add(hunk);
+      }
+
+      if (file.hunks.isEmpty()) {
+        throw new IOException("Invalid patch, no hunks for " + path);
+      }
+      files.add(file);
+    }
+
+    return new UnifiedPatch(files);
+  }
+
+  public List<FilePatch> getFiles() {
+    return files;
+  }
+
+  public static class FilePatch {
+    private final String path;
+    private final List<Hunk> hunks = new ArrayList<>();
+
+    private FilePatch(String path) {
+      this.path = path;
+    }
+
+    /**
+     * The path of the patched file, with the first component (a/ or b/) stripped
+     */
+    public String getPath() {
+      return path;
+    }
+
+    /**
+     * Applies the hunks to the contents of the file, throws if any of them doesn't match
+     */
+    public String apply(String contents) throws IOException {
+      List<String> lines = splitLines(contents);
+      List<String> result = new ArrayList<>(lines.size());
+      int position = 0;
+
+      for (Hunk hunk : hunks) {
+        int start = find(lines, hunk, position);
+        if (start < 0) {
+          throw new IOException("Hunk at line " + hunk.oldStart + " of " + path + " doesn't apply");
+        }
+
+        result.addAll(lines.subList(position, start));
+        result.addAll(hunk.newLines);
+        position = start + hunk.oldLines.size();
+      }
+      result.addAll(lines.subList(position, lines.size()));
+
+      return String.join("", result);
+    }
+
+    /**
+     * Looks for the hunk's old lines at the line it expects, then further and further away
+     */
+    private static int find(List<String> lines, Hunk hunk, int from) {
+      // a hunk that removes nothing from an empty file starts at line 0
+      int expected = Math.max(from, hunk.oldStart - (hunk.oldLines.isEmpty() ? 0 : 1));
+      int last = lines.size() - hunk.oldLines.size();
+
+      for (int offset = 0; expected - offset >= from || expected + offset <= last; offset++) {
+        if (expected + offset <= last && matches(lines, hunk, expected + offset)) {
+          return expected + offset;
+        } else if (offset > 0 && expected - offset >= from && expected - offset <= last && matches(lines, hunk, expected - offset)) {
+          return expected - offset;
+        }
+      }
+      return -1;
+    }
+
+    private static boolean matches(List<String> lines, Hunk hunk, int start) {
+      for (int i = 0; i < hunk.oldLines.size(); i++) {
+        if (!lines.get(start + i).equals(hunk.oldLines.get(i))) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+
+  private static class Hunk {
+    private final int oldStart;
+    private final List<String> oldLines = new ArrayList<>();
+    private final List<String> newLines = new ArrayList<>();
+
+    private Hunk(int oldStart) {
+      this.oldStart = oldStart;
+    }
+  }
+
+  /**
+   * Splits into lines that keep their line endings, so that files are patched byte for byte
+   */
+  private static List<String> splitLines(String text) {
+    List<String> lines = new ArrayList<>();
+    int start = 0;
+    while (start < text.length()) {
+      int end = text.indexOf('\n', start);
+      end = end < 0 ? text.length() : end + 1;
+      lines.add(text.substring(start, end));
+      start = end;
+    }
+    return lines;
+  }
+
+  private static String stripLineEnding(String line) {
+    int end = line.length();
+    if (end > 0 && line.charAt(end - 1) == '\n') {
+      end--;
+    }
+    if (end > 0 && line.charAt(end - 1) == '\r') {
+      end--;
+    }
+    return line.substring(0, end);
+  }
+
+  private static String stripComponent(String path) throws IOException {
+    // git appends the timestamp after a tab for some diff formats
+    int tab = path.indexOf('\t');
+    if (tab >= 0) {
+      path = path.substring(0, tab);
+    }
+
+    int slash = path.indexOf('/');
+    if (slash < 0) {
+      throw new IOException("Invalid patch, can't strip a path component from " + path);
+    }
+    return path.substring(slash + 1);
+  }
+}
@@ -0,0 +1,222 @@
+'use strict';
+
+/*
+ * Loads prettier and prettier-plugin-java into an embedded JavaScript engine
+ * (GraalJS) on behalf of the prettier-maven-plugin.
+ *
+ * There is no node here: modules are loaded by a minimal CommonJS loader that
+ * reads files through the host object, and prettier itself is the standalone
+ * build, which doesn't need the file system. Node built-in modules aren't
+ * available.
+ *
+ * Evaluating this script returns a function that takes the host, the path of
+ * the prettier module and the path of the plugin, and returns a formatter:
+ *   format(source, filepath, optionsJson) -> {formatted: "..."} or {error: "..."}
+ * Results are filled in once prettier's promise settles, which the embedding
+ * engine does before returning to the host.
+ */
+
+(function () {
+  function normalize(path) {
+    const absolute = path.startsWith('/');
+    const parts = [];
+    for (const part of path.replace(/\\/g, '/').split('/')) {
+      if (part === '' || part === '.') {
+        continue;
+      } else if (part === '..' && parts.length > 0 && parts[parts.length - 1] !== '..') {
+        parts.pop();
+      } else {
+        parts.push(part);
+      }
+    }
+    return (absolute ? '/' : '') + parts.join('/');
+  }
+
+  function dirname(path) {
+    const index = path.lastIndexOf('/');
+    return index <= 0 ? '/' : path.substring(0, index);
+  }
+
+  function join(directory, path) {
+    return normalize(directory + '/' + path);
+  }
+
+  function installGlobals() {
+    const global = Function('return this')();
+    if (typeof global.global === 'undefined') {
+      global.global = global;
+    }
+    if (typeof global.process === 'undefined') {
+      global.process = {
+        env: {},
+        argv: [],
+        platform: 'embedded',
+        version: '',
+        versions: {},
+        cwd: () => '/',
+        nextTick: (callback, ...args) => Promise.resolve().then(() => callback(...args))
+      };
+    }
+    if (typeof global.setTimeout === 'undefined') {
+      // there is no event loop, so timers run as soon as the current job is done
+      global.setTimeout = (callback, delay, ...args) => Promise.resolve().then(() => callback(...args));
+      global.clearTimeout = () => {};
+    }
+    if (typeof global.queueMicrotask === 'undefined') {
+      global.queueMicrotask = callback => Promise.resolve().then(callback);
+    }
+  }
+
+  function createLoader(host, aliases) {
+    const cache = {};
+
+    function evaluate(source, filename) {
+      const wrapper = '(function (exports, require, module, __filename, __dirname) {' + source + '\n})';
+      // GraalJS can name the script, so that stack traces point at the module
+      return typeof load === 'function'
+        ? load({ name: filename, script: wrapper })
+        : (0, eval)(wrapper);
+    }
+
+    function resolveFile(path) {
+      for (const candidate of [path, path + '.js', path + '.cjs', path + '.json']) {
+        if (host.isFile(candidate)) {
+          return candidate;
+        }
+      }
+
+      if (host.isDirectory(path)) {
+        const packageJson = join(path, 'package.json');
+        if (host.isFile(packageJson)) {
+          const main = JSON.parse(host.readFile(packageJson)).main;
+          if (main) {
+            const resolved = resolveFile(join(path, main));
+            if (resolved) {
+              return resolved;
+            }
+          }
+        }
+        return resolveFile(join(path, 'index'));
+      }
+
+      return null;
+    }
+
+    function resolve(id, directory) {
+      if (id.startsWith('./') || id.startsWith('../') || id.startsWith('/')) {
+        return resolveFile(join(directory, id));
+      }
+
+      for (let current = directory; ; current = dirname(current)) {
+        if (!current.endsWith('/node_modules')) {
+          const resolved = resolveFile(join(current, 'node_modules/' + id));
+          if (resolved) {
+            return resolved;
+          }
+        }
+        if (current === '/') {
+          return null;
+        }
+      }
+    }
+
+    function loadModule(filename) {
+      if (cache[filename]) {
+        return cache[filename].exports;
+      }
+
+      const module = { id: filename, filename: filename, exports: {}, loaded: false };
+      cache[filename] = module;
+
+      const source = host.readFile(filename);
+      if (filename.endsWith('.json')) {
+        module.exports = JSON.parse(source);
+      } else {
+        const directory = dirname(filename);
+        evaluate(source.replace(/^#!.*/, ''), filename).call(
+          module.exports,
+          module.exports,
+          id => requireFrom(id, directory),
+          module,
+          filename,
+          directory
+        );
+      }
+
+      module.loaded = true;
+      return module.exports;
+    }
+
+    function requireFrom(id, directory) {
+      if (Object.prototype.hasOwnProperty.call(aliases, id)) {
+        return aliases[id]();
+      }
+
+      const filename = resolve(id.replace(/^node:/, ''), directory);
+      if (!filename) {
+        throw new Error(
+          "Cannot find module '" + id + "' from " + directory +
+          ', node built-in modules are not available in the embedded engine'
+        );
+      }
+      return loadModule(filename);
+    }
+
+    return { load: loadModule, resolveFile: resolveFile };
+  }
+
+  return function (host, prettierPath, pluginPath) {
+    installGlobals();
+
+    prettierPath = normalize(prettierPath);
+    pluginPath = normalize(pluginPath);
+
+    let prettier = null;
+    let loader = null;
+    const standalone = () => {
+      if (!prettier) {
+        const filename = loader.resolveFile(join(prettierPath, 'standalone'));
+        if (!filename) {
+          throw new Error('No standalone build found in ' + prettierPath);
+        }
+        prettier = loader.load(filename);
+      }
+      return prettier;
+    };
+    const doc = () => {
+      const filename = loader.resolveFile(join(prettierPath, 'doc'));
+      return filename ? loader.load(filename) : standalone().doc;
+    };
+
+    // the plugin requires prettier itself, which has to be the standalone build here
+    loader = createLoader(host, {
+      prettier: standalone,
+      'prettier/standalone': standalone,
+      'prettier/doc': doc
+    });
+
+    const plugin = loader.load(loader.resolveFile(pluginPath));
+    const plugins = [plugin.default || plugin];
+
+    return {
+      version: standalone().version,
+      format: function (source, filepath, optionsJson) {
+        const result = {};
+        const options = Object.assign({}, JSON.parse(optionsJson), { filepath: filepath, plugins: plugins });
+        try {
+          Promise.resolve(standalone().format(source, options)).then(
+            formatted => {
+              result.formatted = formatted;
+            },
+            error => {
+              result.error = String(error);
+            }
+          );
+        } catch (error) {
+          result.error = String(error);
+        }
+        return result;
+      }
+    };
+  };
+})();
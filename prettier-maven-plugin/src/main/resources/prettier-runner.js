@@ -0,0 +1,342 @@
+'use strict';
+
+/*
+ * Runs prettier on behalf of the prettier-maven-plugin.
+ *
+ * With --daemon this keeps running and reads requests from stdin, one JSON
+ * object per line:
+ *   {"id": 1, "mode": "check", "cwd": "/path/to/module", "files": ["src/main/java/Foo.java"]}
+ *
+ * For every file one JSON object is written to stdout, followed by a final
+ * record once the request is done:
+ *   {"id": 1, "file": "src/main/java/Foo.java", "status": "changed", "ms": 12}
+ *   {"id": 1, "status": "done"}
+ *
+ * Statuses are "clean", "changed", "ignored" and "error" (with a "message").
+ * Modes are "check" (report only), "write" (rewrite changed files) and
+ * "format" (report only, changed records include the "formatted" contents).
+ * The write goal of the plugin uses "format" and writes the files itself.
+ *
+ * Without --daemon a single request is read from the command line instead,
+ * e.g. --format src/main/java/Foo.java, relative to the working directory.
+ * With --files-from <file> the files are read from that file instead, one
+ * per line, where - is stdin. That way there's no limit on the number of
+ * files, which the command line has.
+ *
+ * In both cases, a {"status": "ready", "version": "3.0.0"} record is written
+ * once prettier is loaded.
+ *
+ * With --compile-cache <dir>, the code V8 compiles for prettier and its
+ * plugins is cached in that directory, so later runs skip most of the
+ * parsing and compiling. Node 22.8+ has a built-in compile cache, older
+ * versions use V8 code caches of the CommonJS modules.
+ */
+
+const fs = require('fs');
+const path = require('path');
+const readline = require('readline');
+
+function parseArgs(argv) {
+  const args = {
+    prettier: null,
+    plugin: null,
+    daemon: false,
+    compileCache: null,
+    mode: null,
+    files: [],
+    filesFrom: null,
+    config: true,
+    editorconfig: true,
+    options: {}
+  };
+
+  for (let i = 0; i < argv.length; i++) {
+    const arg = argv[i];
+    if (arg === '--prettier') {
+      args.prettier = argv[++i];
+    } else if (arg.startsWith('--plugin=')) {
+      args.plugin = arg.substring('--plugin='.length);
+    } else if (arg === '--daemon') {
+      args.daemon = true;
+    } else if (arg === '--files-from') {
+      args.filesFrom = argv[++i];
+    } else if (arg === '--compile-cache') {
+      args.compileCache = argv[++i];
+    } else if (arg === '--check' || arg === '--write' || arg === '--format') {
+      args.mode = arg.substring(2);
+    } else if (arg === '--print-width') {
+      args.options.printWidth = Number(argv[++i]);
+    } else if (arg === '--tab-width') {
+      args.options.tabWidth = Number(argv[++i]);
+    } else if (arg === '--use-tabs') {
+      args.options.useTabs = argv[++i] === 'true';
+    } else if (arg === '--end-of-line') {
+      args.options.endOfLine = argv[++i];
+    } else if (arg === '--no-config') {
+      args.config = false;
+    } else if (arg === '--no-editorconfig') {
+      args.editorconfig = false;
+    } else if (arg.startsWith('--')) {
+      throw new Error('Unknown argument: ' + arg);
+    } else {
+      args.files.push(arg);
+    }
+  }
+
+  if (!args.prettier || !args.plugin) {
+    throw new Error('--prettier and --plugin are required');
+  } else if (!args.daemon && !args.mode) {
+    throw new Error('One of --daemon, --check, --write or --format is required');
+  }
+
+  if (args.filesFrom !== null) {
+    // read it all before writing anything, so the plugin can write the whole list first
+    const list = fs.readFileSync(args.filesFrom === '-' ? 0 : args.filesFrom, 'utf8');
+    for (const line of list.split(/\r?\n/)) {
+      if (line.length > 0) {
+        args.files.push(line);
+      }
+    }
+  }
+
+  return args;
+}
+
+function enableCompileCache(directory) {
+  const Module = require('module');
+  if (typeof Module.enableCompileCache === 'function') {
+    // also covers ES modules, and keeps caches of different node versions apart
+    Module.enableCompileCache(directory);
+    return;
+  }
+
+  installCodeCache(Module, path.join(directory, 'v8-' + process.version + '-' + process.arch));
+}
+
+/*
+ * Compiles CommonJS modules like Module.prototype._compile does, with V8
+ * code caches that are written when the process exits. Caches are only used
+ * if V8 accepts them for the exact same source, so stale ones are harmless.
+ */
+function installCodeCache(Module, directory) {
+  const crypto = require('crypto');
+  const vm = require('vm');
+  const compile = Module.prototype._compile;
+  const stale = [];
+
+  function makeRequire(module) {
+    const moduleRequire = id => module.require(id);
+    moduleRequire.resolve = (request, options) => Module._resolveFilename(request, module, false, options);
+    moduleRequire.resolve.paths = request => Module._resolveLookupPaths(request, module);
+    moduleRequire.main = require.main;
+    moduleRequire.extensions = Module._extensions;
+    moduleRequire.cache = Module._cache;
+    return moduleRequire;
+  }
+
+  Module.prototype._compile = function (content, filename) {
+    const cacheFile = path.join(
+      directory,
+      crypto.createHash('sha1').update(filename).digest('hex') + '.bin'
+    );
+
+    let cachedData;
+    try {
+      cachedData = fs.readFileSync(cacheFile);
+    } catch (error) {
+      cachedData = undefined;
+    }
+
+    let script;
+    try {
+      // a shebang isn't valid inside the wrapper, blank it to keep line numbers
+      script = new vm.Script(Module.wrap(content.replace(/^#!.*/, '')), {
+        filename: filename,
+        cachedData: cachedData
+      });
+    } catch (error) {
+      // let node report syntax errors the usual way
+      return compile.call(this, content, filename);
+    }
+
+    if (!cachedData || script.cachedDataRejected) {
+      stale.push({ script: script, cacheFile: cacheFile });
+    }
+
+    const moduleFunction = script.runInThisContext({ displayErrors: true });
+    return moduleFunction.call(
+      this.exports,
+      this.exports,
+      makeRequire(this),
+      this,
+      filename,
+      path.dirname(filename)
+    );
+  };
+
+  // by the time the process exits, the functions prettier used are compiled too
+  process.once('exit', () => {
+    for (const entry of stale) {
+      const tmpFile = entry.cacheFile + '.' + process.pid + '.tmp';
+      try {
+        fs.mkdirSync(directory, { recursive: true });
+        fs.writeFileSync(tmpFile, entry.script.createCachedData());
+        fs.renameSync(tmpFile, entry.cacheFile);
+      } catch (error) {
+        // a read-only install just doesn't get a cache
+        try {
+          fs.unlinkSync(tmpFile);
+        } catch (ignored) {
+          // never written
+        }
+      }
+    }
+  });
+}
+
+function createRunner(args) {
+  const prettier = require(args.prettier);
+  const majorVersion = Number(String(prettier.version).split('.')[0]);
+  const plugins = [args.plugin];
+
+  function ignorePath(cwd) {
+    // matches the defaults of the prettier CLI
+    if (majorVersion >= 3) {
+      return [path.join(cwd, '.gitignore'), path.join(cwd, '.prettierignore')];
+    } else {
+      return path.join(cwd, '.prettierignore');
+    }
+  }
+
+  async function resolveOptions(filepath) {
+    // like the CLI, --no-config skips .editorconfig too
+    const config = args.config
+      ? await prettier.resolveConfig(filepath, { editorconfig: args.editorconfig })
+      : null;
+
+    return Object.assign({}, config, args.options, {
+      filepath: filepath,
+      plugins: ((config && config.plugins) || []).concat(plugins)
+    });
+  }
+
+  async function processFile(mode, cwd, file) {
+    const filepath = path.resolve(cwd, file);
+    const fileInfo = await prettier.getFileInfo(filepath, {
+      ignorePath: ignorePath(cwd),
+      plugins: plugins
+    });
+
+    if (fileInfo.ignored) {
+      return { status: 'ignored' };
+    } else if (!fileInfo.inferredParser) {
+      return { status: 'error', message: 'No parser could be inferred for file: ' + file };
+    }
+
+    const options = await resolveOptions(filepath);
+    const input = fs.readFileSync(filepath, 'utf8');
+    const output = await prettier.format(input, options);
+
+    if (output === input) {
+      return { status: 'clean' };
+    }
+
+    if (mode === 'write') {
+      // replace the file atomically, so nothing ever sees it half written
+      const tmpFile = filepath + '.' + process.pid + '.tmp';
+      try {
+        fs.writeFileSync(tmpFile, output, { encoding: 'utf8', mode: fs.statSync(filepath).mode });
+        fs.renameSync(tmpFile, filepath);
+      } finally {
+        if (fs.existsSync(tmpFile)) {
+          fs.unlinkSync(tmpFile);
+        }
+      }
+    } else if (mode === 'format') {
+      return { status: 'changed', formatted: output };
+    }
+
+    return { status: 'changed' };
+  }
+
+  async function run(request, emit) {
+    // config files might have changed since the previous request
+    await prettier.clearConfigCache();
+
+    for (const file of request.files) {
+      const start = Date.now();
+      let result;
+      try {
+        result = await processFile(request.mode, request.cwd, file);
+      } catch (error) {
+        result = { status: 'error', message: String(error) };
+      }
+
+      emit(Object.assign({ id: request.id, file: file }, result, { ms: Date.now() - start }));
+    }
+
+    emit({ id: request.id, status: 'done' });
+  }
+
+  return { version: prettier.version, run: run };
+}
+
+function emit(record) {
+  process.stdout.write(JSON.stringify(record) + '\n');
+}
+
+function serve(runner) {
+  let queue = Promise.resolve();
+
+  const input = readline.createInterface({ input: process.stdin, terminal: false });
+  input.on('line', line => {
+    if (line.trim().length === 0) {
+      return;
+    }
+
+    let request;
+    try {
+      request = JSON.parse(line);
+    } catch (error) {
+      emit({ status: 'failed', message: 'Invalid request: ' + String(error) });
+      return;
+    }
+
+    // requests are handled one at a time, in the order they were received
+    queue = queue.then(() => runner.run(request, emit)).catch(error => {
+      emit({ id: request.id, status: 'failed', message: String(error) });
+    });
+  });
+
+  // once the plugin closes stdin (or the JVM exits) node exits by itself
+  // after the last queued request is done and stdout has been flushed
+}
+
+function main() {
+  // stdout is reserved for records, plugins that log would corrupt them
+  console.log = console.info = console.debug = console.error;
+
+  const args = parseArgs(process.argv.slice(2));
+  if (args.compileCache) {
+    enableCompileCache(args.compileCache);
+  }
+  const runner = createRunner(args);
+
+  emit({ status: 'ready', version: runner.version });
+  if (args.daemon) {
+    serve(runner);
+  } else {
+    const request = { mode: args.mode, cwd: process.cwd(), files: args.files };
+    runner.run(request, emit).catch(error => {
+      emit({ status: 'failed', message: String(error) });
+      process.exitCode = 1;
+    });
+  }
+}
+
+try {
+  main();
+} catch (error) {
+  process.stderr.write(String((error && error.stack) || error) + '\n');
+  process.exitCode = 1;
+}
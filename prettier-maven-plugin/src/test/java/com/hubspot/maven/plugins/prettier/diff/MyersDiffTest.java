@@ -0,0 +1,100 @@
+package com.hubspot.maven.plugins.prettier.diff;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+public class MyersDiffTest {
+
+  @Test
+  public void itFindsNoChangesInIdenticalLines() {
+    MyersDiff diff = MyersDiff.compute(lines("a", "b", "c"), lines("a", "b", "c"));
+
+    assertThat(diff.hasChanges()).isFalse();
+    assertThat(MyersDiff.compute(lines(), lines()).hasChanges()).isFalse();
+  }
+
+  @Test
+  public void itMarksDeletedAndInsertedLines() {
+    MyersDiff diff = MyersDiff.compute(lines("a", "b", "c", "d"), lines("a", "x", "c", "d", "e"));
+
+    assertThat(diff.hasChanges()).isTrue();
+    assertThat(deleted(diff, 4)).containsExactly(false, true, false, false);
+    assertThat(inserted(diff, 5)).containsExactly(false, true, false, false, true);
+  }
+
+  @Test
+  public void itFindsAShortestEditScript() {
+    Random random = new Random(42);
+    for (int run = 0; run < 500; run++) {
+      List<String> original = randomLines(random);
+      List<String> revised = randomLines(random);
+
+      MyersDiff diff = MyersDiff.compute(original, revised);
+
+      int unchanged = 0;
+      List<String> kept = new ArrayList<>();
+      for (int i = 0; i < original.size(); i++) {
+        if (!diff.isDeleted(i)) {
+          kept.add(original.get(i));
+        }
+      }
+      List<String> keptRevised = new ArrayList<>();
+      for (int j = 0; j < revised.size(); j++) {
+        if (!diff.isInserted(j)) {
+          keptRevised.add(revised.get(j));
+          unchanged++;
+        }
+      }
+
+      // the unchanged lines are the same on both sides, and as many as possible
+      assertThat(kept).as("%s -> %s", original, revised).isEqualTo(keptRevised);
+      assertThat(unchanged).as("%s -> %s", original, revised).isEqualTo(longestCommonSubsequence(original, revised));
+    }
+  }
+
+  private static List<String> randomLines(Random random) {
+    int size = random.nextInt(30);
+    List<String> lines = new ArrayList<>();
+    for (int i = 0; i < size; i++) {
+      lines.add(Character.toString((char) ('a' + random.nextInt(4))));
+    }
+    return lines;
+  }
+
+  private static int longestCommonSubsequence(List<String> a, List<String> b) {
+    int[][] lengths = new int[a.size() + 1][b.size() + 1];
+    for (int i = a.size() - 1; i >= 0; i--) {
+      for (int j = b.size() - 1; j >= 0; j--) {
+        lengths[i][j] =
+          a.get(i).equals(b.get(j)) ? lengths[i + 1][j + 1] + 1 : Math.max(lengths[i + 1][j], lengths[i][j + 1]);
+      }
+    }
+    return lengths[0][0];
+  }
+
+  private static List<Boolean> deleted(MyersDiff diff, int size) {
+    List<Boolean> result = new ArrayList<>();
+    for (int i = 0; i < size; i++) {
+      result.add(diff.isDeleted(i));
+    }
+    return result;
+  }
+
+  private static List<Boolean> inserted(MyersDiff diff, int size) {
+    List<Boolean> result = new ArrayList<>();
+    for (int j = 0; j < size; j++) {
+      result.add(diff.isInserted(j));
+    }
+    return result;
+  }
+
+  private static List<String> lines(String... lines) {
+    return lines.length == 0 ? Collections.emptyList() : Arrays.asList(lines);
+  }
+}
@@ -0,0 +1,146 @@
+package com.hubspot.maven.plugins.prettier.diff;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The expected hunks are what diff -u prints for the same files
+ */
+public class UnifiedDiffTest {
+
+  @Test
+  public void itWritesNothingForIdenticalFiles() throws IOException {
+    StringWriter writer = new StringWriter();
+
+    assertThat(UnifiedDiff.write(writer, "Foo.java", "a\nb\n", "a\nb\n")).isFalse();
+    assertThat(UnifiedDiff.write(writer, "Foo.java", "", "")).isFalse();
+    assertThat(writer.toString()).isEmpty();
+  }
+
+  @Test
+  public void itDiffsAgainstAnEmptyFile() throws IOException {
+    assertThat(diff("", "a\nb\nc\n")).isEqualTo(
+        "--- Foo.java\n" +
+        "+++ Foo.java\n" +
+        "@@ -0,0 +1,3 @@\n" +
+        "+a\n" +
+        "+b\n" +
+        "+c\n"
+    );
+    assertThat(diff("a\nb\nc\n", "")).isEqualTo(
+        "--- Foo.java\n" +
+        "+++ Foo.java\n" +
+        "@@ -1,3 +0,0 @@\n" +
+        "-a\n" +
+        "-b\n" +
+        "-c\n"
+    );
+  }
+
+  @Test
+  public void itMarksAMissingNewlineAtTheEndOfTheOriginal() throws IOException {
+    assertThat(diff("a\nb\nc", "a\nb\nc\n")).isEqualTo(
+        "--- Foo.java\n" +
+        "+++ Foo.java\n" +
+        "@@ -1,3 +1,3 @@\n" +
+        " a\n" +
+        " b\n" +
+        "-c\n" +
+        "\\ No newline at end of file\n" +
+        "+c\n"
+    );
+  }
+
+  @Test
+  public void itMarksAMissingNewlineAtTheEndOfTheRevision() throws IOException {
+    assertThat(diff("a\nb\nc\n", "a\nb\nd")).isEqualTo(
+        "--- Foo.java\n" +
+        "+++ Foo.java\n" +
+        "@@ -1,3 +1,3 @@\n" +
+        " a\n" +
+        " b\n" +
+        "-c\n" +
+        "+d\n" +
+        "\\ No newline at end of file\n"
+    );
+  }
+
+  @Test
+  public void itKeepsCarriageReturns() throws IOException {
+    assertThat(diff("a\r\nb\r\nc\r\n", "a\nb\r\nc\n")).isEqualTo(
+        "--- Foo.java\n" +
+        "+++ Foo.java\n" +
+        "@@ -1,3 +1,3 @@\n" +
+        "-a\r\n" +
+        "+a\n" +
+        " b\r\n" +
+        "-c\r\n" +
+        "+c\n"
+    );
+  }
+
+  @Test
+  public void itMergesHunksWhoseContextOverlaps() throws IOException {
+    // six unchanged lines between the changes fit in the context of both
+    assertThat(diff(numbers(20), numbers(20).replace("\n2\n", "\ntwo\n").replace("\n9\n", "\nnine\n"))).isEqualTo(
+        "--- Foo.java\n" +
+        "+++ Foo.java\n" +
+        "@@ -1,12 +1,12 @@\n" +
+        " 1\n" +
+        "-2\n" +
+        "+two\n" +
+        " 3\n" +
+        " 4\n" +
+        " 5\n" +
+        " 6\n" +
+        " 7\n" +
+        " 8\n" +
+        "-9\n" +
+        "+nine\n" +
+        " 10\n" +
+        " 11\n" +
+        " 12\n"
+    );
+  }
+
+  @Test
+  public void itSplitsHunksWhoseContextDoesntOverlap() throws IOException {
+    assertThat(diff(numbers(20), numbers(20).replace("\n2\n", "\ntwo\n").replace("\n10\n", "\nten\n"))).isEqualTo(
+        "--- Foo.java\n" +
+        "+++ Foo.java\n" +
+        "@@ -1,5 +1,5 @@\n" +
+        " 1\n" +
+        "-2\n" +
+        "+two\n" +
+        " 3\n" +
+        " 4\n" +
+        " 5\n" +
+        "@@ -7,7 +7,7 @@\n" +
+        " 7\n" +
+        " 8\n" +
+        " 9\n" +
+        "-10\n" +
+        "+ten\n" +
+        " 11\n" +
+        " 12\n" +
+        " 13\n"
+    );
+  }
+
+  private static String diff(String original, String revised) throws IOException {
+    StringWriter writer = new StringWriter();
+    assertThat(UnifiedDiff.write(writer, "Foo.java", original, revised)).isTrue();
+    return writer.toString();
+  }
+
+  private static String numbers(int count) {
+    StringBuilder text = new StringBuilder();
+    for (int i = 1; i <= count; i++) {
+      text.append(i).append('\n');
+    }
+    return text.toString();
+  }
+}
@@ -0,0 +1,27 @@
+package com.hubspot.maven.plugins.prettier.internal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+public class BuildMarkersTest {
+
+  @Test
+  public void itFindsPrettierPositions() {
+    assertThat(BuildMarkers.position("SyntaxError: Unexpected token (12:4)")).containsExactly(12, 4);
+  }
+
+  @Test
+  public void itFindsPrettierJavaPositions() {
+    assertThat(
+        BuildMarkers.position("Error: Sad sad panda, parsing errors detected in line: 3, column: 17!")
+    )
+        .containsExactly(3, 17);
+  }
+
+  @Test
+  public void itDefaultsToTheStartOfTheFile() {
+    assertThat(BuildMarkers.position("Error writing formatted file: disk full")).containsExactly(0, 0);
+    assertThat(BuildMarkers.position(null)).containsExactly(0, 0);
+  }
+}
@@ -0,0 +1,106 @@
+package com.hubspot.maven.plugins.prettier.internal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class FileShardsTest {
+  @TempDir
+  Path directory;
+
+  @Test
+  public void itPutsEveryFileInExactlyOneShard() throws IOException {
+    List<Path> files = files(new Random(1), 200);
+
+    for (int shardCount : Arrays.asList(1, 2, 3, 7, 16)) {
+      List<List<Path>> shards = FileShards.split(files, shardCount);
+
+      assertThat(shards).hasSize(shardCount);
+      List<Path> sharded = new ArrayList<>();
+      shards.forEach(sharded::addAll);
+      assertThat(sharded).containsExactlyInAnyOrderElementsOf(files);
+      if (shardCount > 1) {
+        // the files of a shard are sorted, a single shard keeps the scan order
+        for (List<Path> shard : shards) {
+          assertThat(shard).isSorted();
+        }
+      }
+    }
+  }
+
+  @Test
+  public void itNeverHasMoreShardsThanFiles() throws IOException {
+    List<Path> files = files(new Random(2), 3);
+
+    List<List<Path>> shards = FileShards.split(files, 8);
+
+    assertThat(shards).hasSize(3).allSatisfy(shard -> assertThat(shard).hasSize(1));
+    assertThat(FileShards.split(files.subList(0, 1), 8)).containsExactly(files.subList(0, 1));
+  }
+
+  @Test
+  public void itBalancesTheShardSizes() throws IOException {
+    Random random = new Random(3);
+    List<Path> files = files(random, 500);
+    long largestFile = 0;
+    for (Path file : files) {
+      largestFile = Math.max(largestFile, Files.size(file));
+    }
+
+    for (int shardCount : Arrays.asList(2, 4, 8)) {
+      List<List<Path>> shards = FileShards.split(files, shardCount);
+
+      long smallest = Long.MAX_VALUE;
+      long largest = 0;
+      for (List<Path> shard : shards) {
+        long size = 0;
+        for (Path file : shard) {
+          size += Files.size(file);
+        }
+        smallest = Math.min(smallest, size);
+        largest = Math.max(largest, size);
+      }
+      // a shard only ever gets another file while it is the smallest
+      assertThat(largest - smallest).isLessThanOrEqualTo(largestFile);
+    }
+  }
+
+  @Test
+  public void itSpreadsLargeFiles() throws IOException {
+    Path large1 = file("Large1.java", 10_000);
+    Path large2 = file("Large2.java", 10_000);
+    List<Path> files = new ArrayList<>(Arrays.asList(large1, large2));
+    for (int i = 0; i < 10; i++) {
+      files.add(file("Small" + i + ".java", 100));
+    }
+
+    List<List<Path>> shards = FileShards.split(files, 2);
+
+    assertThat(shards).anySatisfy(shard -> assertThat(shard).contains(large1).doesNotContain(large2));
+    assertThat(shards).allSatisfy(shard -> assertThat(shard).hasSize(6));
+  }
+
+  private List<Path> files(Random random, int count) throws IOException {
+    List<Path> files = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      // mostly small files, with the occasional large one
+      int size = random.nextInt(10) == 0 ? 5_000 + random.nextInt(20_000) : random.nextInt(2_000);
+      files.add(file("File" + i + ".java", size));
+    }
+    return files;
+  }
+
+  private Path file(String name, int size) throws IOException {
+    Path file = directory.resolve(name);
+    Files.write(file, new byte[size]);
+    return file;
+  }
+}
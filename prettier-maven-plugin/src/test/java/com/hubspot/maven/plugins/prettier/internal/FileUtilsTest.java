@@ -0,0 +1,169 @@
+package com.hubspot.maven.plugins.prettier.internal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class FileUtilsTest {
+  @TempDir
+  Path directory;
+
+  @Test
+  public void itDoesntTouchFilesWithTheSameContents() throws IOException {
+    Path file = write("Foo.java", "class Foo {}\n");
+    FileTime lastModified = FileTime.fromMillis(1_000_000_000L);
+    Files.setLastModifiedTime(file, lastModified);
+    Object fileKey = Files.readAttributes(file, BasicFileAttributes.class).fileKey();
+
+    assertThat(FileUtils.writeIfChanged(file, bytes("class Foo {}\n"))).isFalse();
+
+    assertThat(Files.getLastModifiedTime(file)).isEqualTo(lastModified);
+    assertThat(Files.readAttributes(file, BasicFileAttributes.class).fileKey()).isEqualTo(fileKey);
+  }
+
+  @Test
+  public void itReplacesChangedFiles() throws IOException {
+    Path file = write("Foo.java", "class  Foo {}\n");
+    Files.setLastModifiedTime(file, FileTime.fromMillis(1_000_000_000L));
+
+    assertThat(FileUtils.writeIfChanged(file, bytes("class Foo {}\n"))).isTrue();
+
+    assertThat(file).hasContent("class Foo {}\n");
+    assertThat(Files.getLastModifiedTime(file)).isNotEqualTo(FileTime.fromMillis(1_000_000_000L));
+    // the temporary file was moved into place
+    try (Stream<Path> files = Files.list(directory)) {
+      assertThat(files).containsExactly(file);
+    }
+  }
+
+  @Test
+  public void itKeepsThePermissionsOfChangedFiles() throws IOException {
+    Path file = write("run.sh", "echo  hello\n");
+    Assumptions.assumeTrue(Files.getFileAttributeView(file, PosixFileAttributeView.class) != null);
+    Files.setPosixFilePermissions(file, PosixFilePermissions.fromString("rwxr-x---"));
+
+    assertThat(FileUtils.writeIfChanged(file, bytes("echo hello\n"))).isTrue();
+
+    assertThat(Files.getPosixFilePermissions(file)).isEqualTo(PosixFilePermissions.fromString("rwxr-x---"));
+  }
+
+  @Test
+  public void itLinksDirectories() throws IOException {
+    Path source = directory.resolve("source");
+    write("source/node_modules/prettier/index.js", "module.exports = {};\n");
+    write("source/node_modules/prettier-plugin-java/dist/index.js", "module.exports = {};\n");
+    write("source/node_modules/prettier-plugin-java/dist/printer.js", "unpatched\n");
+    write("source/node_modules/java-parser/index.js", "unpatched\n");
+    write("source/package.json", "{}\n");
+    Path target = Files.createDirectories(directory.resolve("target"));
+
+    FileUtils.linkDirectory(
+        source,
+        target,
+        new HashSet<>(
+            Arrays.asList(
+                Paths.get("node_modules/prettier-plugin-java/dist/printer.js"),
+                Paths.get("node_modules/java-parser")
+            )
+        )
+    );
+
+    assertThat(relativeFiles(target))
+        .containsExactly(
+            "node_modules/prettier-plugin-java/dist/index.js",
+            "node_modules/prettier/index.js",
+            "package.json"
+        );
+    assertThat(target.resolve("node_modules/java-parser")).doesNotExist();
+    Path linked = target.resolve("node_modules/prettier/index.js");
+    assertThat(Files.isSameFile(linked, source.resolve("node_modules/prettier/index.js"))).isTrue();
+  }
+
+  @Test
+  public void itRecreatesSymbolicLinks() throws IOException {
+    Path source = directory.resolve("source");
+    write("source/lib/prettier/bin/prettier.cjs", "#!/usr/bin/env node\n");
+    Files.createDirectories(source.resolve("bin"));
+    Path link = source.resolve("bin/prettier");
+    try {
+      Files.createSymbolicLink(link, Paths.get("../lib/prettier/bin/prettier.cjs"));
+    } catch (UnsupportedOperationException | IOException e) {
+      Assumptions.abort("Symbolic links aren't supported: " + e.getMessage());
+    }
+    Path target = Files.createDirectories(directory.resolve("target"));
+
+    FileUtils.linkDirectory(source, target, Collections.emptySet());
+
+    Path copiedLink = target.resolve("bin/prettier");
+    assertThat(Files.isSymbolicLink(copiedLink)).isTrue();
+    // still relative, so it points into the target
+    assertThat(Files.readSymbolicLink(copiedLink)).isEqualTo(Paths.get("../lib/prettier/bin/prettier.cjs"));
+    assertThat(copiedLink).hasContent("#!/usr/bin/env node\n");
+    assertThat(copiedLink.toRealPath()).isEqualTo(target.resolve("lib/prettier/bin/prettier.cjs").toRealPath());
+  }
+
+  @Test
+  public void itCopiesWhenFilesCantBeLinked() throws IOException {
+    Path source = directory.resolve("source");
+    write("source/a/one.js", "one\n");
+    write("source/b/two.js", "two\n");
+    Path target = Files.createDirectories(directory.resolve("target"));
+    AtomicInteger linkAttempts = new AtomicInteger();
+
+    FileUtils.linkDirectory(
+        source,
+        target,
+        Collections.emptySet(),
+        (link, existing) -> {
+          linkAttempts.incrementAndGet();
+          throw new FileSystemException(link.toString(), existing.toString(), "Invalid cross-device link");
+        }
+    );
+
+    assertThat(target.resolve("a/one.js")).hasContent("one\n");
+    assertThat(target.resolve("b/two.js")).hasContent("two\n");
+    assertThat(Files.isSameFile(target.resolve("a/one.js"), source.resolve("a/one.js"))).isFalse();
+    // linking isn't retried for every file
+    assertThat(linkAttempts).hasValue(1);
+  }
+
+  private static List<String> relativeFiles(Path directory) throws IOException {
+    try (Stream<Path> files = Files.walk(directory)) {
+      return files
+          .filter(Files::isRegularFile)
+          .map(file -> directory.relativize(file).toString().replace('\\', '/'))
+          .sorted()
+          .collect(Collectors.toList());
+    }
+  }
+
+  private Path write(String file, String contents) throws IOException {
+    Path path = directory.resolve(file);
+    Files.createDirectories(path.getParent());
+    Files.write(path, bytes(contents));
+    return path;
+  }
+
+  private static byte[] bytes(String contents) {
+    return contents.getBytes(StandardCharsets.UTF_8);
+  }
+}
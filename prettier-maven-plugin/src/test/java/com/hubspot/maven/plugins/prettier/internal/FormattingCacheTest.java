@@ -0,0 +1,158 @@
+package com.hubspot.maven.plugins.prettier.internal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class FormattingCacheTest {
+  private static final List<String> OPTIONS = Arrays.asList("--print-width", "100");
+
+  @TempDir
+  Path directory;
+
+  @Test
+  public void itHitsOnIdenticalContents() throws IOException {
+    Path foo = write("src/Foo.java", "class Foo {}\n");
+    Path bar = write("src/Bar.java", "class Bar {}\n");
+    save(key(), foo);
+
+    FormattingCache cache = load(key());
+    assertThat(cache.isUpToDate(foo)).isTrue();
+    assertThat(cache.isUpToDate(bar)).isFalse();
+
+    // rewriting the same contents doesn't matter, and neither does how the path is spelled
+    write("src/Foo.java", "class Foo {}\n");
+    assertThat(load(key()).isUpToDate(directory.resolve("src/../src/Foo.java"))).isTrue();
+  }
+
+  @Test
+  public void itMissesAfterTheContentsChange() throws IOException {
+    Path foo = write("src/Foo.java", "class Foo {}\n");
+    save(key(), foo);
+
+    write("src/Foo.java", "class  Foo {}\n");
+
+    assertThat(load(key()).isUpToDate(foo)).isFalse();
+  }
+
+  @Test
+  public void itMissesWhenTheKeyChanges() throws IOException {
+    Path foo = write("src/Foo.java", "class Foo {}\n");
+    Path prettierrc = write(".prettierrc", "{ \"printWidth\": 100 }\n");
+    List<Path> configFiles = Collections.singletonList(prettierrc);
+    String key = FormattingCache.computeKey("1.0.0", "2.5.0", false, "node", OPTIONS, configFiles);
+    save(key, foo);
+
+    assertThat(load(key).isUpToDate(foo)).isTrue();
+    assertThat(load(FormattingCache.computeKey("1.0.1", "2.5.0", false, "node", OPTIONS, configFiles)).isUpToDate(foo))
+        .isFalse();
+    assertThat(load(FormattingCache.computeKey("1.0.0", "2.4.0", false, "node", OPTIONS, configFiles)).isUpToDate(foo))
+        .isFalse();
+    assertThat(load(FormattingCache.computeKey("1.0.0", "2.5.0", true, "node", OPTIONS, configFiles)).isUpToDate(foo))
+        .isFalse();
+    List<String> otherOptions = Arrays.asList("--print-width", "120");
+    assertThat(load(FormattingCache.computeKey("1.0.0", "2.5.0", false, "node", otherOptions, configFiles)).isUpToDate(foo))
+        .isFalse();
+    List<Path> noConfigFiles = Collections.emptyList();
+    assertThat(load(FormattingCache.computeKey("1.0.0", "2.5.0", false, "node", OPTIONS, noConfigFiles)).isUpToDate(foo))
+        .isFalse();
+
+    write(".prettierrc", "{ \"printWidth\": 120 }\n");
+    assertThat(load(FormattingCache.computeKey("1.0.0", "2.5.0", false, "node", OPTIONS, configFiles)).isUpToDate(foo))
+        .isFalse();
+  }
+
+  @Test
+  public void itMissesWhenTheEngineChanges() throws IOException {
+    Path file = write("Foo.java", "class Foo {}\n");
+    save(key("node"), file);
+
+    assertThat(load(key("node")).isUpToDate(file)).isTrue();
+    assertThat(load(key("graaljs")).isUpToDate(file)).isFalse();
+  }
+
+  @Test
+  public void itNeverMarksUnformattedFilesAsFormatted() throws IOException {
+    Path foo = write("src/Foo.java", "class Foo {}\n");
+    Path bar = write("src/Bar.java", "class  Bar {}\n");
+    save(key(), foo, bar);
+
+    FormattingCache cache = load(key());
+    // reported relative to the base directory, and under a different spelling
+    cache.markFormatted(
+        Arrays.asList(foo, bar),
+        Collections.singletonList(directory.resolve("src/./Bar.java").toAbsolutePath())
+    );
+    cache.save();
+
+    assertThat(load(key()).isUpToDate(foo)).isTrue();
+    assertThat(load(key()).isUpToDate(bar)).isFalse();
+  }
+
+  @Test
+  public void itTreatsAMissingCacheFileAsEmpty() throws IOException {
+    Path foo = write("src/Foo.java", "class Foo {}\n");
+
+    assertThat(load(key()).isUpToDate(foo)).isFalse();
+  }
+
+  @Test
+  public void itTreatsACorruptCacheFileAsEmpty() throws IOException {
+    Path foo = write("src/Foo.java", "class Foo {}\n");
+    String hash = HashBuilder.hashFile(foo);
+
+    // not even valid UTF-8
+    Files.createDirectories(cacheFile().getParent());
+    byte[] contents = (key() + "\n" + hash + "  src/Foo.java\n").getBytes(StandardCharsets.UTF_8);
+    byte[] corrupt = Arrays.copyOf(contents, contents.length + 2);
+    corrupt[contents.length] = (byte) 0xC3;
+    corrupt[contents.length + 1] = (byte) 0x28;
+    Files.write(cacheFile(), corrupt);
+    assertThat(load(key()).isUpToDate(foo)).isFalse();
+
+    // lines without a hash are skipped
+    Files.write(cacheFile(), (key() + "\ngarbage\n" + hash + "\n").getBytes(StandardCharsets.UTF_8));
+    assertThat(load(key()).isUpToDate(foo)).isFalse();
+
+    Files.write(cacheFile(), new byte[0]);
+    assertThat(load(key()).isUpToDate(foo)).isFalse();
+  }
+
+  private String key() throws IOException {
+    return key("node");
+  }
+
+  private String key(String engine) throws IOException {
+    return FormattingCache.computeKey("1.0.0", "2.5.0", false, engine, OPTIONS, Collections.emptyList());
+  }
+
+  private void save(String key, Path... files) throws IOException {
+    FormattingCache cache = load(key);
+    cache.markFormatted(Arrays.asList(files), Collections.emptyList());
+    cache.save();
+  }
+
+  private FormattingCache load(String key) {
+    return FormattingCache.load(cacheFile(), directory, key, new SystemStreamLog());
+  }
+
+  private Path cacheFile() {
+    return directory.resolve("target").resolve("prettier-java.cache");
+  }
+
+  private Path write(String file, String contents) throws IOException {
+    Path path = directory.resolve(file);
+    Files.createDirectories(path.getParent());
+    Files.write(path, contents.getBytes(StandardCharsets.UTF_8));
+    return path;
+  }
+}
@@ -0,0 +1,121 @@
+package com.hubspot.maven.plugins.prettier.internal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+public class GlobTest {
+
+  @Test
+  public void itMatchesStarsWithinASegment() {
+    Glob glob = Glob.compile("src/*.java");
+
+    assertThat(glob.matches("src/Foo.java")).isTrue();
+    assertThat(glob.matches("src/.Foo.java")).isTrue();
+    assertThat(glob.matches("src/main/Foo.java")).isFalse();
+    assertThat(glob.matches("src/Foo.javax")).isFalse();
+    assertThat(glob.matches("Foo.java")).isFalse();
+  }
+
+  @Test
+  public void itMatchesAnyNumberOfDirectoriesWithDoubleStars() {
+    Glob glob = Glob.compile("src/**/*.java");
+
+    assertThat(glob.matches("src/Foo.java")).isTrue();
+    assertThat(glob.matches("src/main/Foo.java")).isTrue();
+    assertThat(glob.matches("src/main/java/com/example/Foo.java")).isTrue();
+    assertThat(glob.matches("test/Foo.java")).isFalse();
+
+    assertThat(Glob.compile("**/*.java").matches("Foo.java")).isTrue();
+    assertThat(Glob.compile("**/*.java").matches("a/b/Foo.java")).isTrue();
+    assertThat(Glob.compile("src/**").matches("src/a/b/Foo.java")).isTrue();
+  }
+
+  @Test
+  public void itTreatsDoubleStarsInsideASegmentLikeASingleStar() {
+    Glob glob = Glob.compile("src/a**.java");
+
+    assertThat(glob.matches("src/abc.java")).isTrue();
+    assertThat(glob.matches("src/a/b.java")).isFalse();
+  }
+
+  @Test
+  public void itMatchesSingleCharacters() {
+    Glob glob = Glob.compile("File?.java");
+
+    assertThat(glob.matches("File1.java")).isTrue();
+    assertThat(glob.matches("File.java")).isFalse();
+    assertThat(glob.matches("File12.java")).isFalse();
+    assertThat(Glob.compile("a?b").matches("a/b")).isFalse();
+  }
+
+  @Test
+  public void itMatchesAlternatives() {
+    Glob glob = Glob.compile("src/{main,test}/java/**/*.{java,js}");
+
+    assertThat(glob.matches("src/main/java/Foo.java")).isTrue();
+    assertThat(glob.matches("src/test/java/a/foo.js")).isTrue();
+    assertThat(glob.matches("src/it/java/Foo.java")).isFalse();
+    assertThat(glob.matches("src/main/java/foo.ts")).isFalse();
+
+    Glob nested = Glob.compile("{a,b{c,d}}.txt");
+    assertThat(nested.matches("a.txt")).isTrue();
+    assertThat(nested.matches("bd.txt")).isTrue();
+    assertThat(nested.matches("b.txt")).isFalse();
+  }
+
+  @Test
+  public void itMatchesCharacterClasses() {
+    Glob glob = Glob.compile("[a-c]*.java");
+
+    assertThat(glob.matches("apple.java")).isTrue();
+    assertThat(glob.matches("cherry.java")).isTrue();
+    assertThat(glob.matches("date.java")).isFalse();
+
+    Glob negatedClass = Glob.compile("[!a-c]*.java");
+    assertThat(negatedClass.matches("date.java")).isTrue();
+    assertThat(negatedClass.matches("apple.java")).isFalse();
+
+    assertThat(Glob.compile("[Tt]est.java").matches("Test.java")).isTrue();
+    assertThat(Glob.compile("[Tt]est.java").matches("best.java")).isFalse();
+  }
+
+  @Test
+  public void itEscapesRegexCharacters() {
+    assertThat(Glob.compile("a.b+(c)$.java").matches("a.b+(c)$.java")).isTrue();
+    assertThat(Glob.compile("a.java").matches("aXjava")).isFalse();
+    assertThat(Glob.compile("\\*.java").matches("*.java")).isTrue();
+    assertThat(Glob.compile("\\*.java").matches("Foo.java")).isFalse();
+    assertThat(Glob.compile("unclosed[.java").matches("unclosed[.java")).isTrue();
+    assertThat(Glob.compile("a}b,c").matches("a}b,c")).isTrue();
+  }
+
+  @Test
+  public void itParsesNegationAndLeadingDotSlash() {
+    Glob glob = Glob.compile("!./target/**/*.java");
+
+    assertThat(glob.isNegated()).isTrue();
+    assertThat(glob.getPattern()).isEqualTo("!./target/**/*.java");
+    assertThat(glob.matches("target/generated/Foo.java")).isTrue();
+    assertThat(Glob.compile("src/*.java").isNegated()).isFalse();
+  }
+
+  @Test
+  public void itFindsTheStaticBaseDirectory() {
+    assertThat(Glob.compile("src/main/java/**/*.java").getBaseDirectory()).isEqualTo("src/main/java");
+    assertThat(Glob.compile("src/{main,test}/java/**/*.java").getBaseDirectory()).isEqualTo("src");
+    assertThat(Glob.compile("./src/Foo.java").getBaseDirectory()).isEqualTo("src");
+    assertThat(Glob.compile("**/*.java").getBaseDirectory()).isEmpty();
+    assertThat(Glob.compile("*.java").getBaseDirectory()).isEmpty();
+  }
+
+  @Test
+  public void itRecognizesLiteralPatterns() {
+    assertThat(Glob.isLiteral("src/main/java/Foo.java")).isTrue();
+    assertThat(Glob.isLiteral("src/main/java")).isTrue();
+    assertThat(Glob.isLiteral("src/*.java")).isFalse();
+    assertThat(Glob.isLiteral("src/{a,b}")).isFalse();
+    assertThat(Glob.isLiteral("[ab].java")).isFalse();
+    assertThat(Glob.isLiteral("!Foo.java")).isFalse();
+  }
+}
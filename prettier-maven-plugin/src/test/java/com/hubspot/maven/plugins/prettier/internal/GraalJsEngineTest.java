@@ -0,0 +1,129 @@
+package com.hubspot.maven.plugins.prettier.internal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.hubspot.maven.plugins.prettier.internal.PrettierResult.Status;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Needs GraalJS on the test classpath, node on the PATH, and a directory
+ * with prettier and prettier-plugin-java installed in node_modules, passed as
+ * -Dprettier.test.prettierJavaDirectory. Skipped otherwise.
+ */
+public class GraalJsEngineTest {
+  private static final String PRETTIER_JAVA_DIRECTORY_PROPERTY = "prettier.test.prettierJavaDirectory";
+
+  @TempDir
+  Path directory;
+
+  @Test
+  public void itFormatsLikeNode() throws Exception {
+    Assumptions.assumeTrue(hasPolyglot(), "GraalJS isn't on the classpath");
+    Assumptions.assumeTrue(hasNode(), "node isn't on the PATH");
+    String prettierJavaDirectoryProperty = System.getProperty(PRETTIER_JAVA_DIRECTORY_PROPERTY);
+    Assumptions.assumeTrue(prettierJavaDirectoryProperty != null, PRETTIER_JAVA_DIRECTORY_PROPERTY + " isn't set");
+
+    Path prettierJavaDirectory = Paths.get(prettierJavaDirectoryProperty).toAbsolutePath();
+    Path prettierDirectory = prettierJavaDirectory.resolve(PrettierPaths.prettierModulePath());
+    Path pluginPath = prettierJavaDirectory.resolve(PrettierPaths.prettierJavaPluginPath("2.5.0"));
+    if (!Files.exists(pluginPath)) {
+      pluginPath = prettierJavaDirectory.resolve(PrettierPaths.prettierJavaPluginPath("2.1.0"));
+    }
+
+    Path module = directory.resolve("module");
+    write(module.resolve("Good.java"), "public class Good {}\n");
+    write(
+        module.resolve("Bad.java"),
+        "  public class Bad {\n\n  private static final java.util.Map<VeryLongTypeNameAsTheMapKeyType, AnotherVeryLongTypeNameAsTheMapValueType> map;}\n"
+    );
+    List<String> files = Arrays.asList("Good.java", "Bad.java");
+
+    NodeEngine node = new NodeEngine(
+        Arrays.asList(
+            "node",
+            PrettierRunnerScript.install(directory).toString(),
+            "--prettier",
+            prettierDirectory.toString(),
+            "--plugin=" + pluginPath,
+            "--print-width",
+            "80",
+            "--no-config"
+        ),
+        false,
+        1,
+        new PhaseTimings(),
+        new SystemStreamLog()
+    );
+    GraalJsEngine graalJs = new GraalJsEngine(
+        prettierDirectory,
+        pluginPath,
+        Collections.singletonMap("printWidth", 80),
+        new PhaseTimings(),
+        new SystemStreamLog()
+    );
+
+    Map<String, String> nodeResults = format(node, module, files);
+    Map<String, String> graalJsResults = format(graalJs, module, files);
+
+    assertThat(nodeResults).containsOnlyKeys("Bad.java");
+    assertThat(graalJsResults).isEqualTo(nodeResults);
+  }
+
+  /**
+   * The formatted contents of the files prettier changed
+   */
+  private static Map<String, String> format(PrettierEngine engine, Path module, List<String> files)
+    throws IOException, InterruptedException {
+    Map<String, String> results = new TreeMap<>();
+    engine.run(
+        "format",
+        module,
+        files,
+        result -> {
+          assertThat(result.getStatus()).as(result.getFile() + ": " + result.getMessage()).isNotEqualTo(Status.ERROR);
+          if (result.getStatus() == Status.CHANGED) {
+            results.put(result.getFile(), result.getFormatted());
+          }
+        }
+    );
+    return results;
+  }
+
+  private static boolean hasPolyglot() {
+    try {
+      Class.forName("org.graalvm.polyglot.Context");
+      return true;
+    } catch (ClassNotFoundException e) {
+      return false;
+    }
+  }
+
+  private static boolean hasNode() {
+    try {
+      return new ProcessBuilder("node", "--version").start().waitFor() == 0;
+    } catch (IOException e) {
+      return false;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+  }
+
+  private static void write(Path file, String contents) throws IOException {
+    Files.createDirectories(file.getParent());
+    Files.write(file, contents.getBytes(StandardCharsets.UTF_8));
+  }
+}
@@ -0,0 +1,230 @@
+package com.hubspot.maven.plugins.prettier.internal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class HttpDownloaderTest {
+  private static final byte[] CONTENT = randomBytes(10_000);
+  private static final DownloadSettings SETTINGS = new DownloadSettings(
+      3,
+      Duration.ofSeconds(2),
+      Duration.ofSeconds(2),
+      4,
+      2,
+      1_000
+  );
+
+  @TempDir
+  Path temp;
+
+  private final List<MirrorServer> servers = new CopyOnWriteArrayList<>();
+
+  @BeforeEach
+  public void setup() throws IOException {
+    Files.createDirectories(temp.resolve("parts"));
+  }
+
+  @AfterEach
+  public void teardown() {
+    for (MirrorServer server : servers) {
+      server.stop();
+    }
+  }
+
+  @Test
+  public void itDownloadsInRanges() throws IOException {
+    MirrorServer mirror = start(MirrorServer.Behavior.RANGES);
+    Path target = temp.resolve("node.tar.gz");
+
+    assertThat(downloader().download(Collections.singletonList(mirror.url()), target)).isTrue();
+
+    assertThat(target).hasBinaryContent(CONTENT);
+    assertThat(mirror.ranges).hasSize(10).contains("bytes=0-999", "bytes=9000-9999");
+    assertThat(temp.resolve("parts")).isEmptyDirectory();
+  }
+
+  @Test
+  public void itResumesPartialRanges() throws IOException {
+    MirrorServer mirror = start(MirrorServer.Behavior.RANGES);
+    Files.write(part(mirror.url(), 0), Arrays.copyOf(CONTENT, 300));
+    Path target = temp.resolve("node.tar.gz");
+
+    assertThat(downloader().download(Collections.singletonList(mirror.url()), target)).isTrue();
+
+    assertThat(target).hasBinaryContent(CONTENT);
+    assertThat(mirror.ranges).contains("bytes=300-999").doesNotContain("bytes=0-999");
+  }
+
+  @Test
+  public void itDoesntResumePartsOfAnotherUrl() throws IOException {
+    MirrorServer mirror = start(MirrorServer.Behavior.RANGES);
+    // same file name and length, but a different file
+    Path otherPart = part(mirror.url().replace("/node.tar.gz", "/other/node.tar.gz"), 0);
+    Files.write(otherPart, new byte[300]);
+    Path target = temp.resolve("node.tar.gz");
+
+    assertThat(downloader().download(Collections.singletonList(mirror.url()), target)).isTrue();
+
+    assertThat(target).hasBinaryContent(CONTENT);
+    assertThat(mirror.ranges).contains("bytes=0-999");
+    assertThat(otherPart).hasBinaryContent(new byte[300]);
+  }
+
+  @Test
+  public void itFailsOverToTheNextMirror() throws IOException {
+    MirrorServer broken = start(MirrorServer.Behavior.BROKEN);
+    MirrorServer mirror = start(MirrorServer.Behavior.RANGES);
+    Path target = temp.resolve("node.tar.gz");
+
+    assertThat(downloader().download(Arrays.asList(unreachableUrl(), broken.url(), mirror.url()), target)).isTrue();
+
+    assertThat(target).hasBinaryContent(CONTENT);
+  }
+
+  @Test
+  public void itDownloadsWholeFilesFromMirrorsWithoutRanges() throws IOException {
+    MirrorServer mirror = start(MirrorServer.Behavior.NO_RANGES);
+    Path target = temp.resolve("node.tar.gz");
+
+    assertThat(downloader().download(Collections.singletonList(mirror.url()), target)).isTrue();
+
+    assertThat(target).hasBinaryContent(CONTENT);
+    assertThat(mirror.ranges).isEmpty();
+  }
+
+  @Test
+  public void itReturnsFalseIfNoMirrorHasTheFile() throws IOException {
+    MirrorServer missing = start(MirrorServer.Behavior.MISSING);
+    Path target = temp.resolve("node.tar.gz");
+
+    assertThat(downloader().download(Arrays.asList(missing.url(), missing.url()), target)).isFalse();
+    assertThat(target).doesNotExist();
+  }
+
+  @Test
+  public void itFailsIfEveryMirrorIsBroken() throws IOException {
+    MirrorServer broken = start(MirrorServer.Behavior.BROKEN);
+    Path target = temp.resolve("node.tar.gz");
+
+    assertThatThrownBy(() -> downloader().download(Arrays.asList(broken.url(), unreachableUrl()), target))
+        .isInstanceOf(IOException.class);
+    assertThat(target).doesNotExist();
+  }
+
+  private Path part(String url, int index) {
+    return temp.resolve("parts").resolve(HttpDownloader.partPrefix(url, CONTENT.length) + "." + index + ".part");
+  }
+
+  private HttpDownloader downloader() {
+    return new HttpDownloader(SETTINGS, temp.resolve("parts"), new SystemStreamLog());
+  }
+
+  private MirrorServer start(MirrorServer.Behavior behavior) throws IOException {
+    MirrorServer server = new MirrorServer(behavior);
+    servers.add(server);
+    return server;
+  }
+
+  private static String unreachableUrl() throws IOException {
+    try (ServerSocket socket = new ServerSocket(0)) {
+      return "http://localhost:" + socket.getLocalPort() + "/node.tar.gz";
+    }
+  }
+
+  private static byte[] randomBytes(int length) {
+    byte[] bytes = new byte[length];
+    new Random(42).nextBytes(bytes);
+    return bytes;
+  }
+
+  private static class MirrorServer {
+
+    private enum Behavior {
+      RANGES,
+      NO_RANGES,
+      MISSING,
+      BROKEN
+    }
+
+    private final Behavior behavior;
+    private final HttpServer server;
+    private final List<String> ranges = new CopyOnWriteArrayList<>();
+
+    private MirrorServer(Behavior behavior) throws IOException {
+      this.behavior = behavior;
+      this.server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+      server.createContext("/", this::handle);
+      server.start();
+    }
+
+    private String url() {
+      return "http://localhost:" + server.getAddress().getPort() + "/node.tar.gz";
+    }
+
+    private void stop() {
+      server.stop(0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+      try {
+        boolean head = "HEAD".equals(exchange.getRequestMethod());
+        if (behavior == Behavior.MISSING) {
+          exchange.sendResponseHeaders(404, -1);
+          return;
+        } else if (behavior == Behavior.BROKEN && !head) {
+          exchange.sendResponseHeaders(500, -1);
+          return;
+        }
+
+        String range = exchange.getRequestHeaders().getFirst("Range");
+        if (behavior == Behavior.NO_RANGES || range == null || head) {
+          if (behavior != Behavior.NO_RANGES) {
+            exchange.getResponseHeaders().add("Accept-Ranges", "bytes");
+          }
+          exchange.getResponseHeaders().add("Content-Length", Integer.toString(CONTENT.length));
+          exchange.sendResponseHeaders(200, head ? -1 : CONTENT.length);
+          if (!head) {
+            try (OutputStream body = exchange.getResponseBody()) {
+              body.write(CONTENT);
+            }
+          }
+          return;
+        }
+
+        ranges.add(range);
+        String[] bounds = range.substring("bytes=".length()).split("-");
+        int start = Integer.parseInt(bounds[0]);
+        int end = bounds.length > 1 ? Integer.parseInt(bounds[1]) : CONTENT.length - 1;
+        exchange
+            .getResponseHeaders()
+            .add("Content-Range", "bytes " + start + "-" + end + "/" + CONTENT.length);
+        exchange.sendResponseHeaders(206, end - start + 1);
+        try (OutputStream body = exchange.getResponseBody()) {
+          body.write(CONTENT, start, end - start + 1);
+        }
+      } finally {
+        exchange.close();
+      }
+    }
+  }
+}
@@ -0,0 +1,111 @@
+package com.hubspot.maven.plugins.prettier.internal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class InputFileScannerTest {
+  @TempDir
+  Path directory;
+
+  @BeforeEach
+  public void createFiles() throws IOException {
+    for (String file : Arrays.asList(
+        "src/main/java/com/example/Foo.java",
+        "src/main/java/com/example/.Hidden.java",
+        "src/main/java/com/example/generated/Generated.java",
+        "src/main/js/app.js",
+        "src/main/resources/notes.txt",
+        "src/test/java/com/example/FooTest.java",
+        "node_modules/package/index.js",
+        "target/generated-sources/Bar.java",
+        "README.md"
+    )) {
+      write(file, "");
+    }
+  }
+
+  @Test
+  public void itExpandsGlobs() throws MojoExecutionException {
+    assertThat(scan("src/{main,test}/java/**/*.java"))
+        .containsExactly(
+            "src/main/java/com/example/.Hidden.java",
+            "src/main/java/com/example/Foo.java",
+            "src/main/java/com/example/generated/Generated.java",
+            "src/test/java/com/example/FooTest.java"
+        );
+  }
+
+  @Test
+  public void itSkipsNodeModules() throws MojoExecutionException {
+    assertThat(scan("**/*.js")).containsExactly("src/main/js/app.js");
+  }
+
+  @Test
+  public void itAppliesNegatedGlobs() throws MojoExecutionException {
+    assertThat(scan("**/*.java", "!**/generated/**", "!src/test/**", "!target/**"))
+        .containsExactly("src/main/java/com/example/.Hidden.java", "src/main/java/com/example/Foo.java");
+  }
+
+  @Test
+  public void itMergesOverlappingGlobs() throws MojoExecutionException {
+    assertThat(scan("src/main/java/**/Foo.java", "**/Foo.java", "src/main/java/com/example/Foo.java"))
+        .containsExactly("src/main/java/com/example/Foo.java");
+  }
+
+  @Test
+  public void itExpandsDirectoriesToSupportedFiles() throws MojoExecutionException {
+    assertThat(scan("src/main"))
+        .containsExactly(
+            "src/main/java/com/example/.Hidden.java",
+            "src/main/java/com/example/Foo.java",
+            "src/main/java/com/example/generated/Generated.java",
+            "src/main/js/app.js"
+        );
+  }
+
+  @Test
+  public void itMatchesLiteralFiles() throws MojoExecutionException {
+    assertThat(scan("README.md", "./src/main/resources/notes.txt", "Missing.java"))
+        .containsExactly("README.md", "src/main/resources/notes.txt");
+  }
+
+  @Test
+  public void itHonorsPrettierIgnore() throws IOException, MojoExecutionException {
+    write(PrettierIgnore.FILE_NAME, "# generated code\ngenerated/\n/target\n*Test.java\n");
+
+    assertThat(scan("**/*.java", "src/main/java/com/example/generated/Generated.java"))
+        .containsExactly("src/main/java/com/example/.Hidden.java", "src/main/java/com/example/Foo.java");
+  }
+
+  @Test
+  public void itReturnsNothingForMissingDirectories() throws MojoExecutionException {
+    assertThat(scan("src/it/java/**/*.java")).isEmpty();
+  }
+
+  private List<String> scan(String... inputGlobs) throws MojoExecutionException {
+    InputFileScanner scanner = new InputFileScanner(directory, new SystemStreamLog());
+    List<String> files = new ArrayList<>();
+    for (Path file : scanner.scan(Arrays.asList(inputGlobs))) {
+      files.add(scanner.relativize(file));
+    }
+    return files;
+  }
+
+  private void write(String file, String contents) throws IOException {
+    Path path = directory.resolve(file);
+    Files.createDirectories(path.getParent());
+    Files.write(path, contents.getBytes(StandardCharsets.UTF_8));
+  }
+}
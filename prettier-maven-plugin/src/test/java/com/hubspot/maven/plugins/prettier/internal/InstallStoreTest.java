@@ -0,0 +1,175 @@
+package com.hubspot.maven.plugins.prettier.internal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class InstallStoreTest {
+  private static final String INSTALLED_FILE = "installed.txt";
+
+  @TempDir
+  Path directory;
+
+  private final AtomicInteger installs = new AtomicInteger();
+
+  @Test
+  public void itReusesEntriesWithTheSameKey() throws MojoExecutionException {
+    InstallStore store = store(Long.MAX_VALUE);
+
+    Path entry = install(store, "node", "node 20.1.0");
+
+    assertThat(install(store, "node", "node 20.1.0")).isEqualTo(entry);
+    assertThat(install(store(Long.MAX_VALUE), "node", "node 20.1.0")).isEqualTo(entry);
+    assertThat(installs).hasValue(1);
+    assertThat(entry.resolve(INSTALLED_FILE)).exists();
+
+    assertThat(install(store, "node", "node 20.2.0")).isNotEqualTo(entry);
+    assertThat(installs).hasValue(2);
+  }
+
+  @Test
+  public void itReinstallsAfterACorruptedMarker() throws IOException, MojoExecutionException {
+    InstallStore store = store(Long.MAX_VALUE);
+    Path entry = install(store, "node", "node 20.1.0");
+
+    Files.delete(entry.resolve(".prettier-store"));
+    Files.write(entry.resolve("leftover.txt"), new byte[0]);
+
+    assertThat(install(store, "node", "node 20.1.0")).isEqualTo(entry);
+    assertThat(installs).hasValue(2);
+    assertThat(entry.resolve(".prettier-store")).exists();
+    assertThat(entry.resolve("leftover.txt")).doesNotExist();
+  }
+
+  @Test
+  public void itReinstallsInvalidEntries() throws IOException, MojoExecutionException {
+    InstallStore store = store(Long.MAX_VALUE);
+    Path entry = install(store, "node", "node 20.1.0");
+
+    Files.delete(entry.resolve(INSTALLED_FILE));
+
+    assertThat(install(store, "node", "node 20.1.0")).isEqualTo(entry);
+    assertThat(installs).hasValue(2);
+    assertThat(entry.resolve(INSTALLED_FILE)).exists();
+  }
+
+  @Test
+  public void itEvictsTheLeastRecentlyUsedEntries() throws IOException, MojoExecutionException {
+    Path oldest = entry("oldest", 3);
+    Path older = entry("older", 2);
+    Path old = entry("old", 1);
+
+    Path current = install(store(2_500), "node", "node 20.1.0");
+
+    assertThat(oldest).doesNotExist();
+    assertThat(older).doesNotExist();
+    assertThat(old).exists();
+    assertThat(current).exists();
+  }
+
+  @Test
+  public void itCountsCachesTowardsTheEntrySize() throws IOException, MojoExecutionException {
+    InstallStore store = store(2_500);
+    Path old = entry("old", 2);
+    Path cache = store.cacheDirectory(old);
+    Files.createDirectories(cache);
+    Files.write(cache.resolve("compiled"), new byte[1_000]);
+
+    install(store, "node", "node 20.1.0");
+
+    assertThat(old).doesNotExist();
+    assertThat(cache).doesNotExist();
+  }
+
+  @Test
+  public void itNeverEvictsEntriesInUse() throws IOException, MojoExecutionException {
+    InstallStore store = store(1_500);
+    Path used = install(store, "prettier-java", "prettier-java 2.5.0");
+    // make it the oldest
+    Files.setLastModifiedTime(used.resolve(".prettier-store"), FileTime.fromMillis(0));
+
+    Path leased = entry("leased", 3);
+    Files.createDirectories(leased.resolve(".leases"));
+    Files.write(leased.resolve(".leases").resolve(Long.toString(ProcessHandle.current().pid())), new byte[0]);
+    Path deadLease = entry("dead-lease", 2);
+    Files.createDirectories(deadLease.resolve(".leases"));
+    Files.write(deadLease.resolve(".leases").resolve(Long.toString(Long.MAX_VALUE)), new byte[0]);
+
+    Path current = install(store, "node", "node 20.1.0");
+
+    assertThat(used).exists();
+    assertThat(leased).exists();
+    assertThat(deadLease).doesNotExist();
+    assertThat(current).exists();
+  }
+
+  @Test
+  public void itInstallsOnceWhenInstallingConcurrently() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<Path>> futures = new ArrayList<>();
+      for (int i = 0; i < 8; i++) {
+        futures.add(executor.submit(() -> install(store(Long.MAX_VALUE), "node", "node 20.1.0")));
+      }
+
+      Path entry = futures.get(0).get(30, TimeUnit.SECONDS);
+      for (Future<Path> future : futures) {
+        assertThat(future.get(30, TimeUnit.SECONDS)).isEqualTo(entry);
+      }
+      assertThat(installs).hasValue(1);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private InstallStore store(long maxSizeBytes) {
+    return new InstallStore(directory, maxSizeBytes, new SystemStreamLog());
+  }
+
+  private Path install(InstallStore store, String name, String key) throws MojoExecutionException {
+    return store.install(
+        name,
+        key,
+        entry -> Files.exists(entry.resolve(INSTALLED_FILE)),
+        entry -> {
+          installs.incrementAndGet();
+          try {
+            // give concurrent installs a chance to overlap
+            Thread.sleep(50);
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+          Files.write(entry.resolve(INSTALLED_FILE), new byte[1_000]);
+        }
+    );
+  }
+
+  /**
+   * An entry installed by another build, which was last used hoursAgo
+   */
+  private Path entry(String name, int hoursAgo) throws IOException {
+    Path entry = directory.resolve(name);
+    Files.createDirectories(entry);
+    Files.write(entry.resolve(INSTALLED_FILE), new byte[1_000]);
+
+    Path marker = entry.resolve(".prettier-store");
+    Files.write(marker, ("key=" + name + "\nsize=1000\n").getBytes(StandardCharsets.UTF_8));
+    Files.setLastModifiedTime(marker, FileTime.fromMillis(System.currentTimeMillis() - TimeUnit.HOURS.toMillis(hoursAgo)));
+    return entry;
+  }
+}
@@ -0,0 +1,159 @@
+package com.hubspot.maven.plugins.prettier.internal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class ModuleFingerprintTest {
+  private static final String KEY = "key";
+
+  @TempDir
+  Path directory;
+
+  private List<Path> files;
+
+  @BeforeEach
+  public void createFiles() throws IOException {
+    files = new ArrayList<>(Arrays.asList(write("src/Foo.java", "class Foo {}\n"), write("src/Bar.java", "class Bar {}\n")));
+    saveCleanRun();
+  }
+
+  @Test
+  public void itMatchesUnchangedFiles() throws IOException {
+    assertThat(fingerprint(files, KEY).isUpToDate()).isTrue();
+
+    // the scan order doesn't matter
+    List<Path> reversed = new ArrayList<>(files);
+    Collections.reverse(reversed);
+    assertThat(fingerprint(reversed, KEY).isUpToDate()).isTrue();
+  }
+
+  @Test
+  public void itChangesWhenAFileIsAdded() throws IOException {
+    files.add(write("src/Baz.java", "class Baz {}\n"));
+
+    assertThat(fingerprint(files, KEY).isUpToDate()).isFalse();
+  }
+
+  @Test
+  public void itChangesWhenAFileIsRemoved() throws IOException {
+    Files.delete(files.remove(1));
+
+    assertThat(fingerprint(files, KEY).isUpToDate()).isFalse();
+  }
+
+  @Test
+  public void itChangesWhenAFileIsDeletedAfterTheScan() throws IOException {
+    Files.delete(files.get(1));
+
+    assertThat(fingerprint(files, KEY).isUpToDate()).isFalse();
+  }
+
+  @Test
+  public void itChangesWhenAFileIsRenamed() throws IOException {
+    Path renamed = directory.resolve("src/Renamed.java");
+    FileTime lastModified = Files.getLastModifiedTime(files.get(1));
+    Files.move(files.get(1), renamed);
+    Files.setLastModifiedTime(renamed, lastModified);
+    files.set(1, renamed);
+
+    assertThat(fingerprint(files, KEY).isUpToDate()).isFalse();
+  }
+
+  @Test
+  public void itChangesWhenTheSizeChanges() throws IOException {
+    FileTime lastModified = Files.getLastModifiedTime(files.get(0));
+    write("src/Foo.java", "class Foo { }\n");
+    Files.setLastModifiedTime(files.get(0), lastModified);
+
+    assertThat(fingerprint(files, KEY).isUpToDate()).isFalse();
+  }
+
+  @Test
+  public void itChangesWhenTheModificationTimeChanges() throws IOException {
+    FileTime lastModified = Files.getLastModifiedTime(files.get(0));
+    Files.setLastModifiedTime(files.get(0), FileTime.fromMillis(lastModified.toMillis() + 1_000));
+
+    assertThat(fingerprint(files, KEY).isUpToDate()).isFalse();
+  }
+
+  @Test
+  public void itChangesWhenTheCacheKeyChanges() throws IOException {
+    assertThat(fingerprint(files, "other key").isUpToDate()).isFalse();
+  }
+
+  @Test
+  public void itIsntSavedWhenFilesArentFormatted() throws IOException {
+    files.add(write("src/Unformatted.java", "class  Unformatted {}\n"));
+    ModuleFingerprint fingerprint = fingerprint(files, KEY);
+    assertThat(fingerprint.isUpToDate()).isFalse();
+
+    fingerprint.saveAfterRun(false, false);
+
+    assertThat(fingerprint(files, KEY).isUpToDate()).isFalse();
+  }
+
+  @Test
+  public void itIsRecomputedAfterFilesAreRewritten() throws IOException {
+    ModuleFingerprint fingerprint = runWithRewrite();
+
+    fingerprint.saveAfterRun(true, true);
+
+    assertThat(fingerprint(files, KEY).isUpToDate()).isTrue();
+  }
+
+  @Test
+  public void itKeepsTheFingerprintFromBeforeTheRunWithoutRewrites() throws IOException {
+    // a file that changed while prettier was checking it wasn't checked
+    ModuleFingerprint fingerprint = runWithRewrite();
+
+    fingerprint.saveAfterRun(true, false);
+
+    assertThat(fingerprint(files, KEY).isUpToDate()).isFalse();
+  }
+
+  private ModuleFingerprint runWithRewrite() throws IOException {
+    files.add(write("src/Unformatted.java", "class  Unformatted {}\n"));
+    ModuleFingerprint fingerprint = fingerprint(files, KEY);
+    assertThat(fingerprint.isUpToDate()).isFalse();
+
+    write("src/Unformatted.java", "class Unformatted {}\n");
+    Files.setLastModifiedTime(files.get(2), FileTime.fromMillis(System.currentTimeMillis() + 10_000));
+    return fingerprint;
+  }
+
+  private void saveCleanRun() throws IOException {
+    ModuleFingerprint fingerprint = fingerprint(files, KEY);
+    fingerprint.isUpToDate();
+    fingerprint.saveAfterRun(true, false);
+  }
+
+  private ModuleFingerprint fingerprint(List<Path> files, String key) {
+    return new ModuleFingerprint(
+        directory.resolve("target").resolve("prettier-java.fingerprint"),
+        directory,
+        files,
+        key,
+        new SystemStreamLog()
+    );
+  }
+
+  private Path write(String file, String contents) throws IOException {
+    Path path = directory.resolve(file);
+    Files.createDirectories(path.getParent());
+    Files.write(path, contents.getBytes(StandardCharsets.UTF_8));
+    return path;
+  }
+}
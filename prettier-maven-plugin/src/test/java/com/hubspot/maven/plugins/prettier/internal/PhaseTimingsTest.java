@@ -0,0 +1,121 @@
+package com.hubspot.maven.plugins.prettier.internal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class PhaseTimingsTest {
+  @TempDir
+  Path directory;
+
+  @Test
+  public void itWritesOpenMetrics() throws IOException {
+    timings(1_500).writeOpenMetrics(metricsFile(), "1000", labels("test:a", "check"));
+
+    assertThat(Files.readAllLines(metricsFile(), StandardCharsets.UTF_8))
+        .containsExactly(
+            "# TYPE prettier_phase_seconds gauge",
+            "# HELP prettier_phase_seconds Time spent in each phase of the prettier executions of the last build",
+            "prettier_phase_seconds{build=\"1000\",module=\"test:a\",goal=\"check\",phase=\"format\"} 1.500",
+            "# TYPE prettier_phase_runs gauge",
+            "# HELP prettier_phase_runs Number of times each phase ran in the prettier executions of the last build",
+            "prettier_phase_runs{build=\"1000\",module=\"test:a\",goal=\"check\",phase=\"format\"} 2",
+            "# EOF"
+        );
+  }
+
+  @Test
+  public void itEscapesLabelValues() throws IOException {
+    timings(1_000).writeOpenMetrics(metricsFile(), "1000", labels("quote\" backslash\\ newline\n", "check"));
+
+    assertThat(samples())
+        .contains(
+            "prettier_phase_seconds{build=\"1000\",module=\"quote\\\" backslash\\\\ newline\\n\",goal=\"check\",phase=\"format\"} 1.000"
+        );
+  }
+
+  @Test
+  public void itMergesSamplesOfTheSameBuild() throws IOException {
+    timings(1_000).writeOpenMetrics(metricsFile(), "1000", labels("test:a", "check"));
+    timings(2_000).writeOpenMetrics(metricsFile(), "1000", labels("test:b", "check"));
+    timings(3_000).writeOpenMetrics(metricsFile(), "1000", labels("test:a", "write"));
+    // running the same module and goal again replaces its samples
+    timings(4_000).writeOpenMetrics(metricsFile(), "1000", labels("test:a", "check"));
+
+    assertThat(samples())
+        .containsExactly(
+            "prettier_phase_seconds{build=\"1000\",module=\"test:b\",goal=\"check\",phase=\"format\"} 2.000",
+            "prettier_phase_seconds{build=\"1000\",module=\"test:a\",goal=\"write\",phase=\"format\"} 3.000",
+            "prettier_phase_seconds{build=\"1000\",module=\"test:a\",goal=\"check\",phase=\"format\"} 4.000",
+            "prettier_phase_runs{build=\"1000\",module=\"test:b\",goal=\"check\",phase=\"format\"} 2",
+            "prettier_phase_runs{build=\"1000\",module=\"test:a\",goal=\"write\",phase=\"format\"} 2",
+            "prettier_phase_runs{build=\"1000\",module=\"test:a\",goal=\"check\",phase=\"format\"} 2"
+        );
+  }
+
+  @Test
+  public void itDropsSamplesOfPreviousBuilds() throws IOException {
+    timings(1_000).writeOpenMetrics(metricsFile(), "1000", labels("test:a", "check"));
+    timings(2_000).writeOpenMetrics(metricsFile(), "1000", labels("test:b", "check"));
+    // a module that isn't built anymore, or was skipped in the next build
+    timings(3_000).writeOpenMetrics(metricsFile(), "2000", labels("test:a", "check"));
+
+    assertThat(samples())
+        .containsExactly(
+            "prettier_phase_seconds{build=\"2000\",module=\"test:a\",goal=\"check\",phase=\"format\"} 3.000",
+            "prettier_phase_runs{build=\"2000\",module=\"test:a\",goal=\"check\",phase=\"format\"} 2"
+        );
+  }
+
+  @Test
+  public void itAddsUpPhasesThatRunMoreThanOnce() throws IOException {
+    PhaseTimings timings = new PhaseTimings();
+    timings.record(PhaseTimings.NODE_STARTUP, TimeUnit.MILLISECONDS.toNanos(100));
+    timings.record(PhaseTimings.NODE_STARTUP, TimeUnit.MILLISECONDS.toNanos(150));
+    timings.record(PhaseTimings.FORMAT, TimeUnit.MILLISECONDS.toNanos(1_000));
+    Path jsonFile = directory.resolve("target").resolve("prettier-phases.json");
+
+    timings.writeJson(jsonFile, labels("test:a", "check"));
+
+    assertThat(jsonFile)
+        .hasContent(
+            "{\"module\":\"test:a\",\"goal\":\"check\",\"phases\":[" +
+            "{\"phase\":\"node-startup\",\"ms\":250,\"count\":2}," +
+            "{\"phase\":\"format\",\"ms\":1000,\"count\":1}" +
+            "]}"
+        );
+  }
+
+  private static PhaseTimings timings(long formatMillis) {
+    PhaseTimings timings = new PhaseTimings();
+    timings.record(PhaseTimings.FORMAT, TimeUnit.MILLISECONDS.toNanos(formatMillis / 2));
+    timings.record(PhaseTimings.FORMAT, TimeUnit.MILLISECONDS.toNanos(formatMillis - formatMillis / 2));
+    return timings;
+  }
+
+  private static Map<String, String> labels(String module, String goal) {
+    Map<String, String> labels = new LinkedHashMap<>();
+    labels.put("module", module);
+    labels.put("goal", goal);
+    return labels;
+  }
+
+  private List<String> samples() throws IOException {
+    List<String> lines = Files.readAllLines(metricsFile(), StandardCharsets.UTF_8);
+    lines.removeIf(line -> line.startsWith("#"));
+    return lines;
+  }
+
+  private Path metricsFile() {
+    return directory.resolve("metrics").resolve("prettier.prom");
+  }
+}
@@ -0,0 +1,253 @@
+package com.hubspot.maven.plugins.prettier.internal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+public class PrettierDaemonTest {
+  private static final Path MODULE_A = Paths.get("/work/module-a");
+  private static final Path MODULE_B = Paths.get("/work/module-b");
+
+  private final List<FakeRunner> runners = Collections.synchronizedList(new ArrayList<>());
+
+  @AfterEach
+  public void shutdown() {
+    PrettierDaemon.shutdownAll();
+  }
+
+  @Test
+  public void itOnlyReportsResultsOfTheCurrentRequest() throws Exception {
+    PrettierDaemon daemon = acquire("ids");
+
+    // the fake runner sends a record of another request and one without an id before each response
+    assertThat(run(daemon, MODULE_A, "Foo.java", "Bar.java")).containsExactly("Foo.java", "Bar.java");
+    assertThat(run(daemon, MODULE_A, "Baz.java")).containsExactly("Baz.java");
+
+    assertThat(runners).hasSize(1);
+    assertThat(runners.get(0).requests)
+        .extracting(request -> field(request, "id"))
+        .containsExactly("1", "2");
+  }
+
+  @Test
+  public void itIsReusedAcrossModules() throws Exception {
+    PrettierDaemon daemon = acquire("reuse");
+    assertThat(run(daemon, MODULE_A, "Foo.java")).containsExactly("Foo.java");
+    daemon.release();
+
+    PrettierDaemon reused = acquire("reuse");
+    assertThat(reused).isSameAs(daemon);
+    assertThat(run(reused, MODULE_B, "Bar.java")).containsExactly("Bar.java");
+    reused.release();
+
+    assertThat(runners).hasSize(1);
+    assertThat(runners.get(0).requests)
+        .extracting(request -> field(request, "cwd"))
+        .containsExactly(MODULE_A.toAbsolutePath().toString(), MODULE_B.toAbsolutePath().toString());
+
+    // a different command gets its own daemon
+    PrettierDaemon other = acquire("other");
+    assertThat(other).isNotSameAs(daemon);
+    assertThat(runners).hasSize(2);
+  }
+
+  @Test
+  public void itReplacesDaemonsThatExited() throws Exception {
+    PrettierDaemon daemon = acquire("exited");
+    runners.get(0).destroy();
+    daemon.release();
+
+    PrettierDaemon replacement = acquire("exited");
+
+    assertThat(replacement).isNotSameAs(daemon);
+    assertThat(runners).hasSize(2);
+    assertThat(run(replacement, MODULE_A, "Foo.java")).containsExactly("Foo.java");
+  }
+
+  @Test
+  public void itFailsWhenTheRunnerFails() throws Exception {
+    PrettierDaemon daemon = acquire("failed");
+
+    assertThatThrownBy(() -> run(daemon, MODULE_A, "Fail.java"))
+        .isInstanceOf(IOException.class)
+        .hasMessage("Prettier daemon failed: Error: boom");
+    assertThat(runners.get(0).isAlive()).isFalse();
+  }
+
+  @Test
+  public void itShutsDownWhenStdinIsClosed() throws Exception {
+    PrettierDaemon daemon = acquire("shutdown");
+    run(daemon, MODULE_A, "Foo.java");
+    daemon.release();
+
+    PrettierDaemon.shutdownAll();
+
+    assertThat(runners.get(0).waitFor(10, TimeUnit.SECONDS)).isTrue();
+    // the pool is empty again
+    acquire("shutdown");
+    assertThat(runners).hasSize(2);
+  }
+
+  private PrettierDaemon acquire(String name) throws IOException, InterruptedException {
+    return PrettierDaemon.acquire(
+        Arrays.asList("node", "prettier-runner.js", "--daemon", name),
+        1,
+        new PhaseTimings(),
+        new SystemStreamLog(),
+        command -> {
+          FakeRunner runner = new FakeRunner();
+          runners.add(runner);
+          return runner;
+        }
+    );
+  }
+
+  private static List<String> run(PrettierDaemon daemon, Path workingDirectory, String... files) throws IOException {
+    List<String> results = new ArrayList<>();
+    daemon.run("check", workingDirectory, Arrays.asList(files), result -> results.add(result.getFile()));
+    return results;
+  }
+
+  private static String field(String request, String name) {
+    Matcher matcher = Pattern.compile("\"" + name + "\":\"?([^,\"]*)").matcher(request);
+    return matcher.find() ? matcher.group(1) : null;
+  }
+
+  /**
+   * Speaks the daemon protocol of prettier-runner.js over in-memory pipes
+   */
+  private static class FakeRunner extends Process {
+    private static final Pattern FILE = Pattern.compile("\"([^\"]+)\"");
+
+    private final PipedOutputStream stdin = new PipedOutputStream();
+    private final PipedInputStream stdout = new PipedInputStream();
+    private final CountDownLatch exited = new CountDownLatch(1);
+    private final List<String> requests = Collections.synchronizedList(new ArrayList<>());
+
+    private FakeRunner() throws IOException {
+      PipedInputStream requestInput = new PipedInputStream(stdin);
+      PipedOutputStream responseOutput = new PipedOutputStream(stdout);
+      Thread thread = new Thread(() -> serve(requestInput, responseOutput), "fake-prettier-runner");
+      thread.setDaemon(true);
+      thread.start();
+    }
+
+    private void serve(InputStream requestInput, OutputStream responseOutput) {
+      try (
+        BufferedReader reader = new BufferedReader(new InputStreamReader(requestInput, StandardCharsets.UTF_8));
+        OutputStream output = responseOutput
+      ) {
+        write(output, "{\"status\":\"ready\",\"version\":\"3.0.3\"}");
+
+        String request;
+        while ((request = reader.readLine()) != null) {
+          requests.add(request);
+          long id = Long.parseLong(field(request, "id"));
+          String files = request.substring(request.indexOf("\"files\":[") + 9, request.lastIndexOf(']'));
+
+          // left over from a request whose caller gave up, and a record without an id
+          write(output, "{\"id\":" + (id + 100) + ",\"file\":\"Stale.java\",\"status\":\"clean\",\"ms\":1}");
+          write(output, "{\"file\":\"NoId.java\",\"status\":\"clean\",\"ms\":1}");
+
+          Matcher file = FILE.matcher(files);
+          while (file.find()) {
+            if (file.group(1).equals("Fail.java")) {
+              write(output, "{\"id\":" + id + ",\"status\":\"failed\",\"message\":\"Error: boom\"}");
+            } else {
+              write(output, "{\"id\":" + id + ",\"file\":\"" + file.group(1) + "\",\"status\":\"clean\",\"ms\":1}");
+            }
+          }
+          write(output, "{\"id\":" + id + ",\"status\":\"done\"}");
+        }
+      } catch (IOException e) {
+        // destroyed
+      } finally {
+        exited.countDown();
+      }
+    }
+
+    private static void write(OutputStream output, String record) throws IOException {
+      output.write((record + "\n").getBytes(StandardCharsets.UTF_8));
+      output.flush();
+    }
+
+    @Override
+    public OutputStream getOutputStream() {
+      return stdin;
+    }
+
+    @Override
+    public InputStream getInputStream() {
+      return stdout;
+    }
+
+    @Override
+    public InputStream getErrorStream() {
+      return new ByteArrayInputStream(new byte[0]);
+    }
+
+    @Override
+    public int waitFor() throws InterruptedException {
+      exited.await();
+      return 0;
+    }
+
+    @Override
+    public boolean waitFor(long timeout, TimeUnit unit) throws InterruptedException {
+      return exited.await(timeout, unit);
+    }
+
+    @Override
+    public int exitValue() {
+      if (isAlive()) {
+        throw new IllegalThreadStateException("still running");
+      }
+      return 0;
+    }
+
+    @Override
+    public boolean isAlive() {
+      return exited.getCount() > 0;
+    }
+
+    @Override
+    public long pid() {
+      return 42;
+    }
+
+    @Override
+    public void destroy() {
+      try {
+        stdin.close();
+        exited.await(10, TimeUnit.SECONDS);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+}
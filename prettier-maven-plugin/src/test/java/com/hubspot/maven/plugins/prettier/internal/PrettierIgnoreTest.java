@@ -0,0 +1,96 @@
+package com.hubspot.maven.plugins.prettier.internal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class PrettierIgnoreTest {
+
+  @Test
+  public void itSkipsCommentsAndBlankLines() {
+    PrettierIgnore ignore = parse("# generated sources", "", "   ", "*.gen.java", "\\#hash.java");
+
+    assertThat(ignore.isIgnored("src/Foo.gen.java")).isTrue();
+    assertThat(ignore.isIgnored("src/Foo.java")).isFalse();
+    // only a # at the start of the line makes a comment
+    assertThat(ignore.isIgnored("# generated sources")).isFalse();
+    assertThat(ignore.isIgnored("#hash.java")).isTrue();
+  }
+
+  @Test
+  public void itMatchesPatternsWithoutASlashAtAnyDepth() {
+    PrettierIgnore ignore = parse("Generated.java", "build");
+
+    assertThat(ignore.isIgnored("Generated.java")).isTrue();
+    assertThat(ignore.isIgnored("src/main/java/Generated.java")).isTrue();
+    assertThat(ignore.isIgnored("src/main/java/NotGenerated.java")).isFalse();
+    assertThat(ignore.isIgnored("build/Foo.java")).isTrue();
+    assertThat(ignore.isIgnored("module/build/Foo.java")).isTrue();
+  }
+
+  @Test
+  public void itAnchorsPatternsWithASlash() {
+    PrettierIgnore ignore = parse("/Root.java", "src/generated", "docs/*.md");
+
+    assertThat(ignore.isIgnored("Root.java")).isTrue();
+    assertThat(ignore.isIgnored("module/Root.java")).isFalse();
+
+    assertThat(ignore.isIgnored("src/generated/Foo.java")).isTrue();
+    assertThat(ignore.isIgnored("module/src/generated/Foo.java")).isFalse();
+
+    assertThat(ignore.isIgnored("docs/README.md")).isTrue();
+    assertThat(ignore.isIgnored("docs/api/README.md")).isFalse();
+  }
+
+  @Test
+  public void itOnlyMatchesDirectoriesWithATrailingSlash() {
+    PrettierIgnore ignore = parse("generated/");
+
+    assertThat(ignore.isIgnored("src/generated/Foo.java")).isTrue();
+    assertThat(ignore.isIgnoredDirectory("src/generated")).isTrue();
+    assertThat(ignore.isIgnoredDirectory("src/generated/nested")).isTrue();
+    // a file named like the directory isn't ignored
+    assertThat(ignore.isIgnored("src/generated")).isFalse();
+  }
+
+  @Test
+  public void itLetsTheLastMatchingPatternWin() {
+    PrettierIgnore ignore = parse("*.java", "!Keep.java", "Keep.java", "!src/Keep.java");
+
+    assertThat(ignore.isIgnored("Foo.java")).isTrue();
+    assertThat(ignore.isIgnored("src/Keep.java")).isFalse();
+    assertThat(ignore.isIgnored("test/Keep.java")).isTrue();
+  }
+
+  @Test
+  public void itDoesntIncludeFilesInIgnoredDirectoriesAgain() {
+    PrettierIgnore ignore = parse("generated/", "!generated/Keep.java");
+
+    assertThat(ignore.isIgnored("generated/Keep.java")).isTrue();
+  }
+
+  @Test
+  public void itStripsTrailingSpacesUnlessEscaped() {
+    PrettierIgnore ignore = parse("Foo.java   ", "Bar.java\\ ");
+
+    assertThat(ignore.isIgnored("Foo.java")).isTrue();
+    assertThat(ignore.isIgnored("Bar.java ")).isTrue();
+    assertThat(ignore.isIgnored("Bar.java")).isFalse();
+  }
+
+  @Test
+  public void itIgnoresNothingWithoutAnIgnoreFile(@TempDir Path directory) throws IOException {
+    PrettierIgnore ignore = PrettierIgnore.load(directory);
+
+    assertThat(ignore.isIgnored("Foo.java")).isFalse();
+    assertThat(ignore.isIgnoredDirectory("src")).isFalse();
+  }
+
+  private static PrettierIgnore parse(String... lines) {
+    return PrettierIgnore.parse(Arrays.asList(lines));
+  }
+}
@@ -0,0 +1,183 @@
+package com.hubspot.maven.plugins.prettier.internal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.hubspot.maven.plugins.prettier.internal.PrettierResult.Status;
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import org.junit.jupiter.api.Test;
+
+public class RunnerRecordReaderTest {
+
+  @Test
+  public void itReadsResults() throws IOException {
+    RunnerRecordReader records = reader(
+        "{\"id\":3,\"file\":\"src/main/java/Foo.java\",\"status\":\"changed\",\"ms\":12}\n",
+        "{\"file\":\"src/main/java/Bar.java\",\"status\":\"clean\",\"ms\":4}\n",
+        "{\"file\":\"Baz.java\",\"status\":\"ignored\",\"ms\":0}\n"
+    );
+
+    assertThat(records.next()).isTrue();
+    assertThat(records.getType()).isEqualTo(RunnerRecordReader.Type.RESULT);
+    assertThat(records.getId()).isEqualTo(3);
+    PrettierResult result = records.toResult();
+    assertThat(result.getFile()).isEqualTo("src/main/java/Foo.java");
+    assertThat(result.getStatus()).isEqualTo(Status.CHANGED);
+    assertThat(result.getDurationMillis()).isEqualTo(12);
+    assertThat(result.getFormatted()).isNull();
+
+    assertThat(records.next()).isTrue();
+    assertThat(records.getId()).isEqualTo(-1);
+    assertThat(records.toResult().getStatus()).isEqualTo(Status.CLEAN);
+
+    assertThat(records.next()).isTrue();
+    assertThat(records.toResult().getStatus()).isEqualTo(Status.IGNORED);
+
+    assertThat(records.next()).isFalse();
+  }
+
+  @Test
+  public void itReadsReadyDoneAndFailedRecords() throws IOException {
+    RunnerRecordReader records = reader(
+        "{\"status\":\"ready\",\"version\":\"3.0.3\"}\n",
+        "{\"id\":1,\"status\":\"done\"}\n",
+        "{\"id\":2,\"status\":\"failed\",\"message\":\"Error: boom\"}\n"
+    );
+
+    assertThat(records.next()).isTrue();
+    assertThat(records.getType()).isEqualTo(RunnerRecordReader.Type.READY);
+    assertThat(records.getVersion()).isEqualTo("3.0.3");
+
+    assertThat(records.next()).isTrue();
+    assertThat(records.getType()).isEqualTo(RunnerRecordReader.Type.DONE);
+    assertThat(records.getId()).isEqualTo(1);
+    assertThat(records.getVersion()).isNull();
+
+    assertThat(records.next()).isTrue();
+    assertThat(records.getType()).isEqualTo(RunnerRecordReader.Type.FAILED);
+    assertThat(records.getId()).isEqualTo(2);
+    assertThat(records.getMessage()).isEqualTo("Error: boom");
+
+    assertThat(records.next()).isFalse();
+  }
+
+  @Test
+  public void itReadsErrorResults() throws IOException {
+    RunnerRecordReader records = reader(
+        "{\"file\":\"Foo.java\",\"status\":\"error\",\"message\":\"SyntaxError: Unexpected token (1:8)\",\"ms\":2}\n"
+    );
+
+    assertThat(records.next()).isTrue();
+    PrettierResult result = records.toResult();
+    assertThat(result.getStatus()).isEqualTo(Status.ERROR);
+    assertThat(result.getMessage()).isEqualTo("SyntaxError: Unexpected token (1:8)");
+  }
+
+  @Test
+  public void itUnescapesStrings() throws IOException {
+    RunnerRecordReader records = reader(
+        "{\"file\":\"dir\\\\Foo \\\"quoted\\\".java\",\"status\":\"error\",",
+        "\"message\":\"tab\\there\\r\\nline\\b\\f\\/ caf\\u00e9 \\ud83d\\ude00\",\"ms\":1}\n"
+    );
+
+    assertThat(records.next()).isTrue();
+    PrettierResult result = records.toResult();
+    assertThat(result.getFile()).isEqualTo("dir\\Foo \"quoted\".java");
+    assertThat(result.getMessage()).isEqualTo("tab\there\r\nline\b\f/ café 😀");
+  }
+
+  @Test
+  public void itReadsFormattedContentsWithNewlines() throws IOException {
+    RunnerRecordReader records = reader(
+        "{\"file\":\"Foo.java\",\"status\":\"changed\",",
+        "\"formatted\":\"public class Foo {\\n\\n  int a;\\n}\\n\",\"ms\":7}\n"
+    );
+
+    assertThat(records.next()).isTrue();
+    assertThat(records.toResult().getFormatted()).isEqualTo("public class Foo {\n\n  int a;\n}\n");
+  }
+
+  @Test
+  public void itSkipsUnknownFields() throws IOException {
+    RunnerRecordReader records = reader(
+        "{\"extra\":{\"nested\":[1,2.5e3,true,false,null,\"}\"],\"empty\":{}},",
+        "\"file\":\"Foo.java\",\"list\":[],\"status\":\"clean\",\"ms\":3.9,\"flag\":true}\n"
+    );
+
+    assertThat(records.next()).isTrue();
+    PrettierResult result = records.toResult();
+    assertThat(result.getFile()).isEqualTo("Foo.java");
+    assertThat(result.getStatus()).isEqualTo(Status.CLEAN);
+    assertThat(result.getDurationMillis()).isEqualTo(3);
+  }
+
+  @Test
+  public void itReadsRecordsSplitAcrossReads() throws IOException {
+    StringBuilder formatted = new StringBuilder();
+    for (int i = 0; i < 2_000; i++) {
+      formatted.append("line \"").append(i).append("\"\n");
+    }
+    String escaped = formatted.toString().replace("\"", "\\\"").replace("\n", "\\n");
+    String output =
+      "{\"file\":\"Foo.java\",\"status\":\"changed\",\"formatted\":\"" + escaped + "\",\"ms\":1}\n" +
+      "{\"status\":\"done\"}\n";
+
+    // a char at a time, so that every token and escape is split at some point
+    RunnerRecordReader records = new RunnerRecordReader(new OneCharReader(new StringReader(output)));
+
+    assertThat(records.next()).isTrue();
+    assertThat(records.toResult().getFormatted()).isEqualTo(formatted.toString());
+    assertThat(records.next()).isTrue();
+    assertThat(records.getType()).isEqualTo(RunnerRecordReader.Type.DONE);
+    assertThat(records.next()).isFalse();
+  }
+
+  @Test
+  public void itFailsOnATruncatedLastLine() throws IOException {
+    RunnerRecordReader records = reader(
+        "{\"file\":\"Foo.java\",\"status\":\"clean\",\"ms\":1}\n",
+        "{\"file\":\"Bar.java\",\"status\":\"cha"
+    );
+
+    assertThat(records.next()).isTrue();
+    assertThatThrownBy(records::next)
+        .isInstanceOf(IOException.class)
+        .hasMessageContaining("Unexpected end of output from prettier");
+  }
+
+  @Test
+  public void itFailsOnOutputThatIsntARecord() {
+    RunnerRecordReader records = reader("Debugger attached.\n");
+
+    assertThatThrownBy(records::next)
+        .isInstanceOf(IOException.class)
+        .hasMessageContaining("Unexpected output from prettier")
+        .hasMessageContaining("ebugger attached.");
+  }
+
+  @Test
+  public void itFailsOnRecordsWithoutAStatus() {
+    RunnerRecordReader records = reader("{\"file\":\"Foo.java\",\"ms\":1}\n");
+
+    assertThatThrownBy(records::next).isInstanceOf(IOException.class).hasMessageContaining("without a status");
+  }
+
+  private static RunnerRecordReader reader(String... output) {
+    return new RunnerRecordReader(new StringReader(String.join("", output)));
+  }
+
+  private static class OneCharReader extends FilterReader {
+
+    private OneCharReader(Reader reader) {
+      super(reader);
+    }
+
+    @Override
+    public int read(char[] buffer, int offset, int length) throws IOException {
+      return super.read(buffer, offset, Math.min(1, length));
+    }
+  }
+}
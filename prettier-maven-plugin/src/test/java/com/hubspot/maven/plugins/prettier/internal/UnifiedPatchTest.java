@@ -0,0 +1,116 @@
+package com.hubspot.maven.plugins.prettier.internal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class UnifiedPatchTest {
+  private static final String PATCH = String.join(
+      "\n",
+      "diff --git a/lib/file.js b/lib/file.js",
+      "index 1111111..2222222 100644",
+      "--- a/lib/file.js",
+      "+++ b/lib/file.js",
+      "@@ -2,3 +2,3 @@ function a() {",
+      " one",
+      "-two",
+      "+TWO",
+      " three",
+      "@@ -8,2 +8,3 @@",
+      " seven",
+      " eight",
+      "+nine",
+      ""
+  );
+
+  @Test
+  public void itAppliesHunks() throws IOException {
+    String original = lines("zero", "one", "two", "three", "four", "five", "six", "seven", "eight");
+
+    assertThat(single(PATCH).apply(original))
+        .isEqualTo(lines("zero", "one", "TWO", "three", "four", "five", "six", "seven", "eight", "nine"));
+  }
+
+  @Test
+  public void itAppliesHunksThatMoved() throws IOException {
+    String original = lines("new", "new", "zero", "one", "two", "three", "four", "five", "six", "seven", "eight");
+
+    assertThat(single(PATCH).apply(original))
+        .isEqualTo(
+            lines("new", "new", "zero", "one", "TWO", "three", "four", "five", "six", "seven", "eight", "nine")
+        );
+  }
+
+  @Test
+  public void itKeepsLineEndings() throws IOException {
+    String original = "zero\r\none\r\ntwo\r\nthree\r\n";
+    String patch = String.join(
+        "\n",
+        "--- a/file.txt",
+        "+++ b/file.txt",
+        "@@ -2,2 +2,2 @@",
+        " one\r",
+        "-two\r",
+        "+TWO\r",
+        ""
+    );
+
+    assertThat(single(patch).apply(original)).isEqualTo("zero\r\none\r\nTWO\r\nthree\r\n");
+  }
+
+  @Test
+  public void itHandlesMissingNewlineAtEndOfFile() throws IOException {
+    String patch = String.join(
+        "\n",
+        "--- a/file.txt",
+        "+++ b/file.txt",
+        "@@ -1,2 +1,2 @@",
+        " one",
+        "-two",
+        "\\ No newline at end of file",
+        "+TWO",
+        "\\ No newline at end of file",
+        ""
+    );
+
+    assertThat(single(patch).apply("one\ntwo")).isEqualTo("one\nTWO");
+  }
+
+  @Test
+  public void itRejectsHunksThatDontMatch() throws IOException {
+    String original = lines("zero", "one", "2", "three", "four", "five", "six", "seven", "eight");
+
+    assertThatThrownBy(() -> single(PATCH).apply(original))
+        .isInstanceOf(IOException.class)
+        .hasMessageContaining("line 2 of lib/file.js");
+  }
+
+  @Test
+  public void itParsesTheBundledPatches() throws IOException {
+    for (String resource : new String[] { "/no-linebreak-generics.patch", "/no-linebreak-generics-2.3.patch" }) {
+      try (InputStream inputStream = getClass().getResourceAsStream(resource)) {
+        List<UnifiedPatch.FilePatch> files = UnifiedPatch
+            .parse(new String(inputStream.readAllBytes(), StandardCharsets.UTF_8))
+            .getFiles();
+
+        assertThat(files).isNotEmpty();
+        assertThat(files).allSatisfy(file -> assertThat(file.getPath()).startsWith("node_modules/prettier-plugin-java/"));
+      }
+    }
+  }
+
+  private static UnifiedPatch.FilePatch single(String patch) throws IOException {
+    List<UnifiedPatch.FilePatch> files = UnifiedPatch.parse(patch).getFiles();
+    assertThat(files).hasSize(1);
+    return files.get(0);
+  }
+
+  private static String lines(String... lines) {
+    return String.join("\n", lines) + "\n";
+  }
+}